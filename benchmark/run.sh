@@ -1,6 +1,6 @@
 #!/bin/bash
 
-ARTIFACT_ID=tsid-creator
+ARTIFACT_ID=hypersistence-tsid
 
 # find the script folder
 SCRIPT_DIR=$(dirname "$0")
@@ -22,6 +22,6 @@ mvn validate
 mvn clean install
 
 # run the benchmark
-# /usr/lib/jvm/java-8-openjdk-amd64/jre/bin/java -jar target/benchmarks.jar
-java -jar target/benchmarks.jar
+# /usr/lib/jvm/java-8-openjdk-amd64/jre/bin/java -jar target/benchmarks.jar "$@"
+java -jar target/benchmarks.jar "$@"
 
@@ -0,0 +1,74 @@
+package benchmark;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TsidBackfill;
+
+/**
+ * Measures the backfill generator on timestamps of legacy rows, spread over one
+ * year, in ascending order with about 10 rows per millisecond.
+ * <p>
+ * The generator is cleared every 16M rows, so that the counters fit in memory.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BackfillThroughput {
+
+	private static final int SIZE = 1 << 24;
+
+	private final TsidBackfill backfill = new TsidBackfill(10, 1023, Instant.parse("2010-01-01T00:00:00Z"));
+	private final long[] timestamps = new long[SIZE];
+	private final long[] batch = new long[1024];
+	private final long[] tsids = new long[1024];
+	private int next;
+
+	@Setup
+	public void setup() {
+		final SplittableRandom random = new SplittableRandom(1);
+		long timestamp = Instant.parse("2015-01-01T00:00:00Z").toEpochMilli();
+		for (int i = 0; i < SIZE; i++) {
+			timestamp += random.nextInt(10) == 0 ? 1 : 0;
+			timestamps[i] = timestamp;
+		}
+	}
+
+	@Benchmark
+	public long generate() {
+		if (next == SIZE) {
+			next = 0;
+			backfill.clear();
+		}
+		return backfill.generate(timestamps[next++]);
+	}
+
+	@Benchmark
+	public long[] generate_batch_1024() {
+		if (next + tsids.length > SIZE) {
+			next = 0;
+			backfill.clear();
+		}
+		System.arraycopy(timestamps, next, batch, 0, batch.length);
+		next += batch.length;
+		backfill.generate(batch, tsids);
+		return tsids;
+	}
+}
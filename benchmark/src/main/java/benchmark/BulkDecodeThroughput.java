@@ -0,0 +1,63 @@
+
+package benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TsidCodec;
+
+/**
+ * Compares the scalar and the vector bulk decoders on a buffer of 4096 lines.
+ * <p>
+ * The forked JVM adds the incubator module, otherwise the vector decoder falls
+ * back to the scalar one.
+ */
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BulkDecodeThroughput {
+
+	private static final int SIZE = 4096;
+
+	private final long[] tsids = new long[SIZE];
+	private final byte[] bytes = new byte[TsidCodec.encodedLength(SIZE, true)];
+
+	@Setup
+	public void setup() {
+		if (!TsidCodec.isVectorDecodeAvailable()) {
+			throw new IllegalStateException("The Vector API is not available");
+		}
+		for (int i = 0; i < SIZE; i++) {
+			tsids[i] = ThreadLocalRandom.current().nextLong();
+		}
+		TsidCodec.encode(tsids, 0, SIZE, bytes, 0, (byte) '\n');
+	}
+
+	@Benchmark
+	public long[] decode_scalar() {
+		TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', tsids, 0);
+		return tsids;
+	}
+
+	@Benchmark
+	public long[] decode_vector() {
+		TsidCodec.vectorDecode(bytes, 0, bytes.length, (byte) '\n', tsids, 0);
+		return tsids;
+	}
+}
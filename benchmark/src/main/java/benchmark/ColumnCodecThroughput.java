@@ -0,0 +1,86 @@
+
+package benchmark;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.tsid.TsidColumnCodec;
+
+/**
+ * Compares the column codec to raw 8-byte longs on 4096 TSIDs of one factory.
+ * <p>
+ * The compression ratio is printed by the setup method.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnCodecThroughput {
+
+	private static final int SIZE = 4096;
+
+	private final long[] tsids = new long[SIZE];
+	private ByteBuffer raw;
+	private ByteBuffer column;
+	private DataOutputStream sink;
+
+	@Setup
+	public void setup() {
+		final TSID.Factory factory = TSID.Factory.builder().withNode(1).build();
+		for (int i = 0; i < SIZE; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+		raw = ByteBuffer.allocate(SIZE * TSID.TSID_BYTES);
+		raw.asLongBuffer().put(tsids);
+		column = ByteBuffer.wrap(TsidColumnCodec.encode(tsids));
+		sink = new DataOutputStream(new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		});
+		System.out.printf("%nBytes per TSID: %.2f (compression ratio: %.2f)%n",
+				(double) column.capacity() / SIZE, (double) raw.capacity() / column.capacity());
+	}
+
+	@Benchmark
+	public long[] decode_raw() {
+		raw.clear();
+		raw.asLongBuffer().get(tsids);
+		return tsids;
+	}
+
+	@Benchmark
+	public long[] decode_column() {
+		column.clear();
+		return TsidColumnCodec.decode(column);
+	}
+
+	@Benchmark
+	public DataOutputStream encode_column() throws IOException {
+		TsidColumnCodec.encode(tsids, 0, SIZE, sink);
+		return sink;
+	}
+}
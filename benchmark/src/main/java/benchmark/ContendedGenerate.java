@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TSID;
+
+/**
+ * Compares a factory that locks to a lock-free factory and a striped factory,
+ * with 16 threads sharing each of them.
+ */
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ContendedGenerate {
+
+	private final TSID.Factory locking = TSID.Factory.builder().withNodeBits(10).withNode(1).build();
+	private final TSID.Factory lockFree = TSID.Factory.builder().withNodeBits(10).withNode(1).withLockFree().build();
+	private final TSID.Factory striped = TSID.Factory.builder().withNodeBits(10).withNode(1).withStripes(16).build();
+
+	@Benchmark
+	public TSID generate_lock() {
+		return locking.generate();
+	}
+
+	@Benchmark
+	public TSID generate_lock_free() {
+		return lockFree.generate();
+	}
+
+	@Benchmark
+	public TSID generate_striped() {
+		return striped.generate();
+	}
+}
@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TSID;
+
+/**
+ * Compares generating 1024 TSIDs one by one to generating them in bulk, with 4
+ * threads sharing a factory.
+ */
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GenerateThroughput {
+
+	private static final int SIZE = 1024;
+
+	private final TSID.Factory factory = TSID.Factory.builder().withNodeBits(10).withNode(1).build();
+
+	@State(Scope.Thread)
+	public static class Buffer {
+		private final long[] tsids = new long[SIZE];
+	}
+
+	@Benchmark
+	public long[] generate_loop(final Buffer buffer) {
+		for (int i = 0; i < SIZE; i++) {
+			buffer.tsids[i] = factory.generate().toLong();
+		}
+		return buffer.tsids;
+	}
+
+	@Benchmark
+	public long[] generate_array(final Buffer buffer) {
+		factory.generate(buffer.tsids, 0, SIZE);
+		return buffer.tsids;
+	}
+
+	@Benchmark
+	public long[] generate_stream() {
+		return factory.stream().limit(SIZE).toArray();
+	}
+}
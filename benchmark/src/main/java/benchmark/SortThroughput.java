@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.tsid.TsidSort;
+
+/**
+ * Compares the unsigned sorts of TsidSort to Arrays.parallelSort with a sign
+ * fixup, on 1M TSIDs of 16 nodes.
+ * <p>
+ * The "shuffled" input is in random order; the "nearly_sorted" input is in time
+ * order with 1% of the TSIDs swapped with a close neighbor.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 2)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SortThroughput {
+
+	private static final int SIZE = 1 << 20;
+
+	@Param({ "shuffled", "nearly_sorted" })
+	private String input;
+
+	private long[] source;
+	private final long[] tsids = new long[SIZE];
+
+	@Setup
+	public void setup() {
+		final SplittableRandom random = new SplittableRandom(1);
+		final TSID.Factory[] factories = new TSID.Factory[16];
+		for (int i = 0; i < factories.length; i++) {
+			factories[i] = TSID.Factory.builder().withNodeBits(4).withNode(i).build();
+		}
+		source = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			source[i] = factories[i & 15].generate().toLong();
+		}
+		if (input.equals("shuffled")) {
+			for (int i = SIZE - 1; i > 0; i--) {
+				swap(source, i, random.nextInt(i + 1));
+			}
+		} else {
+			TsidSort.sort(source);
+			for (int i = 0; i < SIZE / 100; i++) {
+				final int a = random.nextInt(SIZE - 8);
+				swap(source, a, a + 1 + random.nextInt(7));
+			}
+		}
+	}
+
+	private static void swap(final long[] array, final int a, final int b) {
+		final long swap = array[a];
+		array[a] = array[b];
+		array[b] = swap;
+	}
+
+	@Benchmark
+	public long[] sort_adaptive() {
+		System.arraycopy(source, 0, tsids, 0, SIZE);
+		TsidSort.sort(tsids);
+		return tsids;
+	}
+
+	@Benchmark
+	public long[] sort_radix() {
+		System.arraycopy(source, 0, tsids, 0, SIZE);
+		TsidSort.radixSort(tsids);
+		return tsids;
+	}
+
+	@Benchmark
+	public long[] sort_parallel() {
+		System.arraycopy(source, 0, tsids, 0, SIZE);
+		TsidSort.parallelSort(tsids);
+		return tsids;
+	}
+
+	@Benchmark
+	public long[] sort_arrays_fixup() {
+		System.arraycopy(source, 0, tsids, 0, SIZE);
+		// flipping the sign bit turns the unsigned order into the signed order
+		for (int i = 0; i < SIZE; i++) {
+			tsids[i] ^= Long.MIN_VALUE;
+		}
+		Arrays.parallelSort(tsids);
+		for (int i = 0; i < SIZE; i++) {
+			tsids[i] ^= Long.MIN_VALUE;
+		}
+		return tsids;
+	}
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.hypersistence.tsid.TSID;
+import io.hypersistence.tsid.TsidTimeIndex;
+
+/**
+ * Compares the interpolation search of the time index to a binary search, on
+ * 4M TSIDs spread over one day.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TimeIndexSearch {
+
+	private static final int SIZE = 1 << 22;
+	private static final int QUERIES = 1024;
+	private static final long DAY = 86_400_000L;
+
+	private TsidTimeIndex index;
+	private long[] sorted;
+	private final long[] queries = new long[QUERIES];
+	private int next;
+
+	@Setup
+	public void setup() {
+		final SplittableRandom random = new SplittableRandom(1);
+		final long start = System.currentTimeMillis() - DAY;
+		final TsidTimeIndex.Builder builder = TsidTimeIndex.builder();
+		for (int i = 0; i < SIZE; i++) {
+			builder.add(((start + random.nextLong(DAY) - TSID.TSID_EPOCH) << 22) | random.nextInt(1 << 22));
+		}
+		index = builder.build();
+		sorted = index.toArray();
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = start + random.nextLong(DAY);
+		}
+	}
+
+	@Benchmark
+	public int search_interpolation() {
+		return index.ceilingIndex(queries[next++ & (QUERIES - 1)]);
+	}
+
+	@Benchmark
+	public int search_binary() {
+		final long time = queries[next++ & (QUERIES - 1)] - TSID.TSID_EPOCH;
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (sorted[middle] >>> 22 < time) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,72 @@
+package io.hypersistence.tsid;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the two-char lookup codec to the one-char reference codec.
+ * <p>
+ * It lives in the library package to reach the package-private reference
+ * codec.
+ */
+@Fork(1)
+@Threads(1)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 3)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CodecThroughput {
+
+	private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+	private static final int SIZE = 1024;
+
+	private final long[] numbers = new long[SIZE];
+	private final String[] strings = new String[SIZE];
+	private final char[] chars = new char[TSID.TSID_CHARS];
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		for (int i = 0; i < SIZE; i++) {
+			numbers[i] = ThreadLocalRandom.current().nextLong();
+			strings[i] = TSID.from(numbers[i]).toString();
+		}
+	}
+
+	@Benchmark
+	public char[] encode_pairs() {
+		TSID.from(numbers[index++ & (SIZE - 1)]).writeTo(chars, 0);
+		return chars;
+	}
+
+	@Benchmark
+	public char[] encode_reference() {
+		TSID.encodeReference(numbers[index++ & (SIZE - 1)], ALPHABET, chars, 0);
+		return chars;
+	}
+
+	@Benchmark
+	public long decode_pairs() {
+		return TSID.decode(strings[index++ & (SIZE - 1)], 0L);
+	}
+
+	@Benchmark
+	public long decode_reference() {
+		return TSID.decodeReference(strings[index++ & (SIZE - 1)], 0L);
+	}
+}
@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fast thread-safe random generator shared by the factories built with
+ * {@link TSID.Factory.Builder#withFastRandom()}.
+ * <p>
+ * It has a few stripes, each of them a 64-bit state that is advanced by an
+ * atomic add and mixed into a random value, like {@code SplittableRandom}. A
+ * thread picks a stripe by its identifier, so threads rarely touch the same
+ * state, and no thread ever waits for a lock.
+ * <p>
+ * The stripes are seeded by a {@link SecureRandom}, which is created once per
+ * process instead of once per factory. They are reseeded by it every minute,
+ * by the first thread that asks for a random value after the minute is over,
+ * so that the states can't be followed for long. No thread is started, so that
+ * call may block while the {@link SecureRandom} locks or waits for entropy.
+ * <p>
+ * The values are a Weyl sequence mixed by an invertible function. They are
+ * statistically random, but <b>not</b> cryptographically secure.
+ */
+final class Entropy implements TSID.Factory.IRandom {
+
+	// the golden ratio, an odd number that visits all states
+	private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static final int MAX_STRIPES = 64;
+	private static final long RESEED_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+	private static final Entropy SHARED = new Entropy(new SecureRandom(), Math.min(MAX_STRIPES,
+			Runtime.getRuntime().availableProcessors() * 2), RESEED_INTERVAL);
+
+	private final Random seeder;
+	private final AtomicLongArray states;
+	private final int mask;
+
+	private final long reseedInterval;
+	private final AtomicLong nextReseed;
+
+	/**
+	 * Creates a generator seeded by a random generator.
+	 * 
+	 * @param seeder         a thread-safe random generator
+	 * @param stripes        the number of stripes, rounded up to a power of two
+	 * @param reseedInterval the nanoseconds between reseeds
+	 */
+	Entropy(final Random seeder, final int stripes, final long reseedInterval) {
+		if (stripes < 1 || stripes > MAX_STRIPES) {
+			throw new IllegalArgumentException(String.format("Invalid stripes: %s", stripes));
+		}
+		final int length = stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1;
+		this.seeder = seeder;
+		this.states = new AtomicLongArray(length * Hashing.PADDING);
+		this.mask = length - 1;
+		this.reseedInterval = reseedInterval;
+		this.nextReseed = new AtomicLong(System.nanoTime() + reseedInterval);
+		reseed();
+	}
+
+	/**
+	 * Returns the generator shared by the process.
+	 * 
+	 * @return a generator
+	 */
+	static Entropy shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the number of stripes.
+	 * 
+	 * @return a power of two
+	 */
+	int stripes() {
+		return mask + 1;
+	}
+
+	/**
+	 * Returns a random long.
+	 * 
+	 * @return a number
+	 */
+	long nextLong() {
+		final long now = System.nanoTime();
+		final long next = nextReseed.get();
+		// only the thread that wins the race reseeds, the others go on
+		if (now - next >= 0 && nextReseed.compareAndSet(next, now + reseedInterval)) {
+			reseed();
+		}
+		final int stripe = (int) Hashing.mix(Thread.currentThread().getId()) & mask;
+		return Hashing.mix(states.addAndGet(stripe * Hashing.PADDING, GAMMA));
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public byte[] nextBytes(final int length) {
+		final byte[] bytes = new byte[length];
+		long random = 0;
+		for (int i = 0; i < length; i++) {
+			if ((i & 7) == 0) {
+				random = nextLong();
+			}
+			bytes[i] = (byte) random;
+			random >>>= Byte.SIZE;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Replaces the state of every stripe with a new seed.
+	 */
+	void reseed() {
+		for (int i = 0; i <= mask; i++) {
+			states.set(i * Hashing.PADDING, seeder.nextLong());
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+/**
+ * Hash functions for TSIDs used as keys of hash tables.
+ * <p>
+ * The upper bits of a TSID are a timestamp that changes slowly, and the lower
+ * bits are often a counter, so neither end is random enough to be used as a
+ * table index as it is.
+ */
+final class Hashing {
+
+	// the largest power of two that is a valid array length
+	static final int MAX_CAPACITY = 1 << 30;
+
+	// the distance, in longs, between values of an array updated by different
+	// threads, so that two of them never share a cache line or its pair
+	static final int PADDING = 16;
+
+	private Hashing() {
+	}
+
+	/**
+	 * Mixes all 64 bits of a number into all bits of the result.
+	 * <p>
+	 * It is the 64-bit finalizer of MurmurHash3, which is a bijection, so
+	 * distinct TSIDs never collide before the result is reduced to an index.
+	 * 
+	 * @param number a number
+	 * @return a well-distributed hash
+	 */
+	static long mix(long number) {
+		number ^= number >>> 33;
+		number *= 0xff51afd7ed558ccdL;
+		number ^= number >>> 33;
+		number *= 0xc4ceb9fe1a85ec53L;
+		number ^= number >>> 33;
+		return number;
+	}
+
+	/**
+	 * Returns the capacity of an open-addressing table that holds a number of
+	 * entries without exceeding a load factor of 3/4.
+	 * 
+	 * @param expected the expected number of entries
+	 * @return a power of two
+	 */
+	static int capacity(final int expected) {
+		if (expected < 0) {
+			throw new IllegalArgumentException(String.format("Invalid expected size: %s", expected));
+		}
+		final long minimum = Math.max(8L, ((long) expected * 4 + 2) / 3 + 1);
+		if (minimum > MAX_CAPACITY) {
+			throw new IllegalArgumentException(String.format("Invalid expected size: %s", expected));
+		}
+		return Integer.highestOneBit((int) minimum - 1) << 1;
+	}
+
+	/**
+	 * Returns the maximum number of entries of a table before it grows.
+	 * 
+	 * @param capacity the capacity of a table
+	 * @return three quarters of the capacity
+	 */
+	static int threshold(final int capacity) {
+		return capacity - (capacity >>> 2);
+	}
+
+	/**
+	 * Returns the capacity of a table that is twice as large.
+	 * 
+	 * @param capacity the capacity of a table
+	 * @param name     the name of the table, for the error message
+	 * @return twice the capacity
+	 * @throws IllegalStateException if the table is already as large as possible
+	 */
+	static int grow(final int capacity, final String name) {
+		if (capacity >= MAX_CAPACITY) {
+			throw new IllegalStateException(String.format("%s is full", name));
+		}
+		return capacity << 1;
+	}
+}
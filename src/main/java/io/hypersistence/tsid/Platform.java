@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+/**
+ * Low-level operations that have faster implementations in newer JDKs.
+ * <p>
+ * This is the Java 8 implementation. The multi-release JAR contains a Java 17
+ * implementation under {@code META-INF/versions/17}, which uses
+ * {@code VarHandle} byte-array views, {@code Math.multiplyHigh},
+ * {@code Long.compareUnsigned} and {@code Thread.onSpinWait}.
+ */
+final class Platform {
+
+	private Platform() {
+	}
+
+	/**
+	 * Returns the feature version of the JDK this implementation is for.
+	 * 
+	 * @return a version number
+	 */
+	static int version() {
+		return 8;
+	}
+
+	/**
+	 * Reads a big-endian long from a byte array.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @return a number
+	 */
+	static long getLong(final byte[] bytes, final int offset) {
+		return ((bytes[offset] & 0xffL) << 56) //
+				| ((bytes[offset + 1] & 0xffL) << 48) //
+				| ((bytes[offset + 2] & 0xffL) << 40) //
+				| ((bytes[offset + 3] & 0xffL) << 32) //
+				| ((bytes[offset + 4] & 0xffL) << 24) //
+				| ((bytes[offset + 5] & 0xffL) << 16) //
+				| ((bytes[offset + 6] & 0xffL) << 8) //
+				| ((bytes[offset + 7] & 0xffL));
+	}
+
+	/**
+	 * Writes a big-endian long into a byte array.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @param number a number
+	 */
+	static void putLong(final byte[] bytes, final int offset, final long number) {
+		bytes[offset] = (byte) (number >>> 56);
+		bytes[offset + 1] = (byte) (number >>> 48);
+		bytes[offset + 2] = (byte) (number >>> 40);
+		bytes[offset + 3] = (byte) (number >>> 32);
+		bytes[offset + 4] = (byte) (number >>> 24);
+		bytes[offset + 5] = (byte) (number >>> 16);
+		bytes[offset + 6] = (byte) (number >>> 8);
+		bytes[offset + 7] = (byte) (number);
+	}
+
+	/**
+	 * Reads a little-endian long from a byte array.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @return a number
+	 */
+	static long getLongLittleEndian(final byte[] bytes, final int offset) {
+		return Long.reverseBytes(getLong(bytes, offset));
+	}
+
+	/**
+	 * Writes a little-endian long into a byte array.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @param number a number
+	 */
+	static void putLongLittleEndian(final byte[] bytes, final int offset, final long number) {
+		putLong(bytes, offset, Long.reverseBytes(number));
+	}
+
+	/**
+	 * Compares two longs as unsigned numbers.
+	 * 
+	 * @param a a number
+	 * @param b another number
+	 * @return -1, 0 or 1 as {@code a} is less than, equal to, or greater than
+	 *         {@code b}
+	 */
+	static int compareUnsigned(final long a, final long b) {
+		// used to compare as UNSIGNED longs
+		final long min = 0x8000000000000000L;
+		return Long.compare(a + min, b + min);
+	}
+
+	/**
+	 * Divides two longs as unsigned numbers.
+	 * <p>
+	 * Unlike {@link Long#divideUnsigned(long, long)} in Java 8, it doesn't fall
+	 * back to {@link java.math.BigInteger} for negative dividends.
+	 * 
+	 * @param dividend a number
+	 * @param divisor  a number
+	 * @return the unsigned quotient
+	 */
+	static long divideUnsigned(final long dividend, final long divisor) {
+		if (divisor < 0) {
+			return compareUnsigned(dividend, divisor) < 0 ? 0 : 1;
+		}
+		if (dividend >= 0) {
+			return dividend / divisor;
+		}
+		// See Hacker's Delight (2nd ed), section 9.3
+		final long quotient = ((dividend >>> 1) / divisor) << 1;
+		final long remainder = dividend - quotient * divisor;
+		return quotient + (compareUnsigned(remainder, divisor) >= 0 ? 1 : 0);
+	}
+
+	/**
+	 * Returns the high 64 bits of the 128-bit product of two unsigned longs.
+	 * 
+	 * @param x a number
+	 * @param y a number
+	 * @return the high 64 bits of the unsigned product
+	 */
+	static long multiplyHighUnsigned(final long x, final long y) {
+		// See Hacker's Delight (2nd ed), section 8.2
+		final long x0 = x & 0xffffffffL;
+		final long x1 = x >>> 32;
+		final long y0 = y & 0xffffffffL;
+		final long y1 = y >>> 32;
+		final long w0 = x0 * y0;
+		final long t = x1 * y0 + (w0 >>> 32);
+		final long w1 = (t & 0xffffffffL) + x0 * y1;
+		return x1 * y1 + (t >>> 32) + (w1 >>> 32);
+	}
+
+	/**
+	 * Hints that the caller is in a spin loop.
+	 * <p>
+	 * It does nothing in Java 8.
+	 */
+	static void onSpinWait() {
+		// not available before Java 9
+	}
+}
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe secure random generator shared by the factories that have no
+ * random generator of their own.
+ * <p>
+ * It has a few stripes, each of them a buffer of random values that threads take
+ * from with an atomic increment. A thread picks a stripe by its identifier, so
+ * threads rarely touch the same buffer. The thread that finds a buffer empty
+ * fills a new one in bulk from a single {@link SecureRandom}, created once per
+ * process instead of once per factory. Every value is handed out once, so the
+ * values are as secure as those of the {@link SecureRandom}.
+ * <p>
+ * The refill runs on the calling thread, once every {@value #BUFFER_SIZE}
+ * values of a stripe, and may block while the {@link SecureRandom} locks or
+ * waits for entropy.
+ */
+final class SecureEntropy implements TSID.Factory.IRandom {
+
+	private static final int MAX_STRIPES = 64;
+	static final int BUFFER_SIZE = 64;
+
+	private static final SecureEntropy SHARED = new SecureEntropy(new SecureRandom(), Math.min(MAX_STRIPES,
+			Runtime.getRuntime().availableProcessors() * 2), BUFFER_SIZE);
+
+	private final Random source;
+	private final AtomicReferenceArray<Buffer> buffers;
+	private final int mask;
+	private final int size;
+
+	/**
+	 * Creates a generator that takes its values from a random generator.
+	 * 
+	 * @param source  a thread-safe random generator
+	 * @param stripes the number of stripes, rounded up to a power of two
+	 * @param size    the number of values of a buffer
+	 */
+	SecureEntropy(final Random source, final int stripes, final int size) {
+		if (stripes < 1 || stripes > MAX_STRIPES) {
+			throw new IllegalArgumentException(String.format("Invalid stripes: %s", stripes));
+		}
+		if (size < 1) {
+			throw new IllegalArgumentException(String.format("Invalid buffer size: %s", size));
+		}
+		final int length = stripes > 1 ? Integer.highestOneBit(stripes - 1) << 1 : 1;
+		this.source = source;
+		this.buffers = new AtomicReferenceArray<>(length);
+		this.mask = length - 1;
+		this.size = size;
+		// empty, so that the first call fills them and not the constructor
+		for (int i = 0; i < length; i++) {
+			buffers.set(i, new Buffer(new long[0], 0));
+		}
+	}
+
+	/**
+	 * Returns the generator shared by the process.
+	 * 
+	 * @return a generator
+	 */
+	static SecureEntropy shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns the number of stripes.
+	 * 
+	 * @return a power of two
+	 */
+	int stripes() {
+		return mask + 1;
+	}
+
+	/**
+	 * Returns a random long.
+	 * 
+	 * @return a number
+	 */
+	long nextLong() {
+		final int stripe = (int) Hashing.mix(Thread.currentThread().getId()) & mask;
+		final Buffer buffer = buffers.get(stripe);
+		final int index = buffer.next.getAndIncrement();
+		if (index < buffer.values.length) {
+			return buffer.values[index];
+		}
+		return refill(stripe, buffer);
+	}
+
+	@Override
+	public int nextInt() {
+		return (int) (nextLong() >>> 32);
+	}
+
+	@Override
+	public byte[] nextBytes(final int length) {
+		final byte[] bytes = new byte[length];
+		long random = 0;
+		for (int i = 0; i < length; i++) {
+			if ((i & 7) == 0) {
+				random = nextLong();
+			}
+			bytes[i] = (byte) random;
+			random >>>= Byte.SIZE;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Replaces an empty buffer with a new one, and returns its first value.
+	 */
+	private long refill(final int stripe, final Buffer empty) {
+		final byte[] bytes = new byte[size * Long.BYTES];
+		source.nextBytes(bytes);
+		final long[] values = new long[size];
+		for (int i = 0; i < size; i++) {
+			values[i] = Platform.getLong(bytes, i * Long.BYTES);
+		}
+		// the first value is taken here; if another thread refilled the stripe
+		// first, its buffer is kept and the rest of this one is dropped
+		buffers.compareAndSet(stripe, empty, new Buffer(values, 1));
+		return values[0];
+	}
+
+	private static final class Buffer {
+
+		private final long[] values;
+		private final AtomicInteger next;
+
+		private Buffer(final long[] values, final int next) {
+			this.values = values;
+			this.next = new AtomicInteger(next);
+		}
+	}
+}
@@ -24,18 +24,29 @@
 
 package io.hypersistence.tsid;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.Clock;
 import java.time.Instant;
+import java.util.OptionalLong;
 import java.util.Random;
+import java.util.Spliterator;
 import java.util.SplittableRandom;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * A value object that represents a Time-Sorted Unique Identifier (TSID).
@@ -98,7 +109,19 @@ public final class TSID implements Serializable, Comparable<TSID> {
 					'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'j', 'k', //
 					'm', 'n', 'p', 'q', 'r', 's', 't', 'v', 'w', 'x', 'y', 'z' };
 
-	private static final long[] ALPHABET_VALUES = new long[128];
+	// two chars for each 10-bit value
+	static final char[] PAIRS_UPPERCASE = toPairs(ALPHABET_UPPERCASE);
+
+	static final char[] PAIRS_LOWERCASE = toPairs(ALPHABET_LOWERCASE);
+
+	static final byte[] PAIRS_UPPERCASE_BYTES = toAsciiBytes(PAIRS_UPPERCASE);
+
+	static final byte[] PAIRS_LOWERCASE_BYTES = toAsciiBytes(PAIRS_LOWERCASE);
+
+	// an arbitrary value returned by the decoders when the input is invalid
+	private static final long INVALID = 0x8000000000000000L;
+
+	static final long[] ALPHABET_VALUES = new long[128];
 	static {
 		for (int i = 0; i < ALPHABET_VALUES.length; i++) {
 			ALPHABET_VALUES[i] = -1;
@@ -170,6 +193,16 @@ public final class TSID implements Serializable, Comparable<TSID> {
 		ALPHABET_VALUES['L'] = 0x01;
 	}
 
+	// the 10-bit value for each two ASCII chars, or -1 if any of them is invalid
+	private static final short[] PAIR_VALUES = new short[128 * 128];
+	static {
+		for (int i = 0; i < PAIR_VALUES.length; i++) {
+			final long hi = ALPHABET_VALUES[i >>> 7];
+			final long lo = ALPHABET_VALUES[i & 0x7f];
+			PAIR_VALUES[i] = (short) ((hi | lo) < 0 ? -1 : (hi << 5) | lo);
+		}
+	}
+
 	/**
 	 * Creates a new TSID.
 	 * <p>
@@ -206,18 +239,68 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			throw new IllegalArgumentException("Invalid TSID bytes"); // null or wrong length!
 		}
 
-		long number = 0;
+		return new TSID(Platform.getLong(bytes, 0));
+	}
 
-		number |= (bytes[0x0] & 0xffL) << 56;
-		number |= (bytes[0x1] & 0xffL) << 48;
-		number |= (bytes[0x2] & 0xffL) << 40;
-		number |= (bytes[0x3] & 0xffL) << 32;
-		number |= (bytes[0x4] & 0xffL) << 24;
-		number |= (bytes[0x5] & 0xffL) << 16;
-		number |= (bytes[0x6] & 0xffL) << 8;
-		number |= (bytes[0x7] & 0xffL);
+	/**
+	 * Reads a TSID from 8 bytes of a byte array in big-endian order.
+	 * <p>
+	 * It reads the same bytes that {@link #toBytes()} returns, but it doesn't
+	 * require the array to be exactly 8 bytes long.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @return a TSID
+	 * @throws IndexOutOfBoundsException if there aren't 8 bytes from the offset on
+	 */
+	public static TSID readFrom(final byte[] bytes, final int offset) {
+		checkBounds(bytes.length, offset, TSID_BYTES);
+		return new TSID(Platform.getLong(bytes, offset));
+	}
 
-		return new TSID(number);
+	/**
+	 * Reads a TSID from 8 bytes of a byte array in the given byte order.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @param order  the byte order
+	 * @return a TSID
+	 * @throws IndexOutOfBoundsException if there aren't 8 bytes from the offset on
+	 */
+	public static TSID readFrom(final byte[] bytes, final int offset, final ByteOrder order) {
+		checkBounds(bytes.length, offset, TSID_BYTES);
+		if (order == ByteOrder.LITTLE_ENDIAN) {
+			return new TSID(Platform.getLongLittleEndian(bytes, offset));
+		}
+		return new TSID(Platform.getLong(bytes, offset));
+	}
+
+	/**
+	 * Reads a TSID from the current position of a byte buffer.
+	 * <p>
+	 * The byte order of the buffer is used, and the position is incremented by 8.
+	 * 
+	 * @param buffer a byte buffer
+	 * @return a TSID
+	 * @throws java.nio.BufferUnderflowException if there are fewer than 8 bytes
+	 *                                           remaining
+	 */
+	public static TSID readFrom(final ByteBuffer buffer) {
+		return new TSID(buffer.getLong());
+	}
+
+	/**
+	 * Reads a TSID from the given index of a byte buffer.
+	 * <p>
+	 * The byte order of the buffer is used. The position is not changed.
+	 * 
+	 * @param buffer a byte buffer
+	 * @param index  the index of the first byte
+	 * @return a TSID
+	 * @throws IndexOutOfBoundsException if there aren't 8 bytes from the index on
+	 */
+	public static TSID readFrom(final ByteBuffer buffer, final int index) {
+		return new TSID(buffer.getLong(index));
 	}
 
 	/**
@@ -234,28 +317,107 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
 	 */
 	public static TSID from(final String string) {
+		return from((CharSequence) string);
+	}
 
-		final char[] chars = toCharArray(string);
-
-		long number = 0;
+	/**
+	 * Converts a canonical char sequence into a TSID.
+	 * <p>
+	 * It works like {@link TSID#from(String)}, but it accepts any char sequence,
+	 * for example, a {@link StringBuilder} or a {@link java.nio.CharBuffer}.
+	 * 
+	 * @param string a canonical char sequence
+	 * @return a TSID
+	 * @throws IllegalArgumentException if the input char sequence is invalid
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public static TSID from(final CharSequence string) {
+		final long number = decode(string, INVALID);
+		if (number == INVALID && decode(string, ~INVALID) == ~INVALID) {
+			throw new IllegalArgumentException(String.format("Invalid TSID string: \"%s\"", string));
+		}
+		return new TSID(number);
+	}
 
-		number |= ALPHABET_VALUES[chars[0x00]] << 60;
-		number |= ALPHABET_VALUES[chars[0x01]] << 55;
-		number |= ALPHABET_VALUES[chars[0x02]] << 50;
-		number |= ALPHABET_VALUES[chars[0x03]] << 45;
-		number |= ALPHABET_VALUES[chars[0x04]] << 40;
-		number |= ALPHABET_VALUES[chars[0x05]] << 35;
-		number |= ALPHABET_VALUES[chars[0x06]] << 30;
-		number |= ALPHABET_VALUES[chars[0x07]] << 25;
-		number |= ALPHABET_VALUES[chars[0x08]] << 20;
-		number |= ALPHABET_VALUES[chars[0x09]] << 15;
-		number |= ALPHABET_VALUES[chars[0x0a]] << 10;
-		number |= ALPHABET_VALUES[chars[0x0b]] << 5;
-		number |= ALPHABET_VALUES[chars[0x0c]];
+	/**
+	 * Converts a canonical string encoded in US-ASCII into a TSID.
+	 * <p>
+	 * The 13 characters are read from the given offset on.
+	 * 
+	 * @param bytes  a byte array containing US-ASCII characters
+	 * @param offset the position of the first character
+	 * @return a TSID
+	 * @throws IllegalArgumentException if the input characters are invalid
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public static TSID fromAscii(final byte[] bytes, final int offset) {
+		final long number = decode(bytes, offset, INVALID);
+		if (number == INVALID && decode(bytes, offset, ~INVALID) == ~INVALID) {
+			throw new IllegalArgumentException(
+					String.format("Invalid TSID string at offset %s: \"%s\"", offset, toAsciiString(bytes, offset)));
+		}
+		return new TSID(number);
+	}
 
+	/**
+	 * Converts a canonical string encoded in US-ASCII into a TSID.
+	 * <p>
+	 * The 13 characters are read from the given index on. The buffer position is
+	 * not changed.
+	 * 
+	 * @param buffer a byte buffer containing US-ASCII characters
+	 * @param index  the index of the first character
+	 * @return a TSID
+	 * @throws IllegalArgumentException if the input characters are invalid
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public static TSID fromAscii(final ByteBuffer buffer, final int index) {
+		final long number = decode(buffer, index, INVALID);
+		if (number == INVALID && decode(buffer, index, ~INVALID) == ~INVALID) {
+			throw new IllegalArgumentException(String.format("Invalid TSID string at index %s", index));
+		}
 		return new TSID(number);
 	}
 
+	/**
+	 * Converts a canonical char sequence into a number without throwing
+	 * exceptions.
+	 * <p>
+	 * It is meant for untrusted input, where creating an exception for each
+	 * invalid value would be too expensive.
+	 * 
+	 * @param string a canonical char sequence
+	 * @return the TSID number, or an empty optional if the input is invalid
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public static OptionalLong tryParse(final CharSequence string) {
+		final long number = decode(string, INVALID);
+		if (number == INVALID && decode(string, ~INVALID) == ~INVALID) {
+			return OptionalLong.empty();
+		}
+		return OptionalLong.of(number);
+	}
+
+	/**
+	 * Converts a canonical char sequence into a number without throwing
+	 * exceptions nor allocating objects.
+	 * <p>
+	 * It is meant for untrusted input, where creating an exception for each
+	 * invalid value would be too expensive.
+	 * <p>
+	 * The default value is returned if the input is invalid. Since every 64-bit
+	 * number is a valid TSID, the caller should choose a default value that is
+	 * never expected, for example {@code 0}.
+	 * 
+	 * @param string       a canonical char sequence
+	 * @param defaultValue the value to return if the input is invalid
+	 * @return the TSID number, or the default value if the input is invalid
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public static long tryParse(final CharSequence string, final long defaultValue) {
+		return decode(string, defaultValue);
+	}
+
 	/**
 	 * Converts the TSID into a number.
 	 * <p>
@@ -275,17 +437,73 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	public byte[] toBytes() {
 
 		final byte[] bytes = new byte[TSID_BYTES];
+		Platform.putLong(bytes, 0, number);
+		return bytes;
+	}
 
-		bytes[0x0] = (byte) (number >>> 56);
-		bytes[0x1] = (byte) (number >>> 48);
-		bytes[0x2] = (byte) (number >>> 40);
-		bytes[0x3] = (byte) (number >>> 32);
-		bytes[0x4] = (byte) (number >>> 24);
-		bytes[0x5] = (byte) (number >>> 16);
-		bytes[0x6] = (byte) (number >>> 8);
-		bytes[0x7] = (byte) (number);
+	/**
+	 * Writes the TSID into 8 bytes of a byte array in big-endian order.
+	 * <p>
+	 * It writes the same bytes that {@link #toBytes()} returns, without
+	 * allocating an array.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @return the position right after the last byte
+	 * @throws IndexOutOfBoundsException if there isn't room for 8 bytes
+	 */
+	public int putTo(final byte[] bytes, final int offset) {
+		checkBounds(bytes.length, offset, TSID_BYTES);
+		Platform.putLong(bytes, offset, this.number);
+		return offset + TSID_BYTES;
+	}
 
-		return bytes;
+	/**
+	 * Writes the TSID into 8 bytes of a byte array in the given byte order.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first byte
+	 * @param order  the byte order
+	 * @return the position right after the last byte
+	 * @throws IndexOutOfBoundsException if there isn't room for 8 bytes
+	 */
+	public int putTo(final byte[] bytes, final int offset, final ByteOrder order) {
+		checkBounds(bytes.length, offset, TSID_BYTES);
+		if (order == ByteOrder.LITTLE_ENDIAN) {
+			Platform.putLongLittleEndian(bytes, offset, this.number);
+		} else {
+			Platform.putLong(bytes, offset, this.number);
+		}
+		return offset + TSID_BYTES;
+	}
+
+	/**
+	 * Writes the TSID at the current position of a byte buffer.
+	 * <p>
+	 * The byte order of the buffer is used, and the position is incremented by 8.
+	 * 
+	 * @param buffer a byte buffer
+	 * @return the byte buffer
+	 * @throws java.nio.BufferOverflowException if there are fewer than 8 bytes
+	 *                                          remaining
+	 */
+	public ByteBuffer putTo(final ByteBuffer buffer) {
+		return buffer.putLong(this.number);
+	}
+
+	/**
+	 * Writes the TSID at the given index of a byte buffer.
+	 * <p>
+	 * The byte order of the buffer is used. The position is not changed.
+	 * 
+	 * @param buffer a byte buffer
+	 * @param index  the index of the first byte
+	 * @return the index right after the last byte
+	 * @throws IndexOutOfBoundsException if there isn't room for 8 bytes
+	 */
+	public int putTo(final ByteBuffer buffer, final int index) {
+		buffer.putLong(index, this.number);
+		return index + TSID_BYTES;
 	}
 
 	/**
@@ -329,7 +547,7 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 */
 	@Override
 	public String toString() {
-		return toString(ALPHABET_UPPERCASE);
+		return toString(PAIRS_UPPERCASE);
 	}
 
 	/**
@@ -344,7 +562,161 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
 	 */
 	public String toLowerCase() {
-		return toString(ALPHABET_LOWERCASE);
+		return toString(PAIRS_LOWERCASE);
+	}
+
+	/**
+	 * Appends the canonical string in upper case to a {@link StringBuilder}.
+	 * <p>
+	 * It is equivalent to {@code builder.append(tsid.toString())}, but it doesn't
+	 * create an intermediate string.
+	 * 
+	 * @param builder a string builder
+	 * @return the same string builder
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public StringBuilder appendTo(final StringBuilder builder) {
+		return appendTo(builder, PAIRS_UPPERCASE);
+	}
+
+	/**
+	 * Appends the canonical string in lower case to a {@link StringBuilder}.
+	 * <p>
+	 * It is equivalent to {@code builder.append(tsid.toLowerCase())}, but it doesn't
+	 * create an intermediate string.
+	 * 
+	 * @param builder a string builder
+	 * @return the same string builder
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public StringBuilder appendLowerCaseTo(final StringBuilder builder) {
+		return appendTo(builder, PAIRS_LOWERCASE);
+	}
+
+	/**
+	 * Appends the canonical string in upper case to an {@link Appendable}.
+	 * <p>
+	 * It is equivalent to {@code appendable.append(tsid.toString())}, but it
+	 * doesn't create an intermediate string.
+	 * 
+	 * @param <A>        the appendable type
+	 * @param appendable an appendable, for example, a {@link java.io.Writer}
+	 * @return the same appendable
+	 * @throws IOException if the appendable fails
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public <A extends Appendable> A appendTo(final A appendable) throws IOException {
+		return appendTo(appendable, PAIRS_UPPERCASE);
+	}
+
+	/**
+	 * Appends the canonical string in lower case to an {@link Appendable}.
+	 * <p>
+	 * It is equivalent to {@code appendable.append(tsid.toLowerCase())}, but it
+	 * doesn't create an intermediate string.
+	 * 
+	 * @param <A>        the appendable type
+	 * @param appendable an appendable, for example, a {@link java.io.Writer}
+	 * @return the same appendable
+	 * @throws IOException if the appendable fails
+	 * @see <a href="https://www.crockford.com/base32.html">Crockford's Base 32</a>
+	 */
+	public <A extends Appendable> A appendLowerCaseTo(final A appendable) throws IOException {
+		return appendTo(appendable, PAIRS_LOWERCASE);
+	}
+
+	/**
+	 * Writes the canonical string in upper case into a char array.
+	 * <p>
+	 * The 13 characters are written from the given offset on.
+	 * 
+	 * @param chars  a char array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeTo(final char[] chars, final int offset) {
+		checkBounds(chars.length, offset, TSID_CHARS);
+		encode(this.number, PAIRS_UPPERCASE, chars, offset);
+		return offset + TSID_CHARS;
+	}
+
+	/**
+	 * Writes the canonical string in lower case into a char array.
+	 * <p>
+	 * The 13 characters are written from the given offset on.
+	 * 
+	 * @param chars  a char array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeLowerCaseTo(final char[] chars, final int offset) {
+		checkBounds(chars.length, offset, TSID_CHARS);
+		encode(this.number, PAIRS_LOWERCASE, chars, offset);
+		return offset + TSID_CHARS;
+	}
+
+	/**
+	 * Writes the canonical string in upper case into a byte array as US-ASCII.
+	 * <p>
+	 * The 13 characters are written from the given offset on.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeTo(final byte[] bytes, final int offset) {
+		checkBounds(bytes.length, offset, TSID_CHARS);
+		encode(this.number, PAIRS_UPPERCASE_BYTES, bytes, offset);
+		return offset + TSID_CHARS;
+	}
+
+	/**
+	 * Writes the canonical string in lower case into a byte array as US-ASCII.
+	 * <p>
+	 * The 13 characters are written from the given offset on.
+	 * 
+	 * @param bytes  a byte array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeLowerCaseTo(final byte[] bytes, final int offset) {
+		checkBounds(bytes.length, offset, TSID_CHARS);
+		encode(this.number, PAIRS_LOWERCASE_BYTES, bytes, offset);
+		return offset + TSID_CHARS;
+	}
+
+	/**
+	 * Writes the canonical string in upper case into a byte buffer as US-ASCII.
+	 * <p>
+	 * The 13 characters are written from the given index on. The buffer position
+	 * is not changed.
+	 * 
+	 * @param buffer a byte buffer
+	 * @param index  the index of the first character
+	 * @return the index right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeTo(final ByteBuffer buffer, final int index) {
+		return writeTo(buffer, index, PAIRS_UPPERCASE_BYTES);
+	}
+
+	/**
+	 * Writes the canonical string in lower case into a byte buffer as US-ASCII.
+	 * <p>
+	 * The 13 characters are written from the given index on. The buffer position
+	 * is not changed.
+	 * 
+	 * @param buffer a byte buffer
+	 * @param index  the index of the first character
+	 * @return the index right after the last character
+	 * @throws IndexOutOfBoundsException if there isn't room for 13 characters
+	 */
+	public int writeLowerCaseTo(final ByteBuffer buffer, final int index) {
+		return writeTo(buffer, index, PAIRS_LOWERCASE_BYTES);
 	}
 
 	/**
@@ -427,7 +799,47 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 * @return true if valid
 	 */
 	public static boolean isValid(final String string) {
-		return string != null && isValidCharArray(string.toCharArray());
+		return isValid((CharSequence) string);
+	}
+
+	/**
+	 * Checks if the input char sequence is valid.
+	 * <p>
+	 * It works like {@link TSID#isValid(String)}, but it accepts any char
+	 * sequence.
+	 * 
+	 * @param string a char sequence
+	 * @return true if valid
+	 */
+	public static boolean isValid(final CharSequence string) {
+		return decode(string, INVALID) != INVALID || decode(string, ~INVALID) != ~INVALID;
+	}
+
+	/**
+	 * Checks if the input US-ASCII characters are valid.
+	 * <p>
+	 * The 13 characters are read from the given offset on.
+	 * 
+	 * @param bytes  a byte array containing US-ASCII characters
+	 * @param offset the position of the first character
+	 * @return true if valid
+	 */
+	public static boolean isValidAscii(final byte[] bytes, final int offset) {
+		return decode(bytes, offset, INVALID) != INVALID || decode(bytes, offset, ~INVALID) != ~INVALID;
+	}
+
+	/**
+	 * Checks if the input US-ASCII characters are valid.
+	 * <p>
+	 * The 13 characters are read from the given index on. The buffer position is
+	 * not changed.
+	 * 
+	 * @param buffer a byte buffer containing US-ASCII characters
+	 * @param index  the index of the first character
+	 * @return true if valid
+	 */
+	public static boolean isValidAscii(final ByteBuffer buffer, final int index) {
+		return decode(buffer, index, INVALID) != INVALID || decode(buffer, index, ~INVALID) != ~INVALID;
 	}
 
 	/**
@@ -463,19 +875,7 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 */
 	@Override
 	public int compareTo(TSID that) {
-
-		// used to compare as UNSIGNED longs
-		final long min = 0x8000000000000000L;
-
-		final long a = this.number + min;
-		final long b = that.number + min;
-
-		if (a > b)
-			return 1;
-		else if (a < b)
-			return -1;
-
-		return 0;
+		return Integer.signum(Platform.compareUnsigned(this.number, that.number));
 	}
 
 	/**
@@ -654,110 +1054,353 @@ public final class TSID implements Serializable, Comparable<TSID> {
 		throw new IllegalArgumentException(String.format("Invalid formatted string: \"%s\"", formatted));
 	}
 
-	String toString(final char[] alphabet) {
-
+	String toString(final char[] pairs) {
 		final char[] chars = new char[TSID_CHARS];
+		encode(this.number, pairs, chars, 0);
+		return new String(chars);
+	}
 
-		chars[0x00] = alphabet[(int) ((number >>> 60) & 0b11111)];
-		chars[0x01] = alphabet[(int) ((number >>> 55) & 0b11111)];
-		chars[0x02] = alphabet[(int) ((number >>> 50) & 0b11111)];
-		chars[0x03] = alphabet[(int) ((number >>> 45) & 0b11111)];
-		chars[0x04] = alphabet[(int) ((number >>> 40) & 0b11111)];
-		chars[0x05] = alphabet[(int) ((number >>> 35) & 0b11111)];
-		chars[0x06] = alphabet[(int) ((number >>> 30) & 0b11111)];
-		chars[0x07] = alphabet[(int) ((number >>> 25) & 0b11111)];
-		chars[0x08] = alphabet[(int) ((number >>> 20) & 0b11111)];
-		chars[0x09] = alphabet[(int) ((number >>> 15) & 0b11111)];
-		chars[0x0a] = alphabet[(int) ((number >>> 10) & 0b11111)];
-		chars[0x0b] = alphabet[(int) ((number >>> 5) & 0b11111)];
-		chars[0x0c] = alphabet[(int) (number & 0b11111)];
+	StringBuilder appendTo(final StringBuilder builder, final char[] pairs) {
+		builder.ensureCapacity(builder.length() + TSID_CHARS);
+		builder.append(pairs[(int) (number >>> 59) | 1]);
+		for (int shift = 50; shift >= 0; shift -= 10) {
+			final int i = ((int) (number >>> shift) & 0x3ff) << 1;
+			builder.append(pairs[i]).append(pairs[i + 1]);
+		}
+		return builder;
+	}
 
-		return new String(chars);
+	<A extends Appendable> A appendTo(final A appendable, final char[] pairs) throws IOException {
+		if (appendable instanceof StringBuilder) {
+			appendTo((StringBuilder) appendable, pairs);
+			return appendable;
+		}
+		appendable.append(pairs[(int) (number >>> 59) | 1]);
+		for (int shift = 50; shift >= 0; shift -= 10) {
+			final int i = ((int) (number >>> shift) & 0x3ff) << 1;
+			appendable.append(pairs[i]).append(pairs[i + 1]);
+		}
+		return appendable;
 	}
 
-	static char[] toCharArray(final String string) {
-		char[] chars = string == null ? null : string.toCharArray();
-		if (!isValidCharArray(chars)) {
-			throw new IllegalArgumentException(String.format("Invalid TSID string: \"%s\"", string));
+	int writeTo(final ByteBuffer buffer, final int index, final byte[] pairs) {
+		checkBounds(buffer.limit(), index, TSID_CHARS);
+		if (buffer.hasArray()) {
+			encode(this.number, pairs, buffer.array(), buffer.arrayOffset() + index);
+		} else {
+			buffer.put(index, pairs[(int) (number >>> 59) | 1]);
+			for (int j = index + 1, shift = 50; shift >= 0; j += 2, shift -= 10) {
+				final int i = ((int) (number >>> shift) & 0x3ff) << 1;
+				buffer.put(j, pairs[i]);
+				buffer.put(j + 1, pairs[i + 1]);
+			}
 		}
-		return chars;
+		return index + TSID_CHARS;
 	}
 
 	/**
-	 * Checks if the string is a valid TSID.
+	 * Encodes a number into a canonical string using two chars per lookup.
+	 * <p>
+	 * The first char holds only 4 bits, so it is the second char of a pair whose
+	 * first char is always zero. The other 12 chars are encoded from six 10-bit
+	 * groups.
 	 * 
-	 * A valid TSID string is a sequence of 13 characters from Crockford's base 32
-	 * alphabet.
+	 * @param number a number
+	 * @param pairs  a table with two chars for each 10-bit value
+	 * @param chars  the output array
+	 * @param offset the position of the first char
+	 */
+	static void encode(final long number, final char[] pairs, final char[] chars, final int offset) {
+
+		final int i0 = ((int) (number >>> 50) & 0x3ff) << 1;
+		final int i1 = ((int) (number >>> 40) & 0x3ff) << 1;
+		final int i2 = ((int) (number >>> 30) & 0x3ff) << 1;
+		final int i3 = ((int) (number >>> 20) & 0x3ff) << 1;
+		final int i4 = ((int) (number >>> 10) & 0x3ff) << 1;
+		final int i5 = ((int) number & 0x3ff) << 1;
+
+		chars[offset + 0x00] = pairs[(int) (number >>> 59) | 1];
+		chars[offset + 0x01] = pairs[i0];
+		chars[offset + 0x02] = pairs[i0 + 1];
+		chars[offset + 0x03] = pairs[i1];
+		chars[offset + 0x04] = pairs[i1 + 1];
+		chars[offset + 0x05] = pairs[i2];
+		chars[offset + 0x06] = pairs[i2 + 1];
+		chars[offset + 0x07] = pairs[i3];
+		chars[offset + 0x08] = pairs[i3 + 1];
+		chars[offset + 0x09] = pairs[i4];
+		chars[offset + 0x0a] = pairs[i4 + 1];
+		chars[offset + 0x0b] = pairs[i5];
+		chars[offset + 0x0c] = pairs[i5 + 1];
+	}
+
+	static void encode(final long number, final byte[] pairs, final byte[] bytes, final int offset) {
+
+		final int i0 = ((int) (number >>> 50) & 0x3ff) << 1;
+		final int i1 = ((int) (number >>> 40) & 0x3ff) << 1;
+		final int i2 = ((int) (number >>> 30) & 0x3ff) << 1;
+		final int i3 = ((int) (number >>> 20) & 0x3ff) << 1;
+		final int i4 = ((int) (number >>> 10) & 0x3ff) << 1;
+		final int i5 = ((int) number & 0x3ff) << 1;
+
+		bytes[offset + 0x00] = pairs[(int) (number >>> 59) | 1];
+		bytes[offset + 0x01] = pairs[i0];
+		bytes[offset + 0x02] = pairs[i0 + 1];
+		bytes[offset + 0x03] = pairs[i1];
+		bytes[offset + 0x04] = pairs[i1 + 1];
+		bytes[offset + 0x05] = pairs[i2];
+		bytes[offset + 0x06] = pairs[i2 + 1];
+		bytes[offset + 0x07] = pairs[i3];
+		bytes[offset + 0x08] = pairs[i3 + 1];
+		bytes[offset + 0x09] = pairs[i4];
+		bytes[offset + 0x0a] = pairs[i4 + 1];
+		bytes[offset + 0x0b] = pairs[i5];
+		bytes[offset + 0x0c] = pairs[i5 + 1];
+	}
+
+	/**
+	 * Encodes a number into a canonical string using one char per lookup.
+	 * <p>
+	 * It is the reference implementation for {@link #encode(long, char[], char[], int)}.
 	 * 
-	 * The first character of the input string must be between 0 and F.
+	 * @param number   a number
+	 * @param alphabet the Crockford's base 32 alphabet
+	 * @param chars    the output array
+	 * @param offset   the position of the first char
+	 */
+	static void encodeReference(final long number, final char[] alphabet, final char[] chars, final int offset) {
+		chars[offset + 0x00] = alphabet[(int) ((number >>> 60) & 0b11111)];
+		chars[offset + 0x01] = alphabet[(int) ((number >>> 55) & 0b11111)];
+		chars[offset + 0x02] = alphabet[(int) ((number >>> 50) & 0b11111)];
+		chars[offset + 0x03] = alphabet[(int) ((number >>> 45) & 0b11111)];
+		chars[offset + 0x04] = alphabet[(int) ((number >>> 40) & 0b11111)];
+		chars[offset + 0x05] = alphabet[(int) ((number >>> 35) & 0b11111)];
+		chars[offset + 0x06] = alphabet[(int) ((number >>> 30) & 0b11111)];
+		chars[offset + 0x07] = alphabet[(int) ((number >>> 25) & 0b11111)];
+		chars[offset + 0x08] = alphabet[(int) ((number >>> 20) & 0b11111)];
+		chars[offset + 0x09] = alphabet[(int) ((number >>> 15) & 0b11111)];
+		chars[offset + 0x0a] = alphabet[(int) ((number >>> 10) & 0b11111)];
+		chars[offset + 0x0b] = alphabet[(int) ((number >>> 5) & 0b11111)];
+		chars[offset + 0x0c] = alphabet[(int) (number & 0b11111)];
+	}
+
+	/**
+	 * Decodes a canonical string in a single pass.
+	 * <p>
+	 * The first char is decoded alone and the other 12 chars are decoded two at
+	 * a time. The values of all lookups are OR-ed together, so that any invalid
+	 * char makes the sign bit of the result set. The extra bit of the first char
+	 * is shifted into the sign bit as well.
+	 * <p>
+	 * A valid input always decodes to the same number, whatever the value of
+	 * {@code invalid}. So an input is invalid only if two calls with different
+	 * {@code invalid} values return them both.
 	 * 
-	 * @param chars a char array
-	 * @return boolean true if valid
+	 * @param string  a char sequence
+	 * @param invalid the value to return if the input is invalid
+	 * @return a number
 	 */
-	static boolean isValidCharArray(final char[] chars) {
+	static long decode(final CharSequence string, final long invalid) {
 
-		if (chars == null || chars.length != TSID_CHARS) {
-			return false; // null or wrong size!
+		if (string == null || string.length() != TSID_CHARS) {
+			return invalid; // null or wrong size!
 		}
 
-		// The extra bit added by base-32 encoding must be zero
-		// As a consequence, the 1st char of the input string must be between 0 and F.
-		if ((ALPHABET_VALUES[chars[0]] & 0b10000) != 0) {
-			return false; // overflow!
+		final long first = value(string.charAt(0));
+		long errors = first | (first << 59); // the extra bit must be zero
+		long number = first;
+
+		for (int i = 1; i < TSID_CHARS; i += 2) {
+			final long value = value(string.charAt(i), string.charAt(i + 1));
+			errors |= value;
+			number = (number << 10) | value;
 		}
 
-		for (int i = 0; i < chars.length; i++) {
-			if (ALPHABET_VALUES[chars[i]] == -1) {
-				return false; // invalid character!
-			}
+		return errors < 0 ? invalid : number;
+	}
+
+	static long decode(final byte[] bytes, final int offset, final long invalid) {
+
+		if (bytes == null || offset < 0 || offset > bytes.length - TSID_CHARS) {
+			return invalid; // null or out of bounds!
+		}
+
+		final long first = value(bytes[offset]);
+		long errors = first | (first << 59); // the extra bit must be zero
+		long number = first;
+
+		for (int i = offset + 1; i < offset + TSID_CHARS; i += 2) {
+			final long value = value(bytes[i], bytes[i + 1]);
+			errors |= value;
+			number = (number << 10) | value;
 		}
-		return true; // It seems to be OK.
+
+		return errors < 0 ? invalid : number;
+	}
+
+	static long decode(final ByteBuffer buffer, final int index, final long invalid) {
+
+		if (buffer == null || index < 0 || index > buffer.limit() - TSID_CHARS) {
+			return invalid; // null or out of bounds!
+		}
+
+		if (buffer.hasArray()) {
+			return decode(buffer.array(), buffer.arrayOffset() + index, invalid);
+		}
+
+		final long first = value(buffer.get(index));
+		long errors = first | (first << 59); // the extra bit must be zero
+		long number = first;
+
+		for (int i = index + 1; i < index + TSID_CHARS; i += 2) {
+			final long value = value(buffer.get(i), buffer.get(i + 1));
+			errors |= value;
+			number = (number << 10) | value;
+		}
+
+		return errors < 0 ? invalid : number;
+	}
+
+	/**
+	 * Decodes a canonical string using one lookup per char.
+	 * <p>
+	 * It is the reference implementation for {@link #decode(CharSequence, long)}.
+	 * 
+	 * @param string  a char sequence
+	 * @param invalid the value to return if the input is invalid
+	 * @return a number
+	 */
+	static long decodeReference(final CharSequence string, final long invalid) {
+
+		if (string == null || string.length() != TSID_CHARS) {
+			return invalid; // null or wrong size!
+		}
+
+		final long first = value(string.charAt(0));
+		long errors = first | (first << 59); // the extra bit must be zero
+		long number = first;
+
+		for (int i = 1; i < TSID_CHARS; i++) {
+			final long value = value(string.charAt(i));
+			errors |= value;
+			number = (number << 5) | value;
+		}
+
+		return errors < 0 ? invalid : number;
+	}
+
+	/**
+	 * Returns the value of a char, which is negative if the char is invalid.
+	 */
+	private static long value(final char chr) {
+		// chars out of the ASCII range turn the value negative
+		return ALPHABET_VALUES[chr & 0x7f] | -(chr >>> 7);
+	}
+
+	/**
+	 * Returns the value of two chars, which is negative if any char is invalid.
+	 */
+	private static long value(final char hi, final char lo) {
+		// chars out of the ASCII range turn the value negative
+		return PAIR_VALUES[((hi & 0x7f) << 7) | (lo & 0x7f)] | -((hi | lo) >>> 7);
+	}
+
+	/**
+	 * Returns the value of a US-ASCII byte, which is negative if the byte is
+	 * invalid.
+	 */
+	private static long value(final byte chr) {
+		// bytes out of the ASCII range are negative
+		return ALPHABET_VALUES[chr & 0x7f] | (chr >> 7);
+	}
+
+	/**
+	 * Returns the value of two US-ASCII bytes, which is negative if any byte is
+	 * invalid.
+	 */
+	private static long value(final byte hi, final byte lo) {
+		// bytes out of the ASCII range are negative
+		return PAIR_VALUES[((hi & 0x7f) << 7) | (lo & 0x7f)] | ((hi | lo) >> 7);
+	}
+
+	private static String toAsciiString(final byte[] bytes, final int offset) {
+		if (bytes == null || offset < 0 || offset > bytes.length) {
+			return null;
+		}
+		return new String(bytes, offset, Math.min(TSID_CHARS, bytes.length - offset), StandardCharsets.US_ASCII);
+	}
+
+	static void checkBounds(final int length, final int offset, final int count) {
+		if (offset < 0 || offset > length - count) {
+			throw new IndexOutOfBoundsException(
+					String.format("Invalid offset: %s (length: %s, required: %s)", offset, length, count));
+		}
+	}
+
+	private static char[] toPairs(final char[] alphabet) {
+		final char[] pairs = new char[1024 * 2];
+		for (int i = 0; i < 1024; i++) {
+			pairs[(i << 1)] = alphabet[i >>> 5];
+			pairs[(i << 1) + 1] = alphabet[i & 0b11111];
+		}
+		return pairs;
+	}
+
+	private static byte[] toAsciiBytes(final char[] alphabet) {
+		final byte[] bytes = new byte[alphabet.length];
+		for (int i = 0; i < alphabet.length; i++) {
+			bytes[i] = (byte) alphabet[i];
+		}
+		return bytes;
 	}
 
 	static class BaseN {
 
-		private static final BigInteger MAX = BigInteger.valueOf(2).pow(64);
 		private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz"; // base-62
+		private static final int[] LENGTHS = new int[ALPHABET.length() + 1];
+
+		static {
+			for (int base = 2; base < LENGTHS.length; base++) {
+				LENGTHS[base] = (int) Math.ceil(Long.SIZE / (Math.log(base) / Math.log(2)));
+			}
+		}
 
 		static String encode(final TSID tsid, final int base) {
-			BigInteger x = new BigInteger(1, tsid.toBytes());
-			final BigInteger radix = BigInteger.valueOf(base);
-			final int length = (int) Math.ceil(Long.SIZE / (Math.log(base) / Math.log(2)));
-			int b = length; // buffer index
+			final int length = LENGTHS[base];
+			long x = tsid.number;
 			char[] buffer = new char[length];
-			while (x.compareTo(BigInteger.ZERO) > 0) {
-				BigInteger[] result = x.divideAndRemainder(radix);
-				buffer[--b] = ALPHABET.charAt(result[1].intValue());
-				x = result[0];
-			}
-			while (b > 0) {
-				buffer[--b] = '0';
+			for (int b = length - 1; b >= 0; b--) {
+				final long quotient = Platform.divideUnsigned(x, base);
+				buffer[b] = ALPHABET.charAt((int) (x - quotient * base));
+				x = quotient;
 			}
 			return new String(buffer);
 		}
 
 		static TSID decode(final String string, final int base) {
-			BigInteger x = BigInteger.ZERO;
-			final BigInteger radix = BigInteger.valueOf(base);
-			final int length = (int) Math.ceil(Long.SIZE / (Math.log(base) / Math.log(2)));
+			final int length = LENGTHS[base];
 			if (string == null) {
 				throw new IllegalArgumentException(String.format("Invalid base-%d string: null", base));
 			}
 			if (string.length() != length) {
 				throw new IllegalArgumentException(String.format("Invalid base-%d length: %s", base, string.length()));
 			}
+			long x = 0;
 			for (int i = 0; i < string.length(); i++) {
 				final long plus = (int) ALPHABET.indexOf(string.charAt(i));
 				if (plus < 0 || plus >= base) {
 					throw new IllegalArgumentException(
 							String.format("Invalid base-%d character: %s", base, string.charAt(i)));
 				}
-				x = x.multiply(radix).add(BigInteger.valueOf(plus));
-			}
-			if (x.compareTo(MAX) > 0) {
-				throw new IllegalArgumentException(String.format("Invalid base-%d value (overflow): %s", base, x));
+				final long product = x * base;
+				final long sum = product + plus;
+				// the high word of the product or the carry of the sum mean overflow
+				if (Platform.multiplyHighUnsigned(x, base) != 0 || Platform.compareUnsigned(sum, product) < 0) {
+					throw new IllegalArgumentException(String.format("Invalid base-%d value (overflow): %s", base, string));
+				}
+				x = sum;
 			}
-			return new TSID(x.longValue());
+			return new TSID(x);
 		}
 	}
 
@@ -769,7 +1412,14 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	 * A factory that actually generates Time-Sorted Unique Identifiers (TSID).
 	 * <p>
 	 * You can use this class to generate a Tsid or to make some customizations,
-	 * for example changing the default {@link SecureRandom} random generator to a faster pseudo-random generator.
+	 * for example changing the default random generator to a {@link SecureRandom}
+	 * or to a faster pseudo-random generator.
+	 * <p>
+	 * By default, all factories share one random generator that takes its values
+	 * in bulk from a single {@link SecureRandom}, instead of creating a
+	 * {@link SecureRandom} each. Its values are cryptographically secure. A
+	 * faster generator that is not can be chosen with
+	 * {@link Builder#withFastRandom()}.
 	 * <p>
 	 * If a system property "tsidcreator.node" or environment variable
 	 * "TSID_NODE" is defined, its value is utilized as node identifier. One
@@ -793,6 +1443,10 @@ public final class TSID implements Serializable, Comparable<TSID> {
 	public static final class Factory {
 
 		private static final ReentrantLock LOCK = new ReentrantLock();
+		private static final int LOCK_SPINS = 64;
+
+		// the maximum number of TSIDs reserved while holding the lock
+		static final int GENERATE_CHUNK = 1024;
 
 		public static final Factory INSTANCE = new Factory();
 
@@ -821,6 +1475,21 @@ public final class TSID implements Serializable, Comparable<TSID> {
 		private final IRandom random;
 		private final int randomBytes;
 
+		// the time and the counter packed as (time << counterBits) | counter, if the
+		// factory is lock-free or a hybrid logical clock
+		private final AtomicLong clockState;
+
+		// the states of the slots of a striped factory, each packed as
+		// (time << slotCounterBits) | counter, and Hashing.PADDING longs apart
+		private final AtomicLongArray slots;
+		private final int slotMask;
+		private final int slotCounterBits;
+		private final int slotCounterMask;
+		// the greatest time of the TSIDs generated by the slots
+		private final AtomicLong slotTime;
+		// the probes of the threads, indexed by a hash of the thread identifier
+		private final AtomicIntegerArray probes;
+
 		static final int NODE_BITS_256 = 8;
 		static final int NODE_BITS_1024 = 10;
 		static final int NODE_BITS_4096 = 12;
@@ -888,11 +1557,38 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			// finally, initialize internal state
 			this.lastTime = clock.millis();
 			try {
-				LOCK.lock();
+				lock();
 				this.counter = getRandomValue();
 			} finally {
 				LOCK.unlock();
 			}
+
+			if (builder.isLockFree()) {
+				final long time = this.lastTime - this.customEpoch;
+				this.clockState = new AtomicLong((time << counterBits) | (this.counter & counterMask));
+			} else {
+				this.clockState = null;
+			}
+
+			// at most half of the counter bits select the slot
+			final int stripes = builder.getStripes();
+			final int slotBits = Math.min(32 - Integer.numberOfLeadingZeros(stripes - 1), counterBits / 2);
+			this.slotMask = (1 << slotBits) - 1;
+			this.slotCounterBits = counterBits - slotBits;
+			this.slotCounterMask = counterMask >>> slotBits;
+			if (slotBits > 0) {
+				final long time = this.lastTime - this.customEpoch;
+				this.slots = new AtomicLongArray((slotMask + 1) * Hashing.PADDING);
+				for (int slot = 0; slot <= slotMask; slot++) {
+					slots.set(slot * Hashing.PADDING, (time << slotCounterBits) | getRandomSlotCounter());
+				}
+				this.slotTime = new AtomicLong(time);
+				this.probes = new AtomicIntegerArray((slotMask + 1) * 4);
+			} else {
+				this.slots = null;
+				this.slotTime = null;
+				this.probes = null;
+			}
 		}
 
 		/**
@@ -966,10 +1662,16 @@ public final class TSID implements Serializable, Comparable<TSID> {
 		 * @return a TSID.
 		 */
 		public TSID generate() {
+			if (slots != null) {
+				return new TSID(reserveSlot(1));
+			}
+			if (clockState != null) {
+				return new TSID(toTsid(reserve(1)));
+			}
 			final long _time;
 			final long _counter;
 			try {
-				LOCK.lock();
+				lock();
 				_time = getTime() << RANDOM_BITS;
 				_counter = (long) this.counter & this.counterMask;
 			} finally {
@@ -979,6 +1681,266 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			return new TSID(_time | _node | _counter);
 		}
 
+		/**
+		 * Generates TSIDs into an array.
+		 * <p>
+		 * It takes the lock once per chunk of up to 1024 TSIDs, instead of once per
+		 * TSID. The TSIDs of a chunk have consecutive counter values, so they are
+		 * unique and in ascending order.
+		 * <p>
+		 * As with {@link #generate()}, when the counter overflows, the time moves
+		 * ahead of the clock by one millisecond.
+		 *
+		 * @param tsids  an array
+		 * @param offset the index of the first TSID
+		 * @param count  the number of TSIDs
+		 * @throws IndexOutOfBoundsException if the range is out of bounds
+		 */
+		public void generate(final long[] tsids, final int offset, final int count) {
+			if (count < 0) {
+				throw new IndexOutOfBoundsException(String.format("Invalid count: %s", count));
+			}
+			checkBounds(tsids.length, offset, count);
+			for (int i = 0; i < count; i += GENERATE_CHUNK) {
+				final int chunk = Math.min(count - i, GENERATE_CHUNK);
+				generateChunk(tsids, offset + i, chunk);
+			}
+		}
+
+		/**
+		 * Returns an infinite stream of TSIDs.
+		 * <p>
+		 * It is meant to be limited, as in {@code factory.stream().limit(n)}. It
+		 * reserves TSIDs in chunks, so a parallel stream takes the lock once per
+		 * chunk. The TSIDs of a chunk are in ascending order, but the stream is
+		 * unordered: chunks of parallel threads are interleaved.
+		 *
+		 * @return a stream of TSIDs
+		 */
+		public LongStream stream() {
+			return StreamSupport.longStream(spliterator(), false);
+		}
+
+		/**
+		 * Returns an infinite spliterator of TSIDs.
+		 * <p>
+		 * Each split reserves its own chunks of TSIDs.
+		 *
+		 * @return a spliterator of TSIDs
+		 * @see #stream()
+		 */
+		public Spliterator.OfLong spliterator() {
+			return new GenerateSpliterator(this, Long.MAX_VALUE);
+		}
+
+		/**
+		 * Makes the TSIDs generated from now on greater than a TSID received from
+		 * another node.
+		 * <p>
+		 * If the TSID is ahead of the clock, for example because of clock skew
+		 * between nodes, the time of the factory is moved past it. Otherwise nothing
+		 * changes. This keeps the TSIDs of causally related events in order, as a
+		 * hybrid logical clock does.
+		 * <p>
+		 * The TSID must have the same epoch as the factory.
+		 *
+		 * @param tsid a TSID received from another node
+		 * @see Builder#withHybridLogicalClock()
+		 */
+		public void observe(final long tsid) {
+			final long time = tsid >>> RANDOM_BITS;
+			if (slots != null) {
+				final long floor = (time << slotCounterBits) | slotCounterMask;
+				for (int slot = 0; slot <= slotMask; slot++) {
+					slots.accumulateAndGet(slot * Hashing.PADDING, floor,
+							(a, b) -> Platform.compareUnsigned(a, b) >= 0 ? a : b);
+				}
+				return;
+			}
+			if (clockState != null) {
+				// the counter at its maximum, so that the next TSID has the next time
+				final long floor = (time << counterBits) | counterMask;
+				clockState.accumulateAndGet(floor, (a, b) -> Platform.compareUnsigned(a, b) >= 0 ? a : b);
+				return;
+			}
+			try {
+				lock();
+				if (time + this.customEpoch >= this.lastTime) {
+					this.lastTime = time + this.customEpoch;
+					this.counter = this.counterMask;
+				}
+			} finally {
+				LOCK.unlock();
+			}
+		}
+
+		/**
+		 * Makes the TSIDs generated from now on greater than a TSID received from
+		 * another node.
+		 *
+		 * @param tsid a TSID received from another node
+		 * @see #observe(long)
+		 */
+		public void receive(final TSID tsid) {
+			observe(tsid.toLong());
+		}
+
+		private void generateChunk(final long[] tsids, final int offset, final int count) {
+			if (slots != null) {
+				final long first = reserveSlot(count);
+				final long state = ((first >>> RANDOM_BITS) << slotCounterBits) | (first & slotCounterMask);
+				final long prefix = first & RANDOM_MASK & ~slotCounterMask;
+				for (int i = 0; i < count; i++) {
+					final long next = state + i;
+					tsids[offset + i] = ((next >>> slotCounterBits) << RANDOM_BITS) | prefix | (next & slotCounterMask);
+				}
+				return;
+			}
+			if (clockState != null) {
+				final long first = reserve(count);
+				for (int i = 0; i < count; i++) {
+					tsids[offset + i] = toTsid(first + i);
+				}
+				return;
+			}
+			final long _time;
+			final long _counter;
+			try {
+				lock();
+				_time = getTime();
+				_counter = (long) this.counter & this.counterMask;
+				// move the state as if generate() had been called for the whole chunk
+				final long last = _counter + count - 1;
+				this.counter = (int) (last & this.counterMask);
+				this.lastTime += last >>> this.counterBits;
+			} finally {
+				LOCK.unlock();
+			}
+			final long _node = (long) this.node << this.counterBits;
+			for (int i = 0; i < count; i++) {
+				final long sequence = _counter + i;
+				final long time = _time + (sequence >>> this.counterBits);
+				tsids[offset + i] = (time << RANDOM_BITS) | _node | (sequence & this.counterMask);
+			}
+		}
+
+		/**
+		 * Reserves a number of consecutive states of a lock-free factory.
+		 * <p>
+		 * If the clock is ahead of the last state, the counter is reset to a random
+		 * value. Otherwise the counter is incremented, and its overflow carries into
+		 * the time.
+		 * <p>
+		 * A thread that loses the compare-and-set spins for a moment before it
+		 * retries, and never parks.
+		 *
+		 * @return the first state
+		 */
+		private long reserve(final int count) {
+			while (true) {
+				final long state = clockState.get();
+				final long time = clock.millis() - customEpoch;
+				final long first;
+				if (time > state >>> counterBits) {
+					first = (time << counterBits) | (getRandomValue() & counterMask);
+				} else {
+					first = state + 1;
+				}
+				if (clockState.compareAndSet(state, first + count - 1)) {
+					return first;
+				}
+				Platform.onSpinWait();
+			}
+		}
+
+		/**
+		 * Reserves a number of consecutive states of a slot of a striped factory,
+		 * without locking.
+		 * <p>
+		 * The slot is picked by the probe of the thread. If another thread changes
+		 * the slot at the same time, the probe is rehashed and kept, so the thread
+		 * moves to another slot for this and the next calls, as {@code LongAdder}
+		 * does with its cells. The probes are kept in a small table indexed by a
+		 * hash of the thread identifier, instead of a {@link ThreadLocal}, so two
+		 * threads may share a probe.
+		 * <p>
+		 * Each slot owns a range of counter values, so the slots never generate the
+		 * same TSID. A slot never goes below the greatest time generated by any
+		 * slot, so a slot that carried into later milliseconds, for example after
+		 * a bulk generation, takes the others along.
+		 *
+		 * @return the first TSID
+		 */
+		private long reserveSlot(final int count) {
+			final long hash = Hashing.mix(Thread.currentThread().getId());
+			final int index = (int) hash & (probes.length() - 1);
+			int probe = probes.get(index);
+			if (probe == 0) {
+				probe = (int) (hash >>> 32) | 1; // xorshift never leaves zero
+			}
+			for (boolean moved = false;; moved = true) {
+				final int slot = probe & slotMask;
+				final long state = slots.get(slot * Hashing.PADDING);
+				final long time = Math.max(clock.millis() - customEpoch, slotTime.get());
+				final long first;
+				if (time > state >>> slotCounterBits) {
+					first = (time << slotCounterBits) | getRandomSlotCounter();
+				} else {
+					first = state + 1;
+				}
+				final long last = first + count - 1;
+				if (slots.compareAndSet(slot * Hashing.PADDING, state, last)) {
+					if (moved) {
+						probes.set(index, probe);
+					}
+					// raised before returning, so that later calls never go back in time
+					if (last >>> slotCounterBits > slotTime.get()) {
+						slotTime.accumulateAndGet(last >>> slotCounterBits, Math::max);
+					}
+					final long _time = (first >>> slotCounterBits) << RANDOM_BITS;
+					final long _node = (long) this.node << this.counterBits;
+					final long _slot = (long) slot << slotCounterBits;
+					return _time | _node | _slot | (first & slotCounterMask);
+				}
+				// xorshift, to move to another slot
+				probe ^= probe << 13;
+				probe ^= probe >>> 17;
+				probe ^= probe << 5;
+			}
+		}
+
+		/**
+		 * Returns a random counter value for a slot, in the lower half of its range,
+		 * so that it rarely overflows into the next millisecond.
+		 *
+		 * @return a number
+		 */
+		private long getRandomSlotCounter() {
+			return getRandomCounter() & (slotCounterMask >>> 1);
+		}
+
+		private long toTsid(final long state) {
+			final long _time = (state >>> counterBits) << RANDOM_BITS;
+			final long _node = (long) this.node << this.counterBits;
+			return _time | _node | (state & counterMask);
+		}
+
+		/**
+		 * Acquires the lock shared by all factories.
+		 * <p>
+		 * The critical section is only a few nanoseconds long, so it spins for a
+		 * little while before parking the thread.
+		 */
+		private static void lock() {
+			for (int i = 0; i < LOCK_SPINS; i++) {
+				if (LOCK.tryLock()) {
+					return;
+				}
+				Platform.onSpinWait();
+			}
+			LOCK.lock();
+		}
+
 		/**
 		 * Returns the current time.
 		 * <p>
@@ -1051,6 +2013,77 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			return (threadId | (randomCounter >> (counterBits - 8)));
 		}
 
+		/**
+		 * An infinite spliterator that generates TSIDs in chunks.
+		 * <p>
+		 * The first chunks are small, so that a short stream doesn't waste many
+		 * counter values.
+		 */
+		private static final class GenerateSpliterator implements Spliterator.OfLong {
+
+			private static final int FIRST_CHUNK = 16;
+
+			private final Factory factory;
+			private long estimate;
+
+			private long[] buffer = new long[0];
+			private int position;
+
+			private GenerateSpliterator(final Factory factory, final long estimate) {
+				this.factory = factory;
+				this.estimate = estimate;
+			}
+
+			@Override
+			public boolean tryAdvance(final LongConsumer action) {
+				if (position == buffer.length) {
+					refill();
+				}
+				action.accept(buffer[position++]);
+				return true;
+			}
+
+			@Override
+			public void forEachRemaining(final LongConsumer action) {
+				while (true) {
+					if (position == buffer.length) {
+						refill();
+					}
+					while (position < buffer.length) {
+						action.accept(buffer[position++]);
+					}
+				}
+			}
+
+			@Override
+			public Spliterator.OfLong trySplit() {
+				// halve the estimate, so that splitting ends, like Stream.generate()
+				if (estimate == 0) {
+					return null;
+				}
+				return new GenerateSpliterator(factory, estimate >>>= 1);
+			}
+
+			@Override
+			public long estimateSize() {
+				return estimate;
+			}
+
+			@Override
+			public int characteristics() {
+				return DISTINCT | NONNULL | IMMUTABLE;
+			}
+
+			private void refill() {
+				final int length = Math.min(GENERATE_CHUNK, Math.max(FIRST_CHUNK, buffer.length * 2));
+				if (length != buffer.length) {
+					buffer = new long[length];
+				}
+				factory.generateChunk(buffer, 0, length);
+				position = 0;
+			}
+		}
+
 		/**
 		 * Returns a builder object.
 		 * <p>
@@ -1076,6 +2109,9 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			private Long customEpoch;
 			private IRandom random;
 			private Clock clock;
+			private boolean hybridLogicalClock;
+			private boolean lockFree;
+			private int stripes = 1;
 
 			/**
 			 * Set the node identifier.
@@ -1135,6 +2171,22 @@ public final class TSID implements Serializable, Comparable<TSID> {
 				return this;
 			}
 
+			/**
+			 * Set the fast random generator shared by the process.
+			 * <p>
+			 * It is a Weyl sequence per thread stripe, mixed by an invertible function,
+			 * seeded and reseeded every minute by a single {@link SecureRandom}. It
+			 * doesn't lock, but its values are <b>not</b> cryptographically secure, so
+			 * the random counter values and the random node are predictable. The call
+			 * that reseeds it may block while the {@link SecureRandom} does.
+			 *
+			 * @return {@link Builder}
+			 */
+			public Builder withFastRandom() {
+				this.random = Entropy.shared();
+				return this;
+			}
+
 			/**
 			 * Set the random function.
 			 * <p>
@@ -1181,6 +2233,82 @@ public final class TSID implements Serializable, Comparable<TSID> {
 				return this;
 			}
 
+			/**
+			 * Makes the factory a hybrid logical clock.
+			 * <p>
+			 * The time and the counter are kept in a single atomic number and updated
+			 * with compare-and-set, so {@link Factory#generate()} and
+			 * {@link Factory#observe(long)} don't lock. The random function is then
+			 * called concurrently, so it must be thread-safe.
+			 *
+			 * @return {@link Builder}
+			 */
+			public Builder withHybridLogicalClock() {
+				this.hybridLogicalClock = true;
+				return this;
+			}
+
+			/**
+			 * Makes the factory generate without locking.
+			 * <p>
+			 * The time and the counter are kept in a single atomic number and updated
+			 * with a short compare-and-set loop that spins instead of parking, as in
+			 * {@link #withHybridLogicalClock()}. It suits virtual threads, which would
+			 * otherwise all park on the lock shared by the factories.
+			 * <p>
+			 * The random function is called concurrently when the time changes, so it
+			 * must be thread-safe, and should not block. The default random generator
+			 * only calls its {@link SecureRandom} once every
+			 * {@value SecureEntropy#BUFFER_SIZE} values of a thread stripe, but that
+			 * call may block, and may pin a virtual thread to its carrier while doing
+			 * so. So may the call that reseeds the generator of
+			 * {@link #withFastRandom()}, once a minute.
+			 *
+			 * @return {@link Builder}
+			 */
+			public Builder withLockFree() {
+				this.lockFree = true;
+				return this;
+			}
+
+			/**
+			 * Makes the factory keep its state in a number of slots.
+			 * <p>
+			 * A thread picks a slot by a probe derived from its identifier, and moves
+			 * to another slot for good when it competes with other threads for one,
+			 * so threads rarely share the state, without a {@link ThreadLocal}
+			 * lookup. Each slot owns a range of the counter values, selected by the
+			 * upper counter bits, so the factory still never generates the same TSID
+			 * twice.
+			 * <p>
+			 * The order is weaker than with a single state. A TSID is never in an
+			 * earlier millisecond than a TSID returned before it was requested, from
+			 * any thread. But within a millisecond, the TSIDs of different slots are
+			 * interleaved, so a TSID may be less than one returned before it, even by
+			 * the same thread if it moved to another slot. The TSIDs of one slot, and
+			 * of one call to {@link Factory#generate(long[], int, int)}, are in
+			 * ascending order.
+			 * <p>
+			 * Each slot has fewer counter values per millisecond. When a slot runs out
+			 * of them, or generates a large array, it carries into the next
+			 * milliseconds, and all slots follow it.
+			 * <p>
+			 * The number is rounded up to a power of two, and at most half of the
+			 * counter bits are used for the slot. For example, with 10 node bits, a
+			 * factory has up to 64 slots of 64 counter values each.
+			 *
+			 * @param stripes the number of slots, such as twice the number of CPUs
+			 * @return {@link Builder}
+			 * @throws IllegalArgumentException if the number is not positive
+			 */
+			public Builder withStripes(int stripes) {
+				if (stripes < 1) {
+					throw new IllegalArgumentException(String.format("Invalid stripes: %s", stripes));
+				}
+				this.stripes = stripes;
+				return this;
+			}
+
 			/**
 			 * Get the node identifier.
 			 *
@@ -1252,7 +2380,7 @@ public final class TSID implements Serializable, Comparable<TSID> {
 			 */
 			protected IRandom getRandom() {
 				if (this.random == null) {
-					this.withRandom(new SecureRandom());
+					this.random = SecureEntropy.shared();
 				}
 				return this.random;
 			}
@@ -1269,6 +2397,34 @@ public final class TSID implements Serializable, Comparable<TSID> {
 				return this.clock;
 			}
 
+			/**
+			 * Checks if the factory is a hybrid logical clock.
+			 *
+			 * @return true if it is a hybrid logical clock
+			 */
+			protected boolean isHybridLogicalClock() {
+				return this.hybridLogicalClock;
+			}
+
+			/**
+			 * Checks if the factory generates without locking, which a hybrid logical
+			 * clock also does.
+			 *
+			 * @return true if it is lock-free
+			 */
+			protected boolean isLockFree() {
+				return this.lockFree || this.hybridLogicalClock;
+			}
+
+			/**
+			 * Gets the number of slots.
+			 *
+			 * @return a number
+			 */
+			protected int getStripes() {
+				return this.stripes;
+			}
+
 			/**
 			 * Returns a build TSID factory.
 			 *
@@ -0,0 +1,331 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A generator of TSIDs for explicit timestamps, such as the creation time of
+ * rows migrated from a legacy table.
+ * <p>
+ * It keeps a counter for each millisecond it has seen, in a primitive hash
+ * table, so the TSIDs of a millisecond are unique. Counters start at zero. When
+ * a millisecond has used up its counter, it spills over to the next
+ * millisecond, like {@link TSID.Factory#generate()} does.
+ * <p>
+ * The TSIDs don't collide with the TSIDs of other generators or factories as
+ * long as each one has its own node identifier. A backfill generator should
+ * have a node identifier reserved for it.
+ * <p>
+ * Timestamps before the epoch are rejected. Rows created before 2020 need a
+ * custom epoch, which must then be used for all TSIDs of the table.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidBackfill backfill = new TsidBackfill(10, 1023);
+ * for (Row row : rows) {
+ *     row.setId(backfill.generate(row.getCreatedAt()));
+ * }
+ * }</pre>
+ * <p>
+ * The counters take 12 to 24 bytes per distinct millisecond until
+ * {@link #clear()} is called, which is safe once no more timestamps of the
+ * milliseconds seen will arrive.
+ */
+public final class TsidBackfill {
+
+	// keys are times plus one, so that zero marks a free slot
+	private static final long FREE = 0L;
+
+	private static final long MAX_TIME = (1L << (Long.SIZE - TSID.RANDOM_BITS)) - 1;
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final long node;
+	private final int counterBits;
+	private final long customEpoch;
+
+	private long[] keys;
+	private int[] counters;
+	private int mask;
+	private int threshold;
+	private int size;
+
+	// the slot of the last millisecond, as consecutive rows often share it
+	private long lastKey = FREE;
+	private int lastSlot;
+
+	/**
+	 * Creates a generator with the default epoch.
+	 * 
+	 * @param nodeBits the number of bits of the node identifier, from 0 to 20
+	 * @param node     the node identifier, from 0 to 2^nodeBits-1
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public TsidBackfill(final int nodeBits, final int node) {
+		this(nodeBits, node, Instant.ofEpochMilli(TSID.TSID_EPOCH));
+	}
+
+	/**
+	 * Creates a generator with a custom epoch.
+	 * 
+	 * @param nodeBits    the number of bits of the node identifier, from 0 to 20
+	 * @param node        the node identifier, from 0 to 2^nodeBits-1
+	 * @param customEpoch the custom epoch
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public TsidBackfill(final int nodeBits, final int node, final Instant customEpoch) {
+		if (nodeBits < 0 || nodeBits > 20) {
+			throw new IllegalArgumentException(String.format("Node bits out of range [0, 20]: %s", nodeBits));
+		}
+		if (node < 0 || node >= 1 << nodeBits) {
+			throw new IllegalArgumentException(
+					String.format("Node ID out of range [0, %s]: %s", (1 << nodeBits) - 1, node));
+		}
+		this.counterBits = TSID.RANDOM_BITS - nodeBits;
+		this.node = (long) node << this.counterBits;
+		this.customEpoch = customEpoch.toEpochMilli();
+		allocate(Hashing.capacity(0));
+	}
+
+	/**
+	 * Generates a TSID for a timestamp.
+	 * 
+	 * @param unixMilliseconds milliseconds since 1970-01-01
+	 * @return a TSID
+	 * @throws IllegalArgumentException if the timestamp is out of the TSID time
+	 *                                  range
+	 */
+	public long generate(final long unixMilliseconds) {
+		final long time = time(unixMilliseconds);
+		lock.lock();
+		try {
+			return next(time);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Generates a TSID for an instant.
+	 * 
+	 * @param instant an instant
+	 * @return a TSID
+	 * @throws IllegalArgumentException if the instant is out of the TSID time
+	 *                                  range
+	 */
+	public TSID generate(final Instant instant) {
+		return TSID.from(generate(instant.toEpochMilli()));
+	}
+
+	/**
+	 * Generates a batch of TSIDs for the same timestamp.
+	 * 
+	 * @param unixMilliseconds milliseconds since 1970-01-01
+	 * @param tsids            an array
+	 * @param offset           the index of the first TSID
+	 * @param count            the number of TSIDs
+	 * @throws IllegalArgumentException  if the timestamp is out of the TSID time
+	 *                                   range
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public void generate(final long unixMilliseconds, final long[] tsids, final int offset, final int count) {
+		if (count < 0) {
+			throw new IndexOutOfBoundsException(String.format("Invalid count: %s", count));
+		}
+		TSID.checkBounds(tsids.length, offset, count);
+		final long time = time(unixMilliseconds);
+		lock.lock();
+		try {
+			fill(time, tsids, offset, count);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Generates a TSID for each timestamp of an array.
+	 * <p>
+	 * It takes the lock once for the whole batch.
+	 * 
+	 * @param unixMilliseconds an array of milliseconds since 1970-01-01
+	 * @param tsids            an array of the same length
+	 * @throws IllegalArgumentException if a timestamp is out of the TSID time range
+	 *                                  or the arrays have different lengths
+	 */
+	public void generate(final long[] unixMilliseconds, final long[] tsids) {
+		if (unixMilliseconds.length != tsids.length) {
+			throw new IllegalArgumentException(
+					String.format("Invalid lengths: %s and %s", unixMilliseconds.length, tsids.length));
+		}
+		// validate first, so that a bad timestamp doesn't leave a partial batch
+		for (long timestamp : unixMilliseconds) {
+			time(timestamp);
+		}
+		lock.lock();
+		try {
+			for (int i = 0; i < unixMilliseconds.length; i++) {
+				tsids[i] = next(unixMilliseconds[i] - customEpoch);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of milliseconds that have a counter.
+	 * 
+	 * @return the number of milliseconds
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Forgets all counters.
+	 * <p>
+	 * TSIDs generated afterwards may collide with those generated before, if they
+	 * share a millisecond.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			allocate(Hashing.capacity(0));
+			size = 0;
+			lastKey = FREE;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private long time(final long unixMilliseconds) {
+		try {
+			final long time = Math.subtractExact(unixMilliseconds, customEpoch);
+			if (time >= 0 && time <= MAX_TIME) {
+				return time;
+			}
+		} catch (ArithmeticException e) {
+			// out of range
+		}
+		throw new IllegalArgumentException(String.format("Invalid timestamp: %s", unixMilliseconds));
+	}
+
+	private long next(long time) {
+		final int capacity = 1 << counterBits;
+		while (true) {
+			if (time > MAX_TIME) {
+				throw new IllegalStateException("TSID time range exhausted");
+			}
+			final int slot = slot(time + 1);
+			final int counter = counters[slot];
+			if (counter < capacity) {
+				counters[slot] = counter + 1;
+				return (time << TSID.RANDOM_BITS) | node | counter;
+			}
+			time++; // spill over to the next millisecond
+		}
+	}
+
+	private void fill(long time, final long[] tsids, int offset, int count) {
+		final int capacity = 1 << counterBits;
+		while (count > 0) {
+			if (time > MAX_TIME) {
+				throw new IllegalStateException("TSID time range exhausted");
+			}
+			final int slot = slot(time + 1);
+			final int counter = counters[slot];
+			final int taken = Math.min(count, capacity - counter);
+			final long prefix = (time << TSID.RANDOM_BITS) | node;
+			for (int i = 0; i < taken; i++) {
+				tsids[offset + i] = prefix | (counter + i);
+			}
+			counters[slot] = counter + taken;
+			offset += taken;
+			count -= taken;
+			time++; // spill over to the next millisecond
+		}
+	}
+
+	/**
+	 * Returns the slot of a key, adding it with a zero counter if absent.
+	 */
+	private int slot(final long key) {
+		if (key == lastKey) {
+			return lastSlot;
+		}
+		int i = (int) Hashing.mix(key) & mask;
+		while (keys[i] != FREE) {
+			if (keys[i] == key) {
+				return remember(key, i);
+			}
+			i = (i + 1) & mask;
+		}
+		if (size >= threshold) {
+			rehash(Hashing.grow(keys.length, "TSID backfill table"));
+			return slot(key);
+		}
+		keys[i] = key;
+		size++;
+		return remember(key, i);
+	}
+
+	private int remember(final long key, final int slot) {
+		lastKey = key;
+		lastSlot = slot;
+		return slot;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = keys;
+		final int[] oldCounters = counters;
+		allocate(capacity);
+		lastKey = FREE;
+		for (int j = 0; j < oldKeys.length; j++) {
+			if (oldKeys[j] != FREE) {
+				int i = (int) Hashing.mix(oldKeys[j]) & mask;
+				while (keys[i] != FREE) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = oldKeys[j];
+				counters[i] = oldCounters[j];
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		counters = new int[capacity];
+		mask = capacity - 1;
+		threshold = Hashing.threshold(capacity);
+	}
+}
@@ -0,0 +1,423 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter for TSIDs.
+ * <p>
+ * It answers whether a TSID might have been added, or was certainly not added,
+ * using a few bits per TSID. It can be checked before a database lookup, to skip
+ * the lookup of TSIDs that don't exist.
+ * <p>
+ * TSIDs are hashed as numbers, without creating objects, and bits are set with
+ * compare-and-set, so TSIDs can be added and checked concurrently without
+ * locks.
+ * <p>
+ * A filter can be saved as a snapshot with {@link #writeTo(DataOutput)} or
+ * {@link #writeTo(ByteBuffer)}, and restored after a restart with
+ * {@link #readFrom(DataInput)} or {@link #readFrom(ByteBuffer)}.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * // a node generating about 10 TSIDs per ms, for one day
+ * long expected = TsidBloomFilter.expectedInsertions(10, Duration.ofDays(1));
+ * TsidBloomFilter filter = new TsidBloomFilter(expected, 0.01);
+ * }</pre>
+ */
+public final class TsidBloomFilter {
+
+	// "TSBF"
+	private static final int MAGIC = 0x54534246;
+	private static final int HEADER_BYTES = 16;
+
+	private static final int MAX_HASHES = 64;
+	private static final long MAX_BITS = (long) (Integer.MAX_VALUE - 8) * Long.SIZE;
+
+	private static final double LN2 = Math.log(2);
+
+	private final long bits;
+	private final int hashes;
+	private final AtomicLongArray words;
+
+	/**
+	 * Creates a filter sized for a number of TSIDs and a false positive rate.
+	 * 
+	 * @param expected the expected number of TSIDs
+	 * @param fpp      the desired false positive rate, between 0 and 1
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public TsidBloomFilter(final long expected, final double fpp) {
+		this(optimalBits(expected, fpp), optimalHashes(expected, optimalBits(expected, fpp)));
+	}
+
+	/**
+	 * Creates a filter with a number of bits and hash functions.
+	 * 
+	 * @param bits   the number of bits
+	 * @param hashes the number of hash functions
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public TsidBloomFilter(final long bits, final int hashes) {
+		this(bits, hashes, new AtomicLongArray(words(bits, hashes)));
+	}
+
+	private TsidBloomFilter(final long bits, final int hashes, final AtomicLongArray words) {
+		this.bits = bits;
+		this.hashes = hashes;
+		this.words = words;
+	}
+
+	/**
+	 * Returns the maximum number of TSIDs a node can generate per millisecond.
+	 * <p>
+	 * It is the size of the counter, which takes the bits that are not taken by
+	 * the node identifier.
+	 * 
+	 * @param nodeBits the number of bits of the node identifier, from 0 to 20
+	 * @return the maximum number of TSIDs per millisecond
+	 * @throws IllegalArgumentException if the number of node bits is out of range
+	 */
+	public static long maxPerMillisecond(final int nodeBits) {
+		if (nodeBits < 0 || nodeBits > 20) {
+			throw new IllegalArgumentException(String.format("Invalid node bits: %s", nodeBits));
+		}
+		return 1L << (TSID.RANDOM_BITS - nodeBits);
+	}
+
+	/**
+	 * Returns the number of TSIDs generated over a period at a given rate.
+	 * <p>
+	 * The rate of a node is at most {@link #maxPerMillisecond(int)}.
+	 * 
+	 * @param perMillisecond the number of TSIDs per millisecond
+	 * @param period         the period
+	 * @return the expected number of TSIDs
+	 * @throws IllegalArgumentException if the rate is negative
+	 */
+	public static long expectedInsertions(final double perMillisecond, final Duration period) {
+		if (!(perMillisecond >= 0)) {
+			throw new IllegalArgumentException(String.format("Invalid rate: %s", perMillisecond));
+		}
+		return (long) Math.ceil(perMillisecond * period.toMillis());
+	}
+
+	/**
+	 * Returns the number of bits needed for a number of TSIDs and a false
+	 * positive rate.
+	 * 
+	 * @param expected the expected number of TSIDs
+	 * @param fpp      the desired false positive rate, between 0 and 1
+	 * @return the number of bits
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public static long optimalBits(final long expected, final double fpp) {
+		if (expected < 0) {
+			throw new IllegalArgumentException(String.format("Invalid expected size: %s", expected));
+		}
+		if (!(fpp > 0 && fpp < 1)) {
+			throw new IllegalArgumentException(String.format("Invalid false positive rate: %s", fpp));
+		}
+		final double bits = Math.ceil(-Math.max(1, expected) * Math.log(fpp) / (LN2 * LN2));
+		if (bits > MAX_BITS) {
+			throw new IllegalArgumentException(String.format("Invalid expected size: %s", expected));
+		}
+		return Math.max(Long.SIZE, (long) bits);
+	}
+
+	/**
+	 * Returns the number of hash functions that minimizes the false positive rate.
+	 * 
+	 * @param expected the expected number of TSIDs
+	 * @param bits     the number of bits
+	 * @return the number of hash functions
+	 */
+	public static int optimalHashes(final long expected, final long bits) {
+		final long hashes = Math.round((double) bits / Math.max(1, expected) * LN2);
+		return (int) Math.max(1, Math.min(MAX_HASHES, hashes));
+	}
+
+	/**
+	 * Returns the false positive rate of a filter.
+	 * 
+	 * @param expected the number of TSIDs added
+	 * @param bits     the number of bits
+	 * @param hashes   the number of hash functions
+	 * @return the false positive rate
+	 */
+	public static double falsePositiveRate(final long expected, final long bits, final int hashes) {
+		return Math.pow(1 - Math.exp(-(double) hashes * expected / bits), hashes);
+	}
+
+	/**
+	 * Adds a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the filter changed, which means the TSID was certainly not
+	 *         added before
+	 */
+	public boolean add(final long tsid) {
+		final long hash1 = Hashing.mix(tsid);
+		final long hash2 = Hashing.mix(hash1) | 1;
+		boolean changed = false;
+		long hash = hash1;
+		for (int i = 0; i < hashes; i++) {
+			final long index = Platform.multiplyHighUnsigned(hash, bits);
+			final int word = (int) (index >>> 6);
+			final long mask = 1L << index;
+			long value;
+			while (((value = words.get(word)) & mask) == 0) {
+				if (words.compareAndSet(word, value, value | mask)) {
+					changed = true;
+					break;
+				}
+			}
+			hash += hash2;
+		}
+		return changed;
+	}
+
+	/**
+	 * Adds a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the filter changed, which means the TSID was certainly not
+	 *         added before
+	 */
+	public boolean add(final TSID tsid) {
+		return add(tsid.toLong());
+	}
+
+	/**
+	 * Checks if a TSID might have been added.
+	 * 
+	 * @param tsid a TSID
+	 * @return false if the TSID was certainly not added, true if it probably was
+	 */
+	public boolean mightContain(final long tsid) {
+		final long hash1 = Hashing.mix(tsid);
+		final long hash2 = Hashing.mix(hash1) | 1;
+		long hash = hash1;
+		for (int i = 0; i < hashes; i++) {
+			final long index = Platform.multiplyHighUnsigned(hash, bits);
+			if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+				return false;
+			}
+			hash += hash2;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a TSID might have been added.
+	 * 
+	 * @param tsid a TSID
+	 * @return false if the TSID was certainly not added, true if it probably was
+	 */
+	public boolean mightContain(final TSID tsid) {
+		return mightContain(tsid.toLong());
+	}
+
+	/**
+	 * Returns the number of bits.
+	 * 
+	 * @return the number of bits
+	 */
+	public long bitSize() {
+		return bits;
+	}
+
+	/**
+	 * Returns the number of hash functions.
+	 * 
+	 * @return the number of hash functions
+	 */
+	public int hashCount() {
+		return hashes;
+	}
+
+	/**
+	 * Returns the current false positive rate, estimated from the bits set.
+	 * 
+	 * @return the false positive rate
+	 */
+	public double expectedFalsePositiveRate() {
+		long set = 0;
+		for (int i = 0; i < words.length(); i++) {
+			set += Long.bitCount(words.get(i));
+		}
+		return Math.pow((double) set / bits, hashes);
+	}
+
+	/**
+	 * Removes all TSIDs.
+	 */
+	public void clear() {
+		for (int i = 0; i < words.length(); i++) {
+			words.set(i, 0L);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes of a snapshot.
+	 * 
+	 * @return the number of bytes
+	 */
+	public long snapshotSize() {
+		return HEADER_BYTES + (long) words.length() * Long.BYTES;
+	}
+
+	/**
+	 * Writes a snapshot to a data output, such as a file.
+	 * <p>
+	 * TSIDs added while the snapshot is written may be missing from it.
+	 * 
+	 * @param out a data output
+	 * @throws IOException if an I/O error occurs
+	 */
+	public void writeTo(final DataOutput out) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(hashes);
+		out.writeLong(bits);
+		final int chunk = 1024;
+		final byte[] bytes = new byte[Math.min(words.length(), chunk) * Long.BYTES];
+		for (int i = 0; i < words.length(); i += chunk) {
+			final int count = Math.min(words.length() - i, chunk);
+			for (int j = 0; j < count; j++) {
+				Platform.putLong(bytes, j * Long.BYTES, words.get(i + j));
+			}
+			out.write(bytes, 0, count * Long.BYTES);
+		}
+	}
+
+	/**
+	 * Writes a snapshot to a byte buffer.
+	 * <p>
+	 * TSIDs added while the snapshot is written may be missing from it.
+	 * 
+	 * @param buffer a byte buffer
+	 * @return the byte buffer
+	 * @throws java.nio.BufferOverflowException if there are fewer than
+	 *                                          {@link #snapshotSize()} bytes
+	 *                                          remaining
+	 */
+	public ByteBuffer writeTo(final ByteBuffer buffer) {
+		final ByteBuffer out = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		out.putInt(MAGIC);
+		out.putInt(hashes);
+		out.putLong(bits);
+		for (int i = 0; i < words.length(); i++) {
+			out.putLong(words.get(i));
+		}
+		buffer.position(out.position());
+		return buffer;
+	}
+
+	/**
+	 * Reads a snapshot from a data input.
+	 * 
+	 * @param in a data input
+	 * @return a filter
+	 * @throws IOException              if an I/O error occurs
+	 * @throws IllegalArgumentException if the snapshot is invalid
+	 */
+	public static TsidBloomFilter readFrom(final DataInput in) throws IOException {
+		final int magic = in.readInt();
+		final int hashes = in.readInt();
+		final long bits = in.readLong();
+		final int length = header(magic, hashes, bits);
+		// grow as the data arrives, so a corrupt header can't allocate too much
+		final int chunk = 1024;
+		long[] words = new long[Math.min(length, chunk)];
+		final byte[] bytes = new byte[Math.min(length, chunk) * Long.BYTES];
+		for (int i = 0; i < length; i += chunk) {
+			final int count = Math.min(length - i, chunk);
+			in.readFully(bytes, 0, count * Long.BYTES);
+			if (i + count > words.length) {
+				words = Arrays.copyOf(words, Math.min(length, Math.max(i + count, words.length << 1)));
+			}
+			for (int j = 0; j < count; j++) {
+				words[i + j] = Platform.getLong(bytes, j * Long.BYTES);
+			}
+		}
+		return new TsidBloomFilter(bits, hashes, new AtomicLongArray(words));
+	}
+
+	/**
+	 * Reads a snapshot from a byte buffer.
+	 * <p>
+	 * The buffer position is moved past the snapshot.
+	 * 
+	 * @param buffer a byte buffer
+	 * @return a filter
+	 * @throws IllegalArgumentException if the snapshot is invalid
+	 */
+	public static TsidBloomFilter readFrom(final ByteBuffer buffer) {
+		final ByteBuffer in = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		if (in.remaining() < HEADER_BYTES) {
+			throw new IllegalArgumentException("Invalid Bloom filter snapshot: too short");
+		}
+		final int magic = in.getInt();
+		final int hashes = in.getInt();
+		final long bits = in.getLong();
+		final int length = header(magic, hashes, bits);
+		if (in.remaining() / Long.BYTES < length) {
+			throw new IllegalArgumentException("Invalid Bloom filter snapshot: too short");
+		}
+		final AtomicLongArray words = new AtomicLongArray(length);
+		for (int i = 0; i < length; i++) {
+			words.set(i, in.getLong());
+		}
+		buffer.position(in.position());
+		return new TsidBloomFilter(bits, hashes, words);
+	}
+
+	private static int header(final int magic, final int hashes, final long bits) {
+		if (magic != MAGIC) {
+			throw new IllegalArgumentException(String.format("Invalid Bloom filter snapshot: magic %08x", magic));
+		}
+		return words(bits, hashes);
+	}
+
+	private static int words(final long bits, final int hashes) {
+		if (bits < 1 || bits > MAX_BITS) {
+			throw new IllegalArgumentException(String.format("Invalid number of bits: %s", bits));
+		}
+		if (hashes < 1 || hashes > MAX_HASHES) {
+			throw new IllegalArgumentException(String.format("Invalid number of hashes: %s", hashes));
+		}
+		return (int) ((bits + Long.SIZE - 1) / Long.SIZE);
+	}
+}
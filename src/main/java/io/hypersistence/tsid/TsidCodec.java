@@ -0,0 +1,494 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A utility that converts many TSIDs to and from canonical strings at once.
+ * <p>
+ * The canonical strings are written side by side into a single buffer,
+ * optionally followed by a separator, like a line feed. Since every canonical
+ * string is 13 characters long, the position of each TSID in the buffer is
+ * known in advance, so no intermediate {@link String} or {@link TSID} object is
+ * created.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * long[] tsids = ...;
+ * byte[] bytes = new byte[TsidCodec.encodedLength(tsids.length, true)];
+ * TsidCodec.encode(tsids, 0, tsids.length, bytes, 0, (byte) '\n');
+ * 
+ * long[] decoded = new long[tsids.length];
+ * TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', decoded, 0);
+ * }</pre>
+ * <p>
+ * The parallel variants split the work into a {@link ForkJoinPool}. They are
+ * only worth it for very large arrays.
+ * <p>
+ * The vector variants of the decoder use the incubating Vector API on Java 17
+ * or later if the application is started with
+ * {@code --add-modules jdk.incubator.vector}. Otherwise they fall back to the
+ * scalar decoder, so they can be called unconditionally.
+ */
+public final class TsidCodec {
+
+	// the smallest number of TSIDs handled by a parallel task
+	static final int PARALLEL_THRESHOLD = 1 << 14;
+
+	static final int NO_SEPARATOR = -1;
+
+	private TsidCodec() {
+	}
+
+	/**
+	 * Returns the length of the buffer needed to encode a number of TSIDs.
+	 * 
+	 * @param count     the number of TSIDs
+	 * @param separated true if the strings are separated
+	 * @return the number of characters
+	 * @throws IllegalArgumentException if the encoding doesn't fit in an array
+	 */
+	public static int encodedLength(final int count, final boolean separated) {
+		if (count <= 0) {
+			return 0;
+		}
+		final long length = separated ? count * (TSID.TSID_CHARS + 1L) - 1 : count * (long) TSID.TSID_CHARS;
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(String.format("Too many TSIDs to encode: %s", count));
+		}
+		return (int) length;
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a char array, side by side.
+	 * 
+	 * @param tsids  an array of TSIDs
+	 * @param from   the index of the first TSID, inclusive
+	 * @param to     the index of the last TSID, exclusive
+	 * @param chars  the output char array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int encode(final long[] tsids, final int from, final int to, final char[] chars, final int offset) {
+		return encode(tsids, from, to, chars, offset, NO_SEPARATOR);
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a char array, separated by a character.
+	 * <p>
+	 * The separator is written between two strings, not after the last one.
+	 * 
+	 * @param tsids     an array of TSIDs
+	 * @param from      the index of the first TSID, inclusive
+	 * @param to        the index of the last TSID, exclusive
+	 * @param chars     the output char array
+	 * @param offset    the position of the first character
+	 * @param separator the separator, for example a line feed
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int encode(final long[] tsids, final int from, final int to, final char[] chars, final int offset,
+			final char separator) {
+		return encode(tsids, from, to, chars, offset, (int) separator);
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a byte array as US-ASCII, side by side.
+	 * 
+	 * @param tsids  an array of TSIDs
+	 * @param from   the index of the first TSID, inclusive
+	 * @param to     the index of the last TSID, exclusive
+	 * @param bytes  the output byte array
+	 * @param offset the position of the first character
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int encode(final long[] tsids, final int from, final int to, final byte[] bytes, final int offset) {
+		return encode(tsids, from, to, bytes, offset, NO_SEPARATOR);
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a byte array as US-ASCII, separated by a
+	 * character.
+	 * <p>
+	 * The separator is written between two strings, not after the last one.
+	 * 
+	 * @param tsids     an array of TSIDs
+	 * @param from      the index of the first TSID, inclusive
+	 * @param to        the index of the last TSID, exclusive
+	 * @param bytes     the output byte array
+	 * @param offset    the position of the first character
+	 * @param separator the separator, for example a line feed
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int encode(final long[] tsids, final int from, final int to, final byte[] bytes, final int offset,
+			final byte separator) {
+		return encode(tsids, from, to, bytes, offset, separator & 0xff);
+	}
+
+	/**
+	 * Decodes US-ASCII canonical strings written side by side.
+	 * 
+	 * @param bytes  the input byte array
+	 * @param offset the position of the first character
+	 * @param length the number of bytes to decode, a multiple of 13
+	 * @param tsids  the output array of TSIDs
+	 * @param index  the index of the first decoded TSID
+	 * @return the number of decoded TSIDs
+	 * @throws IllegalArgumentException  if the input is invalid
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int decode(final byte[] bytes, final int offset, final int length, final long[] tsids,
+			final int index) {
+		return decode(bytes, offset, length, NO_SEPARATOR, tsids, index);
+	}
+
+	/**
+	 * Decodes US-ASCII canonical strings separated by a character.
+	 * <p>
+	 * A separator after the last string is accepted, so that files whose lines
+	 * all end with a line feed can be decoded as they are.
+	 * 
+	 * @param bytes     the input byte array
+	 * @param offset    the position of the first character
+	 * @param length    the number of bytes to decode
+	 * @param separator the separator, for example a line feed
+	 * @param tsids     the output array of TSIDs
+	 * @param index     the index of the first decoded TSID
+	 * @return the number of decoded TSIDs
+	 * @throws IllegalArgumentException  if the input is invalid
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int decode(final byte[] bytes, final int offset, final int length, final byte separator,
+			final long[] tsids, final int index) {
+		return decode(bytes, offset, length, separator & 0xff, tsids, index);
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a char array using a {@link ForkJoinPool}.
+	 * <p>
+	 * The output is the same as {@link #encode(long[], int, int, char[], int, char)}.
+	 * 
+	 * @param tsids     an array of TSIDs
+	 * @param from      the index of the first TSID, inclusive
+	 * @param to        the index of the last TSID, exclusive
+	 * @param chars     the output char array
+	 * @param offset    the position of the first character
+	 * @param separator the separator, for example a line feed
+	 * @param pool      the pool that runs the tasks
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int parallelEncode(final long[] tsids, final int from, final int to, final char[] chars,
+			final int offset, final char separator, final ForkJoinPool pool) {
+		final int end = checkEncode(tsids, from, to, chars.length, offset, separator);
+		pool.invoke(new Task(from, to, (lo, hi) -> encodeRange(tsids, lo, hi, to, chars,
+				offset + (lo - from) * (TSID.TSID_CHARS + 1), separator)));
+		return end;
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a byte array using a {@link ForkJoinPool}.
+	 * <p>
+	 * The output is the same as {@link #encode(long[], int, int, byte[], int, byte)}.
+	 * 
+	 * @param tsids     an array of TSIDs
+	 * @param from      the index of the first TSID, inclusive
+	 * @param to        the index of the last TSID, exclusive
+	 * @param bytes     the output byte array
+	 * @param offset    the position of the first character
+	 * @param separator the separator, for example a line feed
+	 * @param pool      the pool that runs the tasks
+	 * @return the position right after the last character
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int parallelEncode(final long[] tsids, final int from, final int to, final byte[] bytes,
+			final int offset, final byte separator, final ForkJoinPool pool) {
+		final int end = checkEncode(tsids, from, to, bytes.length, offset, separator);
+		pool.invoke(new Task(from, to, (lo, hi) -> encodeRange(tsids, lo, hi, to, bytes,
+				offset + (lo - from) * (TSID.TSID_CHARS + 1), separator & 0xff)));
+		return end;
+	}
+
+	/**
+	 * Decodes US-ASCII canonical strings separated by a character using a
+	 * {@link ForkJoinPool}.
+	 * <p>
+	 * The output is the same as {@link #decode(byte[], int, int, byte, long[], int)}.
+	 * 
+	 * @param bytes     the input byte array
+	 * @param offset    the position of the first character
+	 * @param length    the number of bytes to decode
+	 * @param separator the separator, for example a line feed
+	 * @param tsids     the output array of TSIDs
+	 * @param index     the index of the first decoded TSID
+	 * @param pool      the pool that runs the tasks
+	 * @return the number of decoded TSIDs
+	 * @throws IllegalArgumentException  if the input is invalid
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 */
+	public static int parallelDecode(final byte[] bytes, final int offset, final int length, final byte separator,
+			final long[] tsids, final int index, final ForkJoinPool pool) {
+		final int count = checkDecode(bytes, offset, length, separator & 0xff, tsids, index);
+		pool.invoke(new Task(index, index + count, (lo, hi) -> decodeRange(bytes,
+				offset + (lo - index) * (TSID.TSID_CHARS + 1), separator & 0xff, tsids, lo, hi, index + count)));
+		return count;
+	}
+
+	/**
+	 * Returns true if the vector variants of the decoder use the Vector API.
+	 * <p>
+	 * It requires Java 17 or later and the {@code jdk.incubator.vector} module,
+	 * which is not resolved unless it is added with
+	 * {@code --add-modules jdk.incubator.vector}.
+	 * 
+	 * @return true if the Vector API is used
+	 */
+	public static boolean isVectorDecodeAvailable() {
+		return VectorDecoder.isAvailable();
+	}
+
+	/**
+	 * Decodes US-ASCII canonical strings written side by side using the Vector API
+	 * if it is available.
+	 * <p>
+	 * The output is the same as {@link #decode(byte[], int, int, long[], int)}.
+	 * 
+	 * @param bytes  the input byte array
+	 * @param offset the position of the first character
+	 * @param length the number of bytes to decode, a multiple of 13
+	 * @param tsids  the output array of TSIDs
+	 * @param index  the index of the first decoded TSID
+	 * @return the number of decoded TSIDs
+	 * @throws IllegalArgumentException  if the input is invalid
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 * @see #isVectorDecodeAvailable()
+	 */
+	public static int vectorDecode(final byte[] bytes, final int offset, final int length, final long[] tsids,
+			final int index) {
+		return vectorDecode(bytes, offset, length, NO_SEPARATOR, tsids, index);
+	}
+
+	/**
+	 * Decodes US-ASCII canonical strings separated by a character using the Vector
+	 * API if it is available.
+	 * <p>
+	 * The output is the same as {@link #decode(byte[], int, int, byte, long[], int)}.
+	 * 
+	 * @param bytes     the input byte array
+	 * @param offset    the position of the first character
+	 * @param length    the number of bytes to decode
+	 * @param separator the separator, for example a line feed
+	 * @param tsids     the output array of TSIDs
+	 * @param index     the index of the first decoded TSID
+	 * @return the number of decoded TSIDs
+	 * @throws IllegalArgumentException  if the input is invalid
+	 * @throws IndexOutOfBoundsException if a range is out of bounds
+	 * @see #isVectorDecodeAvailable()
+	 */
+	public static int vectorDecode(final byte[] bytes, final int offset, final int length, final byte separator,
+			final long[] tsids, final int index) {
+		return vectorDecode(bytes, offset, length, separator & 0xff, tsids, index);
+	}
+
+	private static int encode(final long[] tsids, final int from, final int to, final char[] chars, final int offset,
+			final int separator) {
+		final int end = checkEncode(tsids, from, to, chars.length, offset, separator);
+		encodeRange(tsids, from, to, to, chars, offset, separator);
+		return end;
+	}
+
+	private static int encode(final long[] tsids, final int from, final int to, final byte[] bytes, final int offset,
+			final int separator) {
+		final int end = checkEncode(tsids, from, to, bytes.length, offset, separator);
+		encodeRange(tsids, from, to, to, bytes, offset, separator);
+		return end;
+	}
+
+	private static int decode(final byte[] bytes, final int offset, final int length, final int separator,
+			final long[] tsids, final int index) {
+		final int count = checkDecode(bytes, offset, length, separator, tsids, index);
+		decodeRange(bytes, offset, separator, tsids, index, index + count, index + count);
+		return count;
+	}
+
+	private static int vectorDecode(final byte[] bytes, final int offset, final int length, final int separator,
+			final long[] tsids, final int index) {
+		final int count = checkDecode(bytes, offset, length, separator, tsids, index);
+		VectorDecoder.decodeRange(bytes, offset, separator, tsids, index, index + count, index + count);
+		return count;
+	}
+
+	/**
+	 * Encodes the TSIDs from {@code from} to {@code to}, which is a slice of a
+	 * range that ends at {@code end}. The separator is written after each TSID but
+	 * the last of the whole range.
+	 */
+	static void encodeRange(final long[] tsids, final int from, final int to, final int end, final char[] chars,
+			final int offset, final int separator) {
+		final char[] pairs = TSID.PAIRS_UPPERCASE;
+		if (separator == NO_SEPARATOR) {
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS) {
+				TSID.encode(tsids[i], pairs, chars, j);
+			}
+		} else {
+			final char sep = (char) separator;
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS + 1) {
+				TSID.encode(tsids[i], pairs, chars, j);
+				if (i < end - 1) {
+					chars[j + TSID.TSID_CHARS] = sep;
+				}
+			}
+		}
+	}
+
+	static void encodeRange(final long[] tsids, final int from, final int to, final int end, final byte[] bytes,
+			final int offset, final int separator) {
+		final byte[] pairs = TSID.PAIRS_UPPERCASE_BYTES;
+		if (separator == NO_SEPARATOR) {
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS) {
+				TSID.encode(tsids[i], pairs, bytes, j);
+			}
+		} else {
+			final byte sep = (byte) separator;
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS + 1) {
+				TSID.encode(tsids[i], pairs, bytes, j);
+				if (i < end - 1) {
+					bytes[j + TSID.TSID_CHARS] = sep;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the TSIDs from {@code from} to {@code to}, which is a slice of a
+	 * range that ends at {@code end}. The separator is checked after each TSID but
+	 * the last of the whole range.
+	 */
+	static void decodeRange(final byte[] bytes, final int offset, final int separator, final long[] tsids,
+			final int from, final int to, final int end) {
+		if (separator == NO_SEPARATOR) {
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS) {
+				tsids[i] = decode(bytes, j);
+			}
+		} else {
+			final byte sep = (byte) separator;
+			for (int i = from, j = offset; i < to; i++, j += TSID.TSID_CHARS + 1) {
+				tsids[i] = decode(bytes, j);
+				if (i < end - 1 && bytes[j + TSID.TSID_CHARS] != sep) {
+					throw new IllegalArgumentException(
+							String.format("Invalid separator at offset %s", j + TSID.TSID_CHARS));
+				}
+			}
+		}
+	}
+
+	private static long decode(final byte[] bytes, final int offset) {
+		final long number = TSID.decode(bytes, offset, 0L);
+		if (number == 0L && TSID.decode(bytes, offset, 1L) == 1L) {
+			throw new IllegalArgumentException(String.format("Invalid TSID string at offset %s", offset));
+		}
+		return number;
+	}
+
+	private static int checkEncode(final long[] tsids, final int from, final int to, final int length,
+			final int offset, final int separator) {
+		if (from > to) {
+			throw new IndexOutOfBoundsException(String.format("Invalid range: [%s, %s)", from, to));
+		}
+		TSID.checkBounds(tsids.length, from, to - from);
+		final int required = encodedLength(to - from, separator != NO_SEPARATOR);
+		TSID.checkBounds(length, offset, required);
+		return offset + required;
+	}
+
+	private static int checkDecode(final byte[] bytes, final int offset, final int length, final int separator,
+			final long[] tsids, final int index) {
+		if (length < 0) {
+			throw new IndexOutOfBoundsException(String.format("Invalid length: %s", length));
+		}
+		TSID.checkBounds(bytes.length, offset, length);
+		final int count;
+		if (separator == NO_SEPARATOR) {
+			if (length % TSID.TSID_CHARS != 0) {
+				throw new IllegalArgumentException(String.format("Invalid length: %s", length));
+			}
+			count = length / TSID.TSID_CHARS;
+		} else {
+			final int stride = TSID.TSID_CHARS + 1;
+			if (length % stride == TSID.TSID_CHARS) {
+				count = (length + 1) / stride; // no trailing separator
+			} else if (length % stride == 0) {
+				count = length / stride; // trailing separator
+				if (count > 0 && bytes[offset + length - 1] != (byte) separator) {
+					throw new IllegalArgumentException(
+							String.format("Invalid separator at offset %s", offset + length - 1));
+				}
+			} else {
+				throw new IllegalArgumentException(String.format("Invalid length: %s", length));
+			}
+		}
+		TSID.checkBounds(tsids.length, index, count);
+		return count;
+	}
+
+	/**
+	 * A task that splits a range of TSIDs in halves until it is small enough.
+	 */
+	private static final class Task extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int lo;
+		private final int hi;
+		private final transient Slice slice;
+
+		Task(int lo, int hi, Slice slice) {
+			this.lo = lo;
+			this.hi = hi;
+			this.slice = slice;
+		}
+
+		@Override
+		protected void compute() {
+			if (hi - lo <= PARALLEL_THRESHOLD) {
+				slice.apply(lo, hi);
+				return;
+			}
+			final int mid = (lo + hi) >>> 1;
+			invokeAll(new Task(lo, mid, slice), new Task(mid, hi, slice));
+		}
+	}
+
+	private interface Slice {
+		void apply(int lo, int hi);
+	}
+}
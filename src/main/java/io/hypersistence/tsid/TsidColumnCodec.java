@@ -0,0 +1,306 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A compact binary format for sequences of TSIDs sorted by time.
+ * <p>
+ * Each TSID is split into its time component, the upper 42 bits, and its
+ * random component, the lower 22 bits, which holds the node and the counter.
+ * It is written as:
+ * <ul>
+ * <li>the time delta to the previous TSID, as a zig-zag varint;
+ * <li>if the time delta is zero, the random delta to the previous TSID, as a
+ * zig-zag varint, which is usually 1 byte for TSIDs of the same node;
+ * <li>otherwise the random component, as 3 fixed bytes.
+ * </ul>
+ * <p>
+ * A sequence generated by a single factory usually takes 2 to 5 bytes per
+ * TSID, instead of 8. Unsorted sequences are also supported, but they take
+ * more room.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * byte[] bytes = TsidColumnCodec.encode(tsids);
+ * long[] decoded = TsidColumnCodec.decode(ByteBuffer.wrap(bytes));
+ * }</pre>
+ * <p>
+ * The {@link Encoder} and the {@link Decoder} stream TSIDs one by one, without
+ * the count header written by {@link #encode(long[])}.
+ */
+public final class TsidColumnCodec {
+
+	// the maximum length of an encoded TSID: a 10-byte varint plus 3 bytes
+	static final int MAX_ENCODED_LENGTH = 13;
+
+	private static final int RANDOM_BYTES = 3;
+
+	private TsidColumnCodec() {
+	}
+
+	/**
+	 * Encodes an array of TSIDs, preceded by their count.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @return a byte array
+	 */
+	public static byte[] encode(final long[] tsids) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream(tsids.length * 3 + 5);
+		try {
+			encode(tsids, 0, tsids.length, new DataOutputStream(bytes));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // never happens
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Encodes a range of TSIDs into a data output, preceded by their count.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @param from  the index of the first TSID, inclusive
+	 * @param to    the index of the last TSID, exclusive
+	 * @param out   a data output
+	 * @throws IOException               if an I/O error occurs
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static void encode(final long[] tsids, final int from, final int to, final DataOutput out)
+			throws IOException {
+		if (from > to) {
+			throw new IndexOutOfBoundsException(String.format("Invalid range: [%s, %s)", from, to));
+		}
+		TSID.checkBounds(tsids.length, from, to - from);
+		final byte[] buffer = new byte[MAX_ENCODED_LENGTH];
+		out.write(buffer, 0, putVarint(buffer, 0, to - from));
+		final Encoder encoder = new Encoder(out);
+		for (int i = from; i < to; i++) {
+			encoder.write(tsids[i]);
+		}
+	}
+
+	/**
+	 * Decodes an array of TSIDs, preceded by their count.
+	 * <p>
+	 * The buffer position is moved past the last TSID.
+	 * 
+	 * @param buffer a byte buffer
+	 * @return an array of TSIDs
+	 * @throws IllegalArgumentException if the input is invalid
+	 */
+	public static long[] decode(final ByteBuffer buffer) {
+		final long count = getVarint(buffer);
+		// a TSID takes at least 2 bytes
+		if (count < 0 || count > buffer.remaining() / 2) {
+			throw new IllegalArgumentException(String.format("Invalid TSID count: %s", count));
+		}
+		final long[] tsids = new long[(int) count];
+		final Decoder decoder = new Decoder(buffer);
+		for (int i = 0; i < tsids.length; i++) {
+			tsids[i] = decoder.nextLong();
+		}
+		return tsids;
+	}
+
+	/**
+	 * A streaming encoder that writes TSIDs to a {@link DataOutput}.
+	 * <p>
+	 * It writes no header or trailer, so the reader must know where the sequence
+	 * ends, for example from the length of a file or from a count stored
+	 * elsewhere.
+	 */
+	public static final class Encoder {
+
+		private final DataOutput out;
+		private final byte[] buffer = new byte[MAX_ENCODED_LENGTH];
+
+		private long previous;
+		private long count;
+
+		/**
+		 * Creates an encoder.
+		 * 
+		 * @param out a data output
+		 */
+		public Encoder(final DataOutput out) {
+			this.out = out;
+		}
+
+		/**
+		 * Writes a TSID.
+		 * 
+		 * @param tsid a TSID
+		 * @throws IOException if an I/O error occurs
+		 */
+		public void write(final long tsid) throws IOException {
+			final long delta = (tsid >>> TSID.RANDOM_BITS) - (this.previous >>> TSID.RANDOM_BITS);
+			final long random = tsid & TSID.RANDOM_MASK;
+			int length = putVarint(buffer, 0, zigZag(delta));
+			if (delta == 0) {
+				length = putVarint(buffer, length, zigZag(random - (this.previous & TSID.RANDOM_MASK)));
+			} else {
+				buffer[length++] = (byte) (random >>> 16);
+				buffer[length++] = (byte) (random >>> 8);
+				buffer[length++] = (byte) (random);
+			}
+			out.write(buffer, 0, length);
+			this.previous = tsid;
+			this.count++;
+		}
+
+		/**
+		 * Writes a TSID.
+		 * 
+		 * @param tsid a TSID
+		 * @throws IOException if an I/O error occurs
+		 */
+		public void write(final TSID tsid) throws IOException {
+			write(tsid.toLong());
+		}
+
+		/**
+		 * Returns the number of TSIDs written so far.
+		 * 
+		 * @return a number
+		 */
+		public long count() {
+			return this.count;
+		}
+	}
+
+	/**
+	 * A streaming decoder that reads TSIDs from a {@link ByteBuffer}.
+	 * <p>
+	 * It reads until the buffer has no bytes remaining, so the buffer limit must
+	 * be set to the end of the sequence.
+	 */
+	public static final class Decoder implements PrimitiveIterator.OfLong {
+
+		private final ByteBuffer buffer;
+
+		private long previous;
+
+		/**
+		 * Creates a decoder that starts at the current position of a buffer.
+		 * 
+		 * @param buffer a byte buffer
+		 */
+		public Decoder(final ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return buffer.hasRemaining();
+		}
+
+		/**
+		 * Reads the next TSID.
+		 * 
+		 * @return a TSID
+		 * @throws NoSuchElementException   if there are no bytes remaining
+		 * @throws IllegalArgumentException if the input is invalid
+		 */
+		@Override
+		public long nextLong() {
+			if (!buffer.hasRemaining()) {
+				throw new NoSuchElementException();
+			}
+			final long delta = unZigZag(getVarint(buffer));
+			final long time = (this.previous >>> TSID.RANDOM_BITS) + delta;
+			final long random;
+			if (delta == 0) {
+				random = (this.previous & TSID.RANDOM_MASK) + unZigZag(getVarint(buffer));
+			} else {
+				if (buffer.remaining() < RANDOM_BYTES) {
+					throw new IllegalArgumentException(
+							String.format("Invalid TSID column: truncated at %s", buffer.position()));
+				}
+				random = ((buffer.get() & 0xffL) << 16) | ((buffer.get() & 0xffL) << 8) | (buffer.get() & 0xffL);
+			}
+			if ((time >>> (Long.SIZE - TSID.RANDOM_BITS)) != 0 || (random & ~TSID.RANDOM_MASK) != 0) {
+				throw new IllegalArgumentException(
+						String.format("Invalid TSID column: value out of range at %s", buffer.position()));
+			}
+			this.previous = (time << TSID.RANDOM_BITS) | random;
+			return this.previous;
+		}
+
+		/**
+		 * Reads the next TSID.
+		 * 
+		 * @return a TSID
+		 * @throws NoSuchElementException   if there are no bytes remaining
+		 * @throws IllegalArgumentException if the input is invalid
+		 */
+		public TSID nextTsid() {
+			return new TSID(nextLong());
+		}
+	}
+
+	static long zigZag(final long number) {
+		return (number << 1) ^ (number >> 63);
+	}
+
+	static long unZigZag(final long number) {
+		return (number >>> 1) ^ -(number & 1);
+	}
+
+	static int putVarint(final byte[] bytes, int offset, long number) {
+		while ((number & ~0x7fL) != 0) {
+			bytes[offset++] = (byte) ((number & 0x7f) | 0x80);
+			number >>>= 7;
+		}
+		bytes[offset++] = (byte) number;
+		return offset;
+	}
+
+	static long getVarint(final ByteBuffer buffer) {
+		long number = 0;
+		for (int shift = 0; shift < Long.SIZE; shift += 7) {
+			if (!buffer.hasRemaining()) {
+				throw new IllegalArgumentException(
+						String.format("Invalid TSID column: truncated at %s", buffer.position()));
+			}
+			final byte b = buffer.get();
+			number |= (b & 0x7fL) << shift;
+			if (b >= 0) {
+				return number;
+			}
+		}
+		throw new IllegalArgumentException(
+				String.format("Invalid TSID column: varint too long at %s", buffer.position()));
+	}
+}
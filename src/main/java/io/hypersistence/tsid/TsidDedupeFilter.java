@@ -0,0 +1,272 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe filter that remembers the TSIDs seen within a time window.
+ * <p>
+ * The window is measured with the time component of the TSIDs themselves, not
+ * with a clock. It is split into buckets of equal length, and each bucket has
+ * its own set of TSIDs. When a TSID of a newer bucket arrives, the oldest
+ * bucket is dropped as a whole, so memory stays bounded without timers or
+ * scans.
+ * <p>
+ * Each bucket is split into lock stripes, so that threads adding different
+ * TSIDs rarely wait for each other.
+ * <p>
+ * A TSID older than the window can't be checked any more, so
+ * {@link #add(long)} rejects it as if it were a duplicate. A TSID far in the
+ * future moves the window forward and drops the buckets behind it.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidDedupeFilter filter = new TsidDedupeFilter(Duration.ofMinutes(10));
+ * if (filter.add(event.getId())) {
+ *     process(event);
+ * }
+ * }</pre>
+ */
+public final class TsidDedupeFilter {
+
+	private static final int DEFAULT_BUCKETS = 16;
+
+	private final long bucketMillis;
+	private final int stripes;
+
+	// one more slot than buckets, so that the window is always fully covered
+	private final AtomicReferenceArray<Bucket> slots;
+
+	// the index of the newest bucket seen so far
+	private final AtomicLong newest = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Creates a filter with 16 buckets and four lock stripes per processor.
+	 * 
+	 * @param window the time window
+	 * @throws IllegalArgumentException if the window is shorter than 16 ms
+	 */
+	public TsidDedupeFilter(final Duration window) {
+		this(window, DEFAULT_BUCKETS, 4 * Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a filter.
+	 * <p>
+	 * More buckets free memory earlier, in smaller steps. More stripes reduce lock
+	 * contention.
+	 * 
+	 * @param window  the time window
+	 * @param buckets the number of buckets the window is split into
+	 * @param stripes the number of lock stripes per bucket, rounded up to a power
+	 *                of two
+	 * @throws IllegalArgumentException if an argument is out of range
+	 */
+	public TsidDedupeFilter(final Duration window, final int buckets, final int stripes) {
+		if (buckets < 1 || buckets > 1 << 16) {
+			throw new IllegalArgumentException(String.format("Invalid number of buckets: %s", buckets));
+		}
+		if (stripes < 1 || stripes > 1 << 16) {
+			throw new IllegalArgumentException(String.format("Invalid number of stripes: %s", stripes));
+		}
+		final long millis = window.toMillis();
+		if (millis < buckets) {
+			throw new IllegalArgumentException(String.format("Invalid window: %s", window));
+		}
+		this.bucketMillis = (millis + buckets - 1) / buckets;
+		this.stripes = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+		this.slots = new AtomicReferenceArray<>(buckets + 1);
+	}
+
+	/**
+	 * Adds a TSID if it was not seen within the window.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID was added, false if it is a duplicate or older than
+	 *         the window
+	 */
+	public boolean add(final long tsid) {
+		final Bucket bucket = bucket(tsid, true);
+		if (bucket == null) {
+			return false;
+		}
+		final Stripe stripe = bucket.stripe(tsid);
+		stripe.lock();
+		try {
+			return stripe.set.add(tsid);
+		} finally {
+			stripe.unlock();
+		}
+	}
+
+	/**
+	 * Adds a TSID if it was not seen within the window.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID was added, false if it is a duplicate or older than
+	 *         the window
+	 */
+	public boolean add(final TSID tsid) {
+		return add(tsid.toLong());
+	}
+
+	/**
+	 * Checks if a TSID was seen within the window.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID was seen
+	 */
+	public boolean contains(final long tsid) {
+		final Bucket bucket = bucket(tsid, false);
+		if (bucket == null) {
+			return false;
+		}
+		final Stripe stripe = bucket.stripe(tsid);
+		stripe.lock();
+		try {
+			return stripe.set.contains(tsid);
+		} finally {
+			stripe.unlock();
+		}
+	}
+
+	/**
+	 * Checks if a TSID was seen within the window.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID was seen
+	 */
+	public boolean contains(final TSID tsid) {
+		return contains(tsid.toLong());
+	}
+
+	/**
+	 * Returns the number of TSIDs remembered.
+	 * <p>
+	 * It is only a snapshot if other threads are adding TSIDs.
+	 * 
+	 * @return the number of TSIDs in the window
+	 */
+	public int size() {
+		final long oldest = newest.get() - slots.length();
+		int size = 0;
+		for (int i = 0; i < slots.length(); i++) {
+			final Bucket bucket = slots.get(i);
+			if (bucket != null && bucket.index > oldest) {
+				size += bucket.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Forgets all TSIDs.
+	 */
+	public void clear() {
+		for (int i = 0; i < slots.length(); i++) {
+			slots.set(i, null);
+		}
+		newest.set(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Returns the bucket of a TSID, or null if the TSID is older than the window.
+	 * <p>
+	 * When {@code create} is true, a newer bucket replaces the stale bucket that
+	 * occupies its slot.
+	 */
+	private Bucket bucket(final long tsid, final boolean create) {
+
+		final long index = (tsid >>> TSID.RANDOM_BITS) / bucketMillis;
+		final long latest = create ? newest.accumulateAndGet(index, Math::max) : newest.get();
+		if (index <= latest - slots.length()) {
+			return null; // expired
+		}
+
+		final int slot = (int) (index % slots.length());
+		while (true) {
+			final Bucket bucket = slots.get(slot);
+			if (bucket != null && bucket.index == index) {
+				return bucket;
+			}
+			if (bucket != null && bucket.index > index) {
+				return null; // the slot was taken by a newer bucket
+			}
+			if (!create) {
+				return null;
+			}
+			// drop the stale bucket as a whole
+			final Bucket created = new Bucket(index, stripes);
+			if (slots.compareAndSet(slot, bucket, created)) {
+				return created;
+			}
+		}
+	}
+
+	private static final class Bucket {
+
+		private final long index;
+		private final Stripe[] stripes;
+
+		private Bucket(final long index, final int stripes) {
+			this.index = index;
+			this.stripes = new Stripe[stripes];
+			for (int i = 0; i < stripes; i++) {
+				this.stripes[i] = new Stripe();
+			}
+		}
+
+		private Stripe stripe(final long tsid) {
+			// the upper bits of the hash, as the lower bits index the set
+			return stripes[(int) (Hashing.mix(tsid) >>> 32) & (stripes.length - 1)];
+		}
+
+		private int size() {
+			int size = 0;
+			for (Stripe stripe : stripes) {
+				stripe.lock();
+				try {
+					size += stripe.set.size();
+				} finally {
+					stripe.unlock();
+				}
+			}
+			return size;
+		}
+	}
+
+	private static final class Stripe extends ReentrantLock {
+
+		private static final long serialVersionUID = 1L;
+
+		private final TsidHashSet set = new TsidHashSet();
+	}
+}
@@ -0,0 +1,410 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe registry of factories, one per configuration, such as one per
+ * tenant.
+ * <p>
+ * Factories are built on first use, and share a single random generator
+ * instead of creating a {@link SecureRandom} each. Idle factories are evicted
+ * when the registry exceeds its maximum size, least recently used first, or
+ * when they have not been used for longer than the expiry time.
+ * <p>
+ * When a factory is evicted, its last time is kept in a time floor shared by
+ * the registry, and every factory built afterwards starts past it. So a factory
+ * rebuilt for the same configuration never goes back in time, even if the
+ * evicted one ran ahead of the clock. A factory returned by {@link #get(Key)}
+ * should not be kept, as it is not covered once evicted.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidFactoryRegistry registry = TsidFactoryRegistry.builder() //
+ *         .withMaximumSize(10_000) //
+ *         .withExpireAfterAccess(Duration.ofMinutes(30)) //
+ *         .build();
+ * 
+ * TSID tsid = registry.generate(TsidFactoryRegistry.Key.of(10, tenant.getNode(), tenant.getEpoch()));
+ * }</pre>
+ */
+public final class TsidFactoryRegistry {
+
+	private final ConcurrentHashMap<Key, Entry> factories = new ConcurrentHashMap<>();
+	private final ReentrantLock cleanUpLock = new ReentrantLock();
+
+	private final int maximumSize;
+	private final long expireAfterAccess;
+	private final Random random;
+	private final Clock clock;
+
+	// the greatest time of the evicted factories, in milliseconds since 1970-01-01
+	private final AtomicLong timeFloor = new AtomicLong(Long.MIN_VALUE);
+
+	private volatile long lastCleanUp;
+
+	private TsidFactoryRegistry(final Builder builder) {
+		this.maximumSize = builder.maximumSize;
+		this.expireAfterAccess = builder.expireAfterAccess;
+		this.random = builder.random;
+		this.clock = builder.clock != null ? builder.clock : Clock.systemUTC();
+		this.lastCleanUp = clock.millis();
+	}
+
+	/**
+	 * Returns a builder of registries.
+	 * 
+	 * @return a builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the factory of a configuration, building it if needed.
+	 * 
+	 * @param key a configuration
+	 * @return a factory
+	 */
+	public TSID.Factory get(final Key key) {
+		return entry(key).factory;
+	}
+
+	/**
+	 * Generates a TSID with the factory of a configuration.
+	 * <p>
+	 * Unlike a factory returned by {@link #get(Key)}, it is safe even if the
+	 * factory is evicted by another thread at the same time.
+	 * 
+	 * @param key a configuration
+	 * @return a TSID
+	 */
+	public TSID generate(final Key key) {
+		while (true) {
+			final Entry entry = entry(key);
+			if (!entry.retired) {
+				final TSID tsid = entry.factory.generate();
+				// a TSID generated after the time floor was taken may be repeated
+				if (!entry.retired) {
+					return tsid;
+				}
+			}
+			Platform.onSpinWait(); // the entry is about to be removed
+		}
+	}
+
+	private Entry entry(final Key key) {
+		final long now = clock.millis();
+		Entry entry = factories.get(key);
+		if (entry == null) {
+			entry = factories.computeIfAbsent(key, this::newEntry);
+		}
+		entry.lastAccess = now;
+		if (factories.size() > maximumSize || now - lastCleanUp >= expireAfterAccess) {
+			cleanUp(now, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the number of factories.
+	 * 
+	 * @return the number of factories
+	 */
+	public int size() {
+		return factories.size();
+	}
+
+	/**
+	 * Evicts the expired factories, and the least recently used ones if the
+	 * registry exceeds its maximum size.
+	 * <p>
+	 * It is done as needed by {@link #get(Key)}, so it doesn't have to be called.
+	 */
+	public void cleanUp() {
+		cleanUpLock.lock();
+		try {
+			evict(clock.millis(), null);
+		} finally {
+			cleanUpLock.unlock();
+		}
+	}
+
+	private void cleanUp(final long now, final Entry keep) {
+		// one thread cleans up while the others go on
+		if (cleanUpLock.tryLock()) {
+			try {
+				evict(now, keep);
+			} finally {
+				cleanUpLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Evicts the expired factories, then the least recently used ones, except the
+	 * one being returned by {@link #get(Key)}.
+	 */
+	private void evict(final long now, final Entry keep) {
+		lastCleanUp = now;
+
+		final List<Map.Entry<Key, Entry>> live = new ArrayList<>(factories.size());
+		for (Map.Entry<Key, Entry> entry : factories.entrySet()) {
+			if (entry.getValue() == keep) {
+				continue;
+			}
+			if (now - entry.getValue().lastAccess >= expireAfterAccess) {
+				retire(entry.getKey(), entry.getValue());
+			} else {
+				live.add(entry);
+			}
+		}
+
+		// evict a few more than needed, so that this doesn't happen on every get()
+		final int excess = factories.size() - (maximumSize - (maximumSize >>> 4));
+		if (factories.size() > maximumSize && excess > 0 && !live.isEmpty()) {
+			// the access times keep changing, so they are copied before sorting
+			final long[] accesses = new long[live.size()];
+			for (int i = 0; i < accesses.length; i++) {
+				accesses[i] = live.get(i).getValue().lastAccess;
+			}
+			final long[] sorted = accesses.clone();
+			Arrays.sort(sorted);
+			final long cutoff = sorted[Math.min(excess, sorted.length) - 1];
+			int evicted = 0;
+			for (int i = 0; i < accesses.length && evicted < excess; i++) {
+				if (accesses[i] <= cutoff) {
+					retire(live.get(i).getKey(), live.get(i).getValue());
+					evicted++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Raises the time floor past the factory of an entry, then removes the entry.
+	 * <p>
+	 * The entry is marked first, so that {@link #generate(Key)} drops the TSIDs
+	 * that may be generated after the floor was taken, and the floor is raised
+	 * before the entry can be rebuilt.
+	 */
+	private void retire(final Key key, final Entry entry) {
+		entry.retired = true;
+		// the next TSID of the factory is greater than all its previous TSIDs
+		final long last = entry.factory.generate().getUnixMilliseconds(key.customEpoch);
+		timeFloor.accumulateAndGet(last, Math::max);
+		factories.remove(key, entry);
+	}
+
+	private Entry newEntry(final Key key) {
+		final TSID.Factory factory = TSID.Factory.builder() //
+				.withNodeBits(key.nodeBits) //
+				.withNode(key.node) //
+				.withCustomEpoch(Instant.ofEpochMilli(key.customEpoch)) //
+				.withRandom(random) // null keeps the shared default
+				.withClock(clock) //
+				.build();
+		final long floor = timeFloor.get();
+		if (floor != Long.MIN_VALUE && floor >= key.customEpoch) {
+			factory.observe((floor - key.customEpoch) << TSID.RANDOM_BITS);
+		}
+		return new Entry(factory, clock.millis());
+	}
+
+	private static final class Entry {
+
+		private final TSID.Factory factory;
+		private volatile long lastAccess;
+		private volatile boolean retired;
+
+		private Entry(final TSID.Factory factory, final long lastAccess) {
+			this.factory = factory;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	/**
+	 * The configuration of a factory.
+	 */
+	public static final class Key {
+
+		private final int nodeBits;
+		private final int node;
+		private final long customEpoch;
+
+		private Key(final int nodeBits, final int node, final long customEpoch) {
+			this.nodeBits = nodeBits;
+			this.node = node;
+			this.customEpoch = customEpoch;
+		}
+
+		/**
+		 * Returns the configuration of a factory with the default epoch.
+		 * 
+		 * @param nodeBits the number of bits of the node identifier, from 0 to 20
+		 * @param node     the node identifier, from 0 to 2^nodeBits-1
+		 * @return a configuration
+		 * @throws IllegalArgumentException if an argument is out of range
+		 */
+		public static Key of(final int nodeBits, final int node) {
+			return of(nodeBits, node, Instant.ofEpochMilli(TSID.TSID_EPOCH));
+		}
+
+		/**
+		 * Returns the configuration of a factory with a custom epoch.
+		 * 
+		 * @param nodeBits    the number of bits of the node identifier, from 0 to 20
+		 * @param node        the node identifier, from 0 to 2^nodeBits-1
+		 * @param customEpoch the custom epoch
+		 * @return a configuration
+		 * @throws IllegalArgumentException if an argument is out of range
+		 */
+		public static Key of(final int nodeBits, final int node, final Instant customEpoch) {
+			if (nodeBits < 0 || nodeBits > 20) {
+				throw new IllegalArgumentException(String.format("Node bits out of range [0, 20]: %s", nodeBits));
+			}
+			if (node < 0 || node >= 1 << nodeBits) {
+				throw new IllegalArgumentException(
+						String.format("Node ID out of range [0, %s]: %s", (1 << nodeBits) - 1, node));
+			}
+			return new Key(nodeBits, node, customEpoch.toEpochMilli());
+		}
+
+		@Override
+		public boolean equals(final Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (other == null || other.getClass() != Key.class) {
+				return false;
+			}
+			final Key that = (Key) other;
+			return this.nodeBits == that.nodeBits && this.node == that.node && this.customEpoch == that.customEpoch;
+		}
+
+		@Override
+		public int hashCode() {
+			return (nodeBits * 31 + node) * 31 + Long.hashCode(customEpoch);
+		}
+
+		@Override
+		public String toString() {
+			return "Key[nodeBits=" + nodeBits + ", node=" + node + ", customEpoch="
+					+ Instant.ofEpochMilli(customEpoch) + "]";
+		}
+	}
+
+	/**
+	 * A builder of {@link TsidFactoryRegistry}.
+	 */
+	public static final class Builder {
+
+		private int maximumSize = 10_000;
+		private long expireAfterAccess = Long.MAX_VALUE;
+		private Random random;
+		private Clock clock;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the maximum number of factories, 10,000 by default.
+		 * 
+		 * @param maximumSize the maximum number of factories
+		 * @return this builder
+		 * @throws IllegalArgumentException if the size is less than 1
+		 */
+		public Builder withMaximumSize(final int maximumSize) {
+			if (maximumSize < 1) {
+				throw new IllegalArgumentException(String.format("Invalid maximum size: %s", maximumSize));
+			}
+			this.maximumSize = maximumSize;
+			return this;
+		}
+
+		/**
+		 * Sets the time after which an unused factory is evicted. By default,
+		 * factories are only evicted when the registry is full.
+		 * 
+		 * @param expireAfterAccess the idle time
+		 * @return this builder
+		 * @throws IllegalArgumentException if the duration is not positive
+		 */
+		public Builder withExpireAfterAccess(final Duration expireAfterAccess) {
+			if (expireAfterAccess.isNegative() || expireAfterAccess.isZero()) {
+				throw new IllegalArgumentException(String.format("Invalid expiry: %s", expireAfterAccess));
+			}
+			this.expireAfterAccess = expireAfterAccess.toMillis();
+			return this;
+		}
+
+		/**
+		 * Sets the random generator shared by the factories. It must be
+		 * thread-safe. By default, the factories use the random generator that all
+		 * factories share.
+		 * 
+		 * @param random a random generator
+		 * @return this builder
+		 */
+		public Builder withRandom(final Random random) {
+			this.random = random;
+			return this;
+		}
+
+		/**
+		 * Sets the clock of the registry and its factories, to be used in tests.
+		 * 
+		 * @param clock a clock
+		 * @return this builder
+		 */
+		public Builder withClock(final Clock clock) {
+			this.clock = clock;
+			return this;
+		}
+
+		/**
+		 * Builds a registry.
+		 * 
+		 * @return a registry
+		 */
+		public TsidFactoryRegistry build() {
+			return new TsidFactoryRegistry(this);
+		}
+	}
+}
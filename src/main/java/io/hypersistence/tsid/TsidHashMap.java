@@ -0,0 +1,402 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.function.LongFunction;
+
+/**
+ * A hash map from TSIDs stored as primitive longs to values.
+ * <p>
+ * It uses open addressing with linear probing in two parallel arrays, so it
+ * takes 12 to 24 bytes per entry with compressed references, instead of about
+ * 80 bytes for a {@code HashMap<TSID, V>}. The keys are mixed the same way as
+ * in {@link TsidHashSet}.
+ * <p>
+ * Null values are not allowed, so that {@link #get(long)} returning null means
+ * that there is no mapping.
+ * <p>
+ * This class is not thread-safe. The map must not be modified while it is
+ * being iterated.
+ * 
+ * @param <V> the type of the values
+ */
+public final class TsidHashMap<V> {
+
+	// zero marks a free slot, so the zero TSID is kept apart
+	private static final long FREE = 0L;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int threshold;
+	private int used;
+	private Object zeroValue;
+
+	/**
+	 * An action performed on each entry of a map.
+	 * 
+	 * @param <V> the type of the values
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer<V> {
+		/**
+		 * Performs the action on an entry.
+		 * 
+		 * @param tsid  the key
+		 * @param value the value
+		 */
+		void accept(long tsid, V value);
+	}
+
+	/**
+	 * Creates an empty map.
+	 */
+	public TsidHashMap() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty map that holds a number of entries without growing.
+	 * 
+	 * @param expected the expected number of entries
+	 * @throws IllegalArgumentException if the expected size is negative or too
+	 *                                  large
+	 */
+	public TsidHashMap(final int expected) {
+		allocate(Hashing.capacity(expected));
+	}
+
+	/**
+	 * Returns the value mapped to a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return the value, or null if there is none
+	 */
+	public V get(final long tsid) {
+		return getOrDefault(tsid, null);
+	}
+
+	/**
+	 * Returns the value mapped to a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return the value, or null if there is none
+	 */
+	public V get(final TSID tsid) {
+		return get(tsid.toLong());
+	}
+
+	/**
+	 * Returns the value mapped to a TSID, or a default value.
+	 * 
+	 * @param tsid         a TSID
+	 * @param defaultValue the value returned if there is no mapping
+	 * @return the value, or the default value if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(final long tsid, final V defaultValue) {
+		if (tsid == FREE) {
+			return zeroValue != null ? (V) zeroValue : defaultValue;
+		}
+		final int i = find(tsid);
+		return i >= 0 ? (V) values[i] : defaultValue;
+	}
+
+	/**
+	 * Checks if the map contains a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the map contains the TSID
+	 */
+	public boolean containsKey(final long tsid) {
+		return tsid == FREE ? zeroValue != null : find(tsid) >= 0;
+	}
+
+	/**
+	 * Maps a TSID to a value.
+	 * 
+	 * @param tsid  a TSID
+	 * @param value a value
+	 * @return the previous value, or null if there was none
+	 * @throws NullPointerException if the value is null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(final long tsid, final V value) {
+		Objects.requireNonNull(value, "value");
+		if (tsid == FREE) {
+			final V previous = (V) zeroValue;
+			zeroValue = value;
+			return previous;
+		}
+		int i = index(tsid);
+		for (long key; (key = keys[i]) != FREE; i = (i + 1) & mask) {
+			if (key == tsid) {
+				final V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+		insert(i, tsid, value);
+		return null;
+	}
+
+	/**
+	 * Maps a TSID to a value.
+	 * 
+	 * @param tsid  a TSID
+	 * @param value a value
+	 * @return the previous value, or null if there was none
+	 * @throws NullPointerException if the value is null
+	 */
+	public V put(final TSID tsid, final V value) {
+		return put(tsid.toLong(), value);
+	}
+
+	/**
+	 * Maps a TSID to a value unless it is already mapped.
+	 * 
+	 * @param tsid  a TSID
+	 * @param value a value
+	 * @return the current value, or null if there was none
+	 * @throws NullPointerException if the value is null
+	 */
+	public V putIfAbsent(final long tsid, final V value) {
+		Objects.requireNonNull(value, "value");
+		final V current = get(tsid);
+		return current != null ? current : put(tsid, value);
+	}
+
+	/**
+	 * Returns the value mapped to a TSID, computing and mapping it if there is
+	 * none.
+	 * 
+	 * @param tsid     a TSID
+	 * @param function a function that computes a value from the TSID
+	 * @return the current or the computed value, or null if the function returned
+	 *         null
+	 */
+	@SuppressWarnings("unchecked")
+	public V computeIfAbsent(final long tsid, final LongFunction<? extends V> function) {
+		if (tsid == FREE) {
+			if (zeroValue == null) {
+				zeroValue = function.apply(tsid);
+			}
+			return (V) zeroValue;
+		}
+		int i = index(tsid);
+		for (long key; (key = keys[i]) != FREE; i = (i + 1) & mask) {
+			if (key == tsid) {
+				return (V) values[i];
+			}
+		}
+		final V value = function.apply(tsid);
+		if (value != null) {
+			insert(i, tsid, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Removes the mapping of a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return the previous value, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(final long tsid) {
+		if (tsid == FREE) {
+			final V previous = (V) zeroValue;
+			zeroValue = null;
+			return previous;
+		}
+		final int i = find(tsid);
+		if (i < 0) {
+			return null;
+		}
+		final V previous = (V) values[i];
+		shift(i);
+		used--;
+		return previous;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 * 
+	 * @return the number of entries
+	 */
+	public int size() {
+		return zeroValue != null ? used + 1 : used;
+	}
+
+	/**
+	 * Checks if the map is empty.
+	 * 
+	 * @return true if the map contains no entry
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Removes all entries, keeping the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(keys, FREE);
+		Arrays.fill(values, null);
+		used = 0;
+		zeroValue = null;
+	}
+
+	/**
+	 * Performs an action for each entry, in no particular order.
+	 * 
+	 * @param action an action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(final EntryConsumer<? super V> action) {
+		if (zeroValue != null) {
+			action.accept(FREE, (V) zeroValue);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE) {
+				action.accept(keys[i], (V) values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns an iterator over the TSIDs, in no particular order.
+	 * 
+	 * @return an iterator
+	 */
+	public PrimitiveIterator.OfLong keyIterator() {
+		return new PrimitiveIterator.OfLong() {
+
+			private int index = zeroValue != null ? -1 : next(0);
+
+			@Override
+			public boolean hasNext() {
+				return index < keys.length;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final long key = index < 0 ? FREE : keys[index];
+				index = next(index + 1);
+				return key;
+			}
+
+			private int next(int i) {
+				while (i < keys.length && keys[i] == FREE) {
+					i++;
+				}
+				return i;
+			}
+		};
+	}
+
+	private int index(final long key) {
+		return (int) Hashing.mix(key) & mask;
+	}
+
+	private int find(final long tsid) {
+		for (int i = index(tsid);; i = (i + 1) & mask) {
+			final long key = keys[i];
+			if (key == tsid) {
+				return i;
+			}
+			if (key == FREE) {
+				return -1;
+			}
+		}
+	}
+
+	private void insert(int i, final long tsid, final V value) {
+		if (used >= threshold) {
+			// grown before the key is stored, so a full map is left unchanged
+			rehash(Hashing.grow(keys.length, "TSID map"));
+			i = index(tsid);
+			while (keys[i] != FREE) {
+				i = (i + 1) & mask;
+			}
+		}
+		keys[i] = tsid;
+		values[i] = value;
+		used++;
+	}
+
+	/**
+	 * Fills the slot of a removed key by shifting back the entries that follow it
+	 * in the same probe sequence, so that no tombstones are needed.
+	 */
+	private void shift(int gap) {
+		for (int i = (gap + 1) & mask;; i = (i + 1) & mask) {
+			final long key = keys[i];
+			if (key == FREE) {
+				break;
+			}
+			// move the entry if the gap is between its home slot and its slot
+			if (((i - index(key)) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = key;
+				values[gap] = values[i];
+				gap = i;
+			}
+		}
+		keys[gap] = FREE;
+		values[gap] = null;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] oldKeys = keys;
+		final Object[] oldValues = values;
+		allocate(capacity);
+		for (int j = 0; j < oldKeys.length; j++) {
+			final long key = oldKeys[j];
+			if (key != FREE) {
+				int i = index(key);
+				while (keys[i] != FREE) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = key;
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		threshold = Hashing.threshold(capacity);
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A hash set of TSIDs stored as primitive longs.
+ * <p>
+ * It uses open addressing with linear probing in a single {@code long[]}, so
+ * it takes 8 to 16 bytes per TSID, instead of about 80 bytes for a
+ * {@code HashSet<TSID>}, which has a {@link TSID} object and a node per entry.
+ * The TSIDs are mixed by a MurmurHash3 finalizer before they are reduced to an
+ * index, because their upper bits change slowly and their lower bits are
+ * often sequential.
+ * <p>
+ * This class is not thread-safe. The set must not be modified while it is
+ * being iterated.
+ */
+public final class TsidHashSet {
+
+	// zero marks a free slot, so the zero TSID is kept apart
+	private static final long FREE = 0L;
+
+	private long[] keys;
+	private int mask;
+	private int threshold;
+	private int used;
+	private boolean hasZero;
+
+	/**
+	 * Creates an empty set.
+	 */
+	public TsidHashSet() {
+		this(0);
+	}
+
+	/**
+	 * Creates an empty set that holds a number of TSIDs without growing.
+	 * 
+	 * @param expected the expected number of TSIDs
+	 * @throws IllegalArgumentException if the expected size is negative or too
+	 *                                  large
+	 */
+	public TsidHashSet(final int expected) {
+		allocate(Hashing.capacity(expected));
+	}
+
+	/**
+	 * Adds a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set did not contain the TSID
+	 */
+	public boolean add(final long tsid) {
+		if (tsid == FREE) {
+			final boolean added = !hasZero;
+			hasZero = true;
+			return added;
+		}
+		int i = index(tsid);
+		for (long key; (key = keys[i]) != FREE; i = (i + 1) & mask) {
+			if (key == tsid) {
+				return false;
+			}
+		}
+		if (used >= threshold) {
+			// grown before the key is stored, so a full set is left unchanged
+			rehash(Hashing.grow(keys.length, "TSID set"));
+			return add(tsid);
+		}
+		keys[i] = tsid;
+		used++;
+		return true;
+	}
+
+	/**
+	 * Adds a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set did not contain the TSID
+	 */
+	public boolean add(final TSID tsid) {
+		return add(tsid.toLong());
+	}
+
+	/**
+	 * Checks if the set contains a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set contains the TSID
+	 */
+	public boolean contains(final long tsid) {
+		if (tsid == FREE) {
+			return hasZero;
+		}
+		for (int i = index(tsid);; i = (i + 1) & mask) {
+			final long key = keys[i];
+			if (key == tsid) {
+				return true;
+			}
+			if (key == FREE) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Checks if the set contains a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set contains the TSID
+	 */
+	public boolean contains(final TSID tsid) {
+		return contains(tsid.toLong());
+	}
+
+	/**
+	 * Removes a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set contained the TSID
+	 */
+	public boolean remove(final long tsid) {
+		if (tsid == FREE) {
+			final boolean removed = hasZero;
+			hasZero = false;
+			return removed;
+		}
+		for (int i = index(tsid);; i = (i + 1) & mask) {
+			final long key = keys[i];
+			if (key == tsid) {
+				shift(i);
+				used--;
+				return true;
+			}
+			if (key == FREE) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Removes a TSID.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the set contained the TSID
+	 */
+	public boolean remove(final TSID tsid) {
+		return remove(tsid.toLong());
+	}
+
+	/**
+	 * Returns the number of TSIDs.
+	 * 
+	 * @return the number of TSIDs
+	 */
+	public int size() {
+		return hasZero ? used + 1 : used;
+	}
+
+	/**
+	 * Checks if the set is empty.
+	 * 
+	 * @return true if the set contains no TSID
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Removes all TSIDs, keeping the capacity.
+	 */
+	public void clear() {
+		Arrays.fill(keys, FREE);
+		used = 0;
+		hasZero = false;
+	}
+
+	/**
+	 * Performs an action for each TSID, in no particular order.
+	 * 
+	 * @param action an action
+	 */
+	public void forEach(final LongConsumer action) {
+		if (hasZero) {
+			action.accept(FREE);
+		}
+		for (long key : keys) {
+			if (key != FREE) {
+				action.accept(key);
+			}
+		}
+	}
+
+	/**
+	 * Returns an iterator over the TSIDs, in no particular order.
+	 * 
+	 * @return an iterator
+	 */
+	public PrimitiveIterator.OfLong iterator() {
+		return new PrimitiveIterator.OfLong() {
+
+			private int index = hasZero ? -1 : next(0);
+
+			@Override
+			public boolean hasNext() {
+				return index < keys.length;
+			}
+
+			@Override
+			public long nextLong() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				final long key = index < 0 ? FREE : keys[index];
+				index = next(index + 1);
+				return key;
+			}
+
+			private int next(int i) {
+				while (i < keys.length && keys[i] == FREE) {
+					i++;
+				}
+				return i;
+			}
+		};
+	}
+
+	/**
+	 * Returns the TSIDs as an array, in no particular order.
+	 * 
+	 * @return an array
+	 */
+	public long[] toArray() {
+		final long[] array = new long[size()];
+		int j = 0;
+		if (hasZero) {
+			array[j++] = FREE;
+		}
+		for (long key : keys) {
+			if (key != FREE) {
+				array[j++] = key;
+			}
+		}
+		return array;
+	}
+
+	private int index(final long key) {
+		return (int) Hashing.mix(key) & mask;
+	}
+
+	/**
+	 * Fills the slot of a removed key by shifting back the keys that follow it in
+	 * the same probe sequence, so that no tombstones are needed.
+	 */
+	private void shift(int gap) {
+		for (int i = (gap + 1) & mask;; i = (i + 1) & mask) {
+			final long key = keys[i];
+			if (key == FREE) {
+				break;
+			}
+			// move the key if the gap is between its home slot and its slot
+			if (((i - index(key)) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = key;
+				gap = i;
+			}
+		}
+		keys[gap] = FREE;
+	}
+
+	private void rehash(final int capacity) {
+		final long[] old = keys;
+		allocate(capacity);
+		for (long key : old) {
+			if (key != FREE) {
+				int i = index(key);
+				while (keys[i] != FREE) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = key;
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		threshold = Hashing.threshold(capacity);
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A list of TSIDs backed by an array of longs.
+ * <p>
+ * It takes 8 bytes per TSID in memory, and it is serialized as a count followed
+ * by raw longs, which is several times smaller and faster than a serialized
+ * {@code ArrayList<TSID>}.
+ * <p>
+ * The {@link TSID} objects returned by {@link #get(int)} are created on demand.
+ * Use {@link #getLong(int)} and {@link #addLong(long)} to avoid them.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TsidList extends AbstractList<TSID> implements RandomAccess, Externalizable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int DEFAULT_CAPACITY = 10;
+
+	// the number of longs written or read at once
+	private static final int CHUNK = 1024;
+
+	private long[] numbers;
+	private int size;
+
+	/**
+	 * Creates an empty list.
+	 */
+	public TsidList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty list with an initial capacity.
+	 * 
+	 * @param capacity the initial capacity
+	 * @throws IllegalArgumentException if the capacity is negative
+	 */
+	public TsidList(final int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException(String.format("Invalid capacity: %s", capacity));
+		}
+		this.numbers = new long[capacity];
+	}
+
+	/**
+	 * Creates a list with the TSIDs of a collection.
+	 * 
+	 * @param tsids a collection of TSIDs
+	 */
+	public TsidList(final Collection<? extends TSID> tsids) {
+		this(tsids.size());
+		for (TSID tsid : tsids) {
+			this.numbers[this.size++] = tsid.toLong();
+		}
+	}
+
+	/**
+	 * Creates a list with a copy of an array of TSIDs.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @return a list
+	 */
+	public static TsidList of(final long... tsids) {
+		final TsidList list = new TsidList(0);
+		list.numbers = tsids.clone();
+		list.size = tsids.length;
+		return list;
+	}
+
+	@Override
+	public TSID get(final int index) {
+		return new TSID(getLong(index));
+	}
+
+	/**
+	 * Returns the TSID at an index as a number.
+	 * 
+	 * @param index an index
+	 * @return a number
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public long getLong(final int index) {
+		checkIndex(index, this.size);
+		return this.numbers[index];
+	}
+
+	@Override
+	public TSID set(final int index, final TSID tsid) {
+		return new TSID(setLong(index, tsid.toLong()));
+	}
+
+	/**
+	 * Replaces the TSID at an index.
+	 * 
+	 * @param index an index
+	 * @param tsid  a TSID number
+	 * @return the previous TSID number
+	 * @throws IndexOutOfBoundsException if the index is out of range
+	 */
+	public long setLong(final int index, final long tsid) {
+		checkIndex(index, this.size);
+		final long previous = this.numbers[index];
+		this.numbers[index] = tsid;
+		return previous;
+	}
+
+	@Override
+	public boolean add(final TSID tsid) {
+		return addLong(tsid.toLong());
+	}
+
+	/**
+	 * Appends a TSID.
+	 * 
+	 * @param tsid a TSID number
+	 * @return true
+	 */
+	public boolean addLong(final long tsid) {
+		grow(this.size + 1);
+		this.numbers[this.size++] = tsid;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public void add(final int index, final TSID tsid) {
+		checkIndex(index, this.size + 1);
+		grow(this.size + 1);
+		System.arraycopy(this.numbers, index, this.numbers, index + 1, this.size - index);
+		this.numbers[index] = tsid.toLong();
+		this.size++;
+		this.modCount++;
+	}
+
+	@Override
+	public TSID remove(final int index) {
+		checkIndex(index, this.size);
+		final long previous = this.numbers[index];
+		System.arraycopy(this.numbers, index + 1, this.numbers, index, this.size - index - 1);
+		this.size--;
+		this.modCount++;
+		return new TSID(previous);
+	}
+
+	@Override
+	public void clear() {
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns a copy of the TSIDs as numbers.
+	 * 
+	 * @return an array of numbers
+	 */
+	public long[] toLongArray() {
+		return Arrays.copyOf(this.numbers, this.size);
+	}
+
+	/**
+	 * Writes the count followed by the TSIDs as raw big-endian longs.
+	 */
+	@Override
+	public void writeExternal(final ObjectOutput out) throws IOException {
+		out.writeInt(this.size);
+		final byte[] bytes = new byte[Math.min(this.size, CHUNK) * TSID.TSID_BYTES];
+		for (int i = 0; i < this.size; i += CHUNK) {
+			final int count = Math.min(this.size - i, CHUNK);
+			for (int j = 0; j < count; j++) {
+				Platform.putLong(bytes, j * TSID.TSID_BYTES, this.numbers[i + j]);
+			}
+			out.write(bytes, 0, count * TSID.TSID_BYTES);
+		}
+	}
+
+	@Override
+	public void readExternal(final ObjectInput in) throws IOException {
+		final int count = in.readInt();
+		if (count < 0) {
+			throw new InvalidObjectException(String.format("Invalid TSID count: %s", count));
+		}
+		// grow as the data arrives, so a corrupt count can't allocate too much
+		this.numbers = new long[Math.min(count, CHUNK)];
+		this.size = 0;
+		final byte[] bytes = new byte[Math.min(count, CHUNK) * TSID.TSID_BYTES];
+		for (int i = 0; i < count; i += CHUNK) {
+			final int chunk = Math.min(count - i, CHUNK);
+			in.readFully(bytes, 0, chunk * TSID.TSID_BYTES);
+			grow(this.size + chunk);
+			for (int j = 0; j < chunk; j++) {
+				this.numbers[this.size++] = Platform.getLong(bytes, j * TSID.TSID_BYTES);
+			}
+		}
+	}
+
+	private void grow(final int capacity) {
+		if (capacity > this.numbers.length) {
+			final int length = Math.max(capacity, this.numbers.length + (this.numbers.length >> 1));
+			this.numbers = Arrays.copyOf(this.numbers, length);
+		}
+	}
+
+	private static void checkIndex(final int index, final int size) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.format("Invalid index: %s (size: %s)", index, size));
+		}
+	}
+}
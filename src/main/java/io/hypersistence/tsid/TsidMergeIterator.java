@@ -0,0 +1,243 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+/**
+ * An iterator that merges sorted sources of TSIDs into a single sorted
+ * sequence.
+ * <p>
+ * Each source must be sorted in unsigned order, like
+ * {@link TSID#compareTo(TSID)}. The sources are merged with a loser tree, which
+ * takes about log2(k) comparisons per TSID for k sources, without boxing.
+ * <p>
+ * The watermark is the time component of the smallest TSID not delivered yet.
+ * Once it has moved past a millisecond, all TSIDs of that millisecond were
+ * delivered. An optional listener is called every time the watermark moves.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidMergeIterator merge = new TsidMergeIterator(sources, watermark -> {
+ *     // all TSIDs created before (TSID.TSID_EPOCH + watermark) were delivered
+ * });
+ * while (merge.hasNext()) {
+ *     long tsid = merge.nextLong();
+ * }
+ * }</pre>
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TsidMergeIterator implements PrimitiveIterator.OfLong {
+
+	/**
+	 * The watermark after all sources are exhausted.
+	 */
+	public static final long END_OF_SOURCES = Long.MAX_VALUE;
+
+	private final PrimitiveIterator.OfLong[] sources;
+	private final LongConsumer listener;
+
+	// the current TSID of each source
+	private final long[] heads;
+	private final boolean[] exhausted;
+
+	// the loser of each match, from the root at 1 to the leaves at k..2k-1
+	private final int[] losers;
+	private int winner;
+
+	private long watermark = -1;
+
+	/**
+	 * Creates an iterator that merges sorted sources.
+	 * 
+	 * @param sources sources of TSIDs sorted in unsigned order
+	 */
+	public TsidMergeIterator(final List<? extends PrimitiveIterator.OfLong> sources) {
+		this(sources, null);
+	}
+
+	/**
+	 * Creates an iterator that merges sorted sources and reports the watermark.
+	 * <p>
+	 * The listener receives the time component of the smallest TSID not delivered
+	 * yet, or {@link #END_OF_SOURCES}. It is called once at the start, and then
+	 * whenever the watermark moves forward.
+	 * 
+	 * @param sources  sources of TSIDs sorted in unsigned order
+	 * @param listener a watermark listener, or null
+	 */
+	public TsidMergeIterator(final List<? extends PrimitiveIterator.OfLong> sources, final LongConsumer listener) {
+
+		final int k = sources.size();
+		this.sources = sources.toArray(new PrimitiveIterator.OfLong[k]);
+		this.listener = listener;
+		this.heads = new long[k];
+		this.exhausted = new boolean[k];
+		this.losers = new int[Math.max(1, k)];
+
+		for (int i = 0; i < k; i++) {
+			fetch(i);
+		}
+
+		if (k > 0) {
+			// play all matches from the leaves up
+			final int[] winners = new int[2 * k];
+			for (int i = 0; i < k; i++) {
+				winners[k + i] = i;
+			}
+			for (int node = k - 1; node >= 1; node--) {
+				final int left = winners[2 * node];
+				final int right = winners[2 * node + 1];
+				if (beats(left, right)) {
+					winners[node] = left;
+					losers[node] = right;
+				} else {
+					winners[node] = right;
+					losers[node] = left;
+				}
+			}
+			this.winner = k == 1 ? 0 : winners[1];
+		}
+
+		updateWatermark();
+	}
+
+	/**
+	 * Creates an iterator that merges sorted sources.
+	 * 
+	 * @param sources sources of TSIDs sorted in unsigned order
+	 * @return an iterator
+	 */
+	public static TsidMergeIterator of(final PrimitiveIterator.OfLong... sources) {
+		return new TsidMergeIterator(Arrays.asList(sources));
+	}
+
+	@Override
+	public boolean hasNext() {
+		return heads.length > 0 && !exhausted[winner];
+	}
+
+	/**
+	 * Returns the smallest TSID of all sources.
+	 * 
+	 * @return a TSID
+	 * @throws NoSuchElementException if all sources are exhausted
+	 * @throws IllegalStateException  if a source is not sorted, after which the
+	 *                                iterator can't be used
+	 */
+	@Override
+	public long nextLong() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		final int source = winner;
+		final long tsid = heads[source];
+		fetch(source);
+		if (!exhausted[source] && Platform.compareUnsigned(heads[source], tsid) < 0) {
+			throw new IllegalStateException(String.format("Source %s is not sorted: %s after %s", source,
+					TSID.from(heads[source]), TSID.from(tsid)));
+		}
+
+		// replay the matches from the leaf of the source to the root
+		int candidate = source;
+		for (int node = (source + heads.length) >>> 1; node >= 1; node >>>= 1) {
+			if (beats(losers[node], candidate)) {
+				final int swap = losers[node];
+				losers[node] = candidate;
+				candidate = swap;
+			}
+		}
+		winner = candidate;
+
+		updateWatermark();
+		return tsid;
+	}
+
+	/**
+	 * Returns the smallest TSID of all sources.
+	 * 
+	 * @return a TSID
+	 * @throws NoSuchElementException if all sources are exhausted
+	 * @throws IllegalStateException  if a source is not sorted
+	 */
+	public TSID nextTsid() {
+		return TSID.from(nextLong());
+	}
+
+	/**
+	 * Returns the time component of the smallest TSID not delivered yet.
+	 * <p>
+	 * All TSIDs with a smaller time component were delivered.
+	 * 
+	 * @return a number of milliseconds since the epoch of the TSIDs, or
+	 *         {@link #END_OF_SOURCES}
+	 */
+	public long getWatermark() {
+		return watermark;
+	}
+
+	private void fetch(final int source) {
+		if (sources[source].hasNext()) {
+			heads[source] = sources[source].nextLong();
+		} else {
+			exhausted[source] = true;
+			sources[source] = null;
+		}
+	}
+
+	/**
+	 * Checks if a source wins over another, that is, if its TSID is smaller.
+	 * <p>
+	 * Ties are won by the first source, so that the merge is stable.
+	 */
+	private boolean beats(final int a, final int b) {
+		if (exhausted[b]) {
+			return !exhausted[a] || a < b;
+		}
+		if (exhausted[a]) {
+			return false;
+		}
+		final int comparison = Platform.compareUnsigned(heads[a], heads[b]);
+		return comparison < 0 || (comparison == 0 && a < b);
+	}
+
+	private void updateWatermark() {
+		final long current = hasNext() ? heads[winner] >>> TSID.RANDOM_BITS : END_OF_SOURCES;
+		if (current > watermark) {
+			watermark = current;
+			if (listener != null) {
+				listener.accept(current);
+			}
+		}
+	}
+}
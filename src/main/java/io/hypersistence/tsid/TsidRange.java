@@ -0,0 +1,360 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An inclusive range of TSIDs, from the smallest to the largest TSID that can
+ * be created in a time window.
+ * <p>
+ * As the creation time is in the upper bits of a TSID, a query on a time window
+ * can be done on the primary key, without a separate timestamp column:
+ * 
+ * <pre>{@code
+ * TsidRange range = TsidRange.between(from, to);
+ * 
+ * // SELECT * FROM event WHERE id BETWEEN ? AND ?
+ * statement.setLong(1, range.getMin());
+ * statement.setLong(2, range.getMax());
+ * }</pre>
+ * <p>
+ * A range can be split into sub-ranges of equal size with {@link #split(int)},
+ * to scan them in parallel.
+ * <p>
+ * TSIDs are compared as unsigned numbers, like {@link TSID#compareTo(TSID)}.
+ * TSIDs of the default epoch stay positive until the year 2089, so they can
+ * also be compared as signed numbers, as databases do.
+ */
+public final class TsidRange {
+
+	private static final long MAX_TIME = (1L << (Long.SIZE - TSID.RANDOM_BITS)) - 1;
+
+	private final long min;
+	private final long max;
+
+	private TsidRange(final long min, final long max) {
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * Returns the range of TSIDs between two TSIDs.
+	 * 
+	 * @param min the smallest TSID, inclusive
+	 * @param max the largest TSID, inclusive
+	 * @return a range
+	 * @throws IllegalArgumentException if min is greater than max
+	 */
+	public static TsidRange of(final long min, final long max) {
+		if (Platform.compareUnsigned(min, max) > 0) {
+			throw new IllegalArgumentException(
+					String.format("Invalid range: [%s, %s]", TSID.from(min), TSID.from(max)));
+		}
+		return new TsidRange(min, max);
+	}
+
+	/**
+	 * Returns the range of TSIDs created in the millisecond of an instant.
+	 * 
+	 * @param instant an instant
+	 * @return a range
+	 * @throws IllegalArgumentException if the instant is out of the TSID time range
+	 */
+	public static TsidRange of(final Instant instant) {
+		return of(instant, Instant.ofEpochMilli(TSID.TSID_EPOCH));
+	}
+
+	/**
+	 * Returns the range of TSIDs created in the millisecond of an instant, with a
+	 * custom epoch.
+	 * 
+	 * @param instant     an instant
+	 * @param customEpoch the custom epoch instant
+	 * @return a range
+	 * @throws IllegalArgumentException if the instant is out of the TSID time range
+	 */
+	public static TsidRange of(final Instant instant, final Instant customEpoch) {
+		final long time = time(instant, customEpoch, MAX_TIME);
+		return new TsidRange(time << TSID.RANDOM_BITS, (time << TSID.RANDOM_BITS) | TSID.RANDOM_MASK);
+	}
+
+	/**
+	 * Returns the range of TSIDs created in a time window.
+	 * 
+	 * @param from the start of the window, inclusive
+	 * @param to   the end of the window, exclusive
+	 * @return a range
+	 * @throws IllegalArgumentException if the window is empty or out of the TSID
+	 *                                  time range
+	 */
+	public static TsidRange between(final Instant from, final Instant to) {
+		return between(from, to, Instant.ofEpochMilli(TSID.TSID_EPOCH));
+	}
+
+	/**
+	 * Returns the range of TSIDs created in a time window, with a custom epoch.
+	 * 
+	 * @param from        the start of the window, inclusive
+	 * @param to          the end of the window, exclusive
+	 * @param customEpoch the custom epoch instant
+	 * @return a range
+	 * @throws IllegalArgumentException if the window is empty or out of the TSID
+	 *                                  time range
+	 */
+	public static TsidRange between(final Instant from, final Instant to, final Instant customEpoch) {
+		final long start = time(from, customEpoch, MAX_TIME);
+		final long end = time(to, customEpoch, MAX_TIME + 1);
+		if (start >= end) {
+			throw new IllegalArgumentException(String.format("Invalid window: [%s, %s)", from, to));
+		}
+		// the end of the last millisecond overflows to -1 as expected
+		return new TsidRange(start << TSID.RANDOM_BITS, (end << TSID.RANDOM_BITS) - 1);
+	}
+
+	/**
+	 * Returns the smallest TSID of the range.
+	 * 
+	 * @return a number
+	 */
+	public long getMin() {
+		return min;
+	}
+
+	/**
+	 * Returns the largest TSID of the range.
+	 * 
+	 * @return a number
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the smallest TSID of the range.
+	 * 
+	 * @return a TSID
+	 */
+	public TSID getMinTsid() {
+		return TSID.from(min);
+	}
+
+	/**
+	 * Returns the largest TSID of the range.
+	 * 
+	 * @return a TSID
+	 */
+	public TSID getMaxTsid() {
+		return TSID.from(max);
+	}
+
+	/**
+	 * Checks if a TSID is in the range.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID is in the range
+	 */
+	public boolean contains(final long tsid) {
+		return Platform.compareUnsigned(tsid, min) >= 0 && Platform.compareUnsigned(tsid, max) <= 0;
+	}
+
+	/**
+	 * Checks if a TSID is in the range.
+	 * 
+	 * @param tsid a TSID
+	 * @return true if the TSID is in the range
+	 */
+	public boolean contains(final TSID tsid) {
+		return contains(tsid.toLong());
+	}
+
+	/**
+	 * Splits the range into contiguous sub-ranges of equal size.
+	 * <p>
+	 * The sizes differ by at most one. If the range has fewer TSIDs than parts,
+	 * there is one sub-range per TSID.
+	 * 
+	 * @param parts the number of sub-ranges
+	 * @return a list of sub-ranges, in ascending order
+	 * @throws IllegalArgumentException if the number of parts is less than 1
+	 */
+	public List<TsidRange> split(final int parts) {
+		if (parts < 1) {
+			throw new IllegalArgumentException(String.format("Invalid number of parts: %s", parts));
+		}
+
+		// span = size - 1 = quotient * parts + remainder
+		final long span = max - min;
+		final long quotient = Platform.divideUnsigned(span, parts);
+		final long remainder = span - quotient * parts;
+
+		// the first (remainder + 1) sub-ranges take one more TSID
+		final int count = quotient == 0 ? (int) remainder + 1 : parts;
+		final List<TsidRange> ranges = new ArrayList<>(count);
+		long start = min;
+		for (int i = 0; i < count; i++) {
+			final long end = i <= remainder ? start + quotient : start + quotient - 1;
+			ranges.add(new TsidRange(start, end));
+			start = end + 1;
+		}
+		return ranges;
+	}
+
+	/**
+	 * Returns a spliterator over the TSIDs of the range, in ascending order.
+	 * <p>
+	 * It splits the range in halves, so that each thread of a parallel stream
+	 * receives a contiguous sub-range.
+	 * 
+	 * @return a spliterator
+	 */
+	public Spliterator.OfLong spliterator() {
+		return new RangeSpliterator(min, max);
+	}
+
+	/**
+	 * Returns a stream of the TSIDs of the range, in ascending order.
+	 * 
+	 * @return a sequential stream
+	 */
+	public LongStream stream() {
+		return StreamSupport.longStream(spliterator(), false);
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (other == null || other.getClass() != TsidRange.class) {
+			return false;
+		}
+		final TsidRange that = (TsidRange) other;
+		return this.min == that.min && this.max == that.max;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(min) * 31 + Long.hashCode(max);
+	}
+
+	@Override
+	public String toString() {
+		return "[" + TSID.from(min) + ", " + TSID.from(max) + "]";
+	}
+
+	private static long time(final Instant instant, final Instant customEpoch, final long limit) {
+		try {
+			final long time = Math.subtractExact(instant.toEpochMilli(), customEpoch.toEpochMilli());
+			if (time >= 0 && time <= limit) {
+				return time;
+			}
+		} catch (ArithmeticException e) {
+			// out of range
+		}
+		throw new IllegalArgumentException(String.format("Invalid instant: %s", instant));
+	}
+
+	private static final class RangeSpliterator implements Spliterator.OfLong {
+
+		private long next;
+		private final long last;
+		private boolean done;
+
+		private RangeSpliterator(final long next, final long last) {
+			this.next = next;
+			this.last = last;
+		}
+
+		@Override
+		public boolean tryAdvance(final LongConsumer action) {
+			if (done) {
+				return false;
+			}
+			final long tsid = next;
+			if (tsid == last) {
+				done = true;
+			} else {
+				next++;
+			}
+			action.accept(tsid);
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(final LongConsumer action) {
+			if (done) {
+				return;
+			}
+			done = true;
+			for (long tsid = next; tsid != last; tsid++) {
+				action.accept(tsid);
+			}
+			action.accept(last);
+		}
+
+		@Override
+		public Spliterator.OfLong trySplit() {
+			if (done || next == last) {
+				return null;
+			}
+			final long middle = next + ((last - next) >>> 1);
+			final RangeSpliterator prefix = new RangeSpliterator(next, middle);
+			next = middle + 1;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			if (done) {
+				return 0;
+			}
+			final long size = last - next + 1;
+			return size > 0 ? size : Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			final int characteristics = ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+			final long size = last - next + 1;
+			return size > 0 ? characteristics | SIZED | SUBSIZED : characteristics;
+		}
+
+		@Override
+		public Comparator<? super Long> getComparator() {
+			// the natural order is signed, which differs if the range crosses the sign bit
+			return (next ^ last) < 0 ? (Comparator<Long>) Platform::compareUnsigned : null;
+		}
+	}
+}
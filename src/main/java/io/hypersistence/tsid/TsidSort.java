@@ -0,0 +1,393 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorting of TSID arrays in unsigned order.
+ * <p>
+ * {@link java.util.Arrays#sort(long[])} sorts in signed order, which puts
+ * TSIDs with the upper bit set first. These methods sort in the order of
+ * {@link TSID#compareTo(TSID)}, without creating TSID objects.
+ * <ul>
+ * <li>{@link #sort(long[])} checks if the array is nearly sorted, which is
+ * common with TSIDs that arrive slightly out of order, and falls back to a radix
+ * sort otherwise;
+ * <li>{@link #radixSort(long[])} is a least significant digit radix sort that
+ * skips the bytes that are equal in all TSIDs, such as the upper bytes of the
+ * time component;
+ * <li>{@link #parallelSort(long[])} sorts parts of the array in parallel and
+ * merges them in parallel.
+ * </ul>
+ */
+public final class TsidSort {
+
+	// below this length insertion sort is faster than radix sort
+	private static final int INSERTION_SORT_THRESHOLD = 64;
+
+	// below this length a parallel sort is not worth it
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	// the number of element moves per element allowed before giving up on insertion sort
+	private static final int NEARLY_SORTED_MOVES = 8;
+
+	private static final int RADIX = 256;
+
+	private TsidSort() {
+	}
+
+	/**
+	 * Sorts an array of TSIDs in unsigned order.
+	 * <p>
+	 * An array that is nearly sorted is sorted in linear time.
+	 * 
+	 * @param tsids an array of TSIDs
+	 */
+	public static void sort(final long[] tsids) {
+		sort(tsids, 0, tsids.length);
+	}
+
+	/**
+	 * Sorts a range of an array of TSIDs in unsigned order.
+	 * <p>
+	 * A range that is nearly sorted is sorted in linear time.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @param from  the index of the first TSID, inclusive
+	 * @param to    the index of the last TSID, exclusive
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static void sort(final long[] tsids, final int from, final int to) {
+		checkRange(tsids.length, from, to);
+		if (to - from < INSERTION_SORT_THRESHOLD) {
+			insertionSort(tsids, from, to, Long.MAX_VALUE);
+			return;
+		}
+		// insertion sort takes one move per inversion, so it gives up if there are too many
+		if (!insertionSort(tsids, from, to, (long) (to - from) * NEARLY_SORTED_MOVES)) {
+			radix(tsids, from, to);
+		}
+	}
+
+	/**
+	 * Sorts an array of TSIDs in unsigned order with a radix sort.
+	 * 
+	 * @param tsids an array of TSIDs
+	 */
+	public static void radixSort(final long[] tsids) {
+		radixSort(tsids, 0, tsids.length);
+	}
+
+	/**
+	 * Sorts a range of an array of TSIDs in unsigned order with a radix sort.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @param from  the index of the first TSID, inclusive
+	 * @param to    the index of the last TSID, exclusive
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static void radixSort(final long[] tsids, final int from, final int to) {
+		checkRange(tsids.length, from, to);
+		if (to - from < INSERTION_SORT_THRESHOLD) {
+			insertionSort(tsids, from, to, Long.MAX_VALUE);
+			return;
+		}
+		radix(tsids, from, to);
+	}
+
+	/**
+	 * Sorts an array of TSIDs in unsigned order, in parallel.
+	 * <p>
+	 * It uses the common fork-join pool.
+	 * 
+	 * @param tsids an array of TSIDs
+	 */
+	public static void parallelSort(final long[] tsids) {
+		parallelSort(tsids, 0, tsids.length);
+	}
+
+	/**
+	 * Sorts a range of an array of TSIDs in unsigned order, in parallel.
+	 * <p>
+	 * It uses the common fork-join pool.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @param from  the index of the first TSID, inclusive
+	 * @param to    the index of the last TSID, exclusive
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static void parallelSort(final long[] tsids, final int from, final int to) {
+		parallelSort(tsids, from, to, ForkJoinPool.commonPool());
+	}
+
+	static void parallelSort(final long[] tsids, final int from, final int to, final ForkJoinPool pool) {
+		checkRange(tsids.length, from, to);
+		if (to - from < PARALLEL_THRESHOLD || pool.getParallelism() < 2) {
+			sort(tsids, from, to);
+			return;
+		}
+		pool.invoke(new SortTask(tsids, new long[to - from], from, to, from));
+	}
+
+	/**
+	 * Checks if a range of an array of TSIDs is sorted in unsigned order.
+	 * 
+	 * @param tsids an array of TSIDs
+	 * @param from  the index of the first TSID, inclusive
+	 * @param to    the index of the last TSID, exclusive
+	 * @return true if the range is sorted
+	 * @throws IndexOutOfBoundsException if the range is out of bounds
+	 */
+	public static boolean isSorted(final long[] tsids, final int from, final int to) {
+		checkRange(tsids.length, from, to);
+		for (int i = from + 1; i < to; i++) {
+			if (less(tsids[i], tsids[i - 1])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sorts by insertion, unless it takes more moves than allowed.
+	 * <p>
+	 * The range is left partially sorted if it gives up.
+	 * 
+	 * @return true if the range was sorted
+	 */
+	private static boolean insertionSort(final long[] tsids, final int from, final int to, final long maxMoves) {
+		long moves = 0;
+		for (int i = from + 1; i < to; i++) {
+			final long tsid = tsids[i];
+			int j = i - 1;
+			if (!less(tsid, tsids[j])) {
+				continue;
+			}
+			do {
+				tsids[j + 1] = tsids[j];
+				j--;
+			} while (j >= from && less(tsid, tsids[j]));
+			tsids[j + 1] = tsid;
+			moves += i - j - 1;
+			if (moves > maxMoves) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sorts by the 8 bytes of the TSIDs, from the least to the most significant.
+	 * <p>
+	 * As bytes are unsigned, the result is in unsigned order.
+	 */
+	private static void radix(final long[] tsids, final int from, final int to) {
+
+		final int length = to - from;
+
+		// the histograms of all bytes in a single pass
+		final int[] counts = new int[Long.BYTES * RADIX];
+		for (int i = from; i < to; i++) {
+			final long tsid = tsids[i];
+			for (int b = 0; b < Long.BYTES; b++) {
+				counts[(b << 8) | (int) ((tsid >>> (b << 3)) & 0xff)]++;
+			}
+		}
+
+		long[] source = tsids;
+		long[] target = null;
+		int sourceOffset = from;
+		int targetOffset = 0;
+
+		for (int b = 0; b < Long.BYTES; b++) {
+			final int shift = b << 3;
+			final int base = b << 8;
+
+			// skip the bytes that are equal in all TSIDs
+			if (counts[base | (int) ((tsids[from] >>> shift) & 0xff)] == length) {
+				continue;
+			}
+
+			int offset = 0;
+			for (int i = 0; i < RADIX; i++) {
+				final int count = counts[base | i];
+				counts[base | i] = offset;
+				offset += count;
+			}
+
+			if (target == null) {
+				target = new long[length];
+			}
+			for (int i = 0; i < length; i++) {
+				final long tsid = source[sourceOffset + i];
+				target[targetOffset + counts[base | (int) ((tsid >>> shift) & 0xff)]++] = tsid;
+			}
+
+			final long[] swap = source;
+			source = target;
+			target = swap;
+			final int swapOffset = sourceOffset;
+			sourceOffset = targetOffset;
+			targetOffset = swapOffset;
+		}
+
+		if (source != tsids) {
+			System.arraycopy(source, sourceOffset, tsids, from, length);
+		}
+	}
+
+	/**
+	 * Merges two sorted ranges into a target range.
+	 */
+	private static void merge(final long[] source, int left, final int leftEnd, int right, final int rightEnd,
+			final long[] target, int index) {
+		while (left < leftEnd && right < rightEnd) {
+			target[index++] = less(source[right], source[left]) ? source[right++] : source[left++];
+		}
+		System.arraycopy(source, left, target, index, leftEnd - left);
+		System.arraycopy(source, right, target, index + leftEnd - left, rightEnd - right);
+	}
+
+	/**
+	 * Returns the index of the first TSID of a sorted range that is not less than
+	 * a key, or greater than it if {@code strict}.
+	 */
+	private static int search(final long[] tsids, int low, int high, final long key, final boolean strict) {
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (strict ? !less(key, tsids[middle]) : less(tsids[middle], key)) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static boolean less(final long a, final long b) {
+		return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+	}
+
+	private static void checkRange(final int length, final int from, final int to) {
+		if (from > to) {
+			throw new IndexOutOfBoundsException(String.format("Invalid range: [%s, %s)", from, to));
+		}
+		TSID.checkBounds(length, from, to - from);
+	}
+
+	/**
+	 * Sorts the two halves of a range in parallel, then merges them in parallel.
+	 * <p>
+	 * The buffer has the same length as the range, at an offset of
+	 * {@code from - base}.
+	 */
+	private static final class SortTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] tsids;
+		private final long[] buffer;
+		private final int from;
+		private final int to;
+		private final int base;
+
+		private SortTask(final long[] tsids, final long[] buffer, final int from, final int to, final int base) {
+			this.tsids = tsids;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.base = base;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from < PARALLEL_THRESHOLD) {
+				sort(tsids, from, to);
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			invokeAll(new SortTask(tsids, buffer, from, middle, base), new SortTask(tsids, buffer, middle, to, base));
+			if (!less(tsids[middle], tsids[middle - 1])) {
+				return; // already in order
+			}
+			new MergeTask(tsids, from, middle, middle, to, buffer, from - base).invoke();
+			System.arraycopy(buffer, from - base, tsids, from, to - from);
+		}
+	}
+
+	/**
+	 * Merges two sorted ranges by splitting the larger one at its middle and the
+	 * smaller one at the same key, and merging both pairs in parallel.
+	 */
+	private static final class MergeTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] source;
+		private final int left;
+		private final int leftEnd;
+		private final int right;
+		private final int rightEnd;
+		private final long[] target;
+		private final int index;
+
+		private MergeTask(final long[] source, final int left, final int leftEnd, final int right,
+				final int rightEnd, final long[] target, final int index) {
+			this.source = source;
+			this.left = left;
+			this.leftEnd = leftEnd;
+			this.right = right;
+			this.rightEnd = rightEnd;
+			this.target = target;
+			this.index = index;
+		}
+
+		@Override
+		protected void compute() {
+			final int leftLength = leftEnd - left;
+			final int rightLength = rightEnd - right;
+			if (leftLength + rightLength < PARALLEL_THRESHOLD) {
+				merge(source, left, leftEnd, right, rightEnd, target, index);
+				return;
+			}
+			// equal TSIDs of the left range stay before those of the right range
+			final int leftSplit;
+			final int rightSplit;
+			if (leftLength >= rightLength) {
+				leftSplit = (left + leftEnd) >>> 1;
+				rightSplit = search(source, right, rightEnd, source[leftSplit], false);
+			} else {
+				rightSplit = (right + rightEnd) >>> 1;
+				leftSplit = search(source, left, leftEnd, source[rightSplit], true);
+			}
+			final int middle = index + (leftSplit - left) + (rightSplit - right);
+			invokeAll(new MergeTask(source, left, leftSplit, right, rightSplit, target, index),
+					new MergeTask(source, leftSplit, leftEnd, rightSplit, rightEnd, target, middle));
+		}
+	}
+}
@@ -0,0 +1,419 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A supply of TSIDs in batches that never blocks the calling thread.
+ * <p>
+ * {@link TSID.Factory#generate()} may wait for a lock, and a random generator
+ * may wait while it is seeded, which is not allowed on an event loop. This
+ * class generates batches on its own executor ahead of time, so that the
+ * caller only takes a batch that is ready, or gets a future that is completed
+ * on the executor.
+ * <p>
+ * Each batch is sorted, but batches are not handed out in the order they were
+ * generated.
+ * <p>
+ * Batches can also be pushed to a subscriber, as many as it requests, with
+ * {@link #subscribe(Consumer, Consumer)}. On Java 9 or later, the
+ * {@code jdk9} artifact adapts this to {@code java.util.concurrent.Flow} with
+ * {@code io.hypersistence.tsid.flow.TsidPublisher}.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidSupply supply = TsidSupply.builder().withBatchSize(256).build();
+ * 
+ * // on the event loop
+ * long[] batch = supply.poll();
+ * if (batch == null) {
+ *     supply.reserve(256).thenAccept(this::onBatch);
+ * }
+ * }</pre>
+ */
+public final class TsidSupply implements AutoCloseable {
+
+	private final TSID.Factory factory;
+	private final int batchSize;
+	private final int prefetch;
+	private final Executor executor;
+	private final ExecutorService ownExecutor;
+
+	private final ConcurrentLinkedQueue<long[]> ready = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger readyCount = new AtomicInteger();
+	private final AtomicBoolean filling = new AtomicBoolean();
+
+	private volatile boolean closed;
+
+	private TsidSupply(final Builder builder) {
+		this.factory = builder.factory != null ? builder.factory : TSID.Factory.INSTANCE;
+		this.batchSize = builder.batchSize;
+		this.prefetch = builder.prefetch;
+		if (builder.executor != null) {
+			this.executor = builder.executor;
+			this.ownExecutor = null;
+		} else {
+			this.ownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "tsid-supply");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.executor = this.ownExecutor;
+		}
+		refill();
+	}
+
+	/**
+	 * Returns a new builder.
+	 * 
+	 * @return a builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the number of TSIDs in a batch.
+	 * 
+	 * @return a number
+	 */
+	public int batchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Takes a batch that is ready, without waiting.
+	 * 
+	 * @return a batch of {@link #batchSize()} TSIDs, or null if none is ready
+	 */
+	public long[] poll() {
+		final long[] batch = ready.poll();
+		if (batch != null) {
+			readyCount.decrementAndGet();
+		}
+		refill();
+		return batch;
+	}
+
+	/**
+	 * Reserves a number of TSIDs.
+	 * <p>
+	 * The future is already completed if the count is the batch size and a batch
+	 * is ready. Otherwise, it is completed on the executor.
+	 * 
+	 * @param count a number of TSIDs
+	 * @return a future sorted array
+	 * @throws IllegalArgumentException if the count is negative
+	 * @throws IllegalStateException    if the supply is closed
+	 */
+	public CompletableFuture<long[]> reserve(final int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException(String.format("Invalid count: %s", count));
+		}
+		checkOpen();
+		if (count == batchSize) {
+			final long[] batch = poll();
+			if (batch != null) {
+				return CompletableFuture.completedFuture(batch);
+			}
+		}
+		try {
+			return CompletableFuture.supplyAsync(() -> generate(count), executor);
+		} catch (RejectedExecutionException e) {
+			throw new IllegalStateException("Supply closed", e);
+		}
+	}
+
+	/**
+	 * Stops the supply. The executor is shut down if the supply created it.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		ready.clear();
+		if (ownExecutor != null) {
+			ownExecutor.shutdown();
+		}
+	}
+
+	/**
+	 * Returns a subscription that delivers batches on the executor, as many as
+	 * requested, one at a time.
+	 * <p>
+	 * Nothing is delivered until batches are requested with
+	 * {@link Subscription#request(long)}.
+	 * 
+	 * @param onNext  the receiver of the batches
+	 * @param onError the receiver of an error, after which nothing is delivered
+	 * @return a subscription
+	 */
+	public Subscription subscribe(final Consumer<long[]> onNext, final Consumer<Throwable> onError) {
+		return new BatchSubscription(onNext, onError);
+	}
+
+	private long[] generate(final int count) {
+		final long[] tsids = new long[count];
+		factory.generate(tsids, 0, count);
+		return tsids;
+	}
+
+	// takes a ready batch or generates one, on the executor
+	private long[] next() {
+		final long[] batch = poll();
+		return batch != null ? batch : generate(batchSize);
+	}
+
+	private void refill() {
+		if (closed || readyCount.get() >= prefetch || !filling.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					while (!closed && readyCount.get() < prefetch) {
+						ready.offer(generate(batchSize));
+						readyCount.incrementAndGet();
+					}
+				} finally {
+					filling.set(false);
+				}
+				// a batch may have been taken after the last check
+				refill();
+			});
+		} catch (RejectedExecutionException e) {
+			filling.set(false);
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Supply closed");
+		}
+	}
+
+	/**
+	 * A demand-driven stream of batches, as in Reactive Streams.
+	 * 
+	 * @see TsidSupply#subscribe(Consumer, Consumer)
+	 */
+	public interface Subscription {
+
+		/**
+		 * Adds a number of batches to the demand.
+		 * 
+		 * @param count a positive number, or an {@link IllegalArgumentException}
+		 *              is delivered as an error
+		 */
+		void request(long count);
+
+		/**
+		 * Stops the delivery. A batch being delivered may still arrive.
+		 */
+		void cancel();
+	}
+
+	/**
+	 * The demand is counted in batches. Delivery runs on the executor, at most
+	 * {@code prefetch} batches at a time before giving the executor back, and
+	 * never on two threads at once.
+	 */
+	private final class BatchSubscription implements Subscription, Runnable {
+
+		private final Consumer<long[]> onNext;
+		private final Consumer<Throwable> onError;
+
+		private final AtomicLong requested = new AtomicLong();
+		private final AtomicInteger pending = new AtomicInteger();
+
+		private volatile Throwable error;
+		private volatile boolean cancelled;
+
+		private BatchSubscription(final Consumer<long[]> onNext, final Consumer<Throwable> onError) {
+			this.onNext = onNext;
+			this.onError = onError;
+		}
+
+		@Override
+		public void request(final long count) {
+			if (count <= 0) {
+				error = new IllegalArgumentException(String.format("Invalid request: %s", count));
+			} else {
+				// saturates at Long.MAX_VALUE, which is an unbounded demand
+				requested.accumulateAndGet(count, (a, b) -> a + b < 0 ? Long.MAX_VALUE : a + b);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+		}
+
+		@Override
+		public void run() {
+			int missed = 1;
+			do {
+				int delivered = 0;
+				while (!cancelled) {
+					if (error == null && requested.get() == 0) {
+						break;
+					}
+					if (error != null || closed) {
+						// the supply closing is only signaled when there is demand
+						cancelled = true;
+						onError.accept(error != null ? error : new IllegalStateException("Supply closed"));
+						return;
+					}
+					if (delivered == prefetch) {
+						// let other tasks run, and come back
+						pending.set(1);
+						reschedule();
+						return;
+					}
+					final long[] batch;
+					try {
+						batch = next();
+					} catch (RuntimeException e) {
+						error = e;
+						continue;
+					}
+					onNext.accept(batch);
+					delivered++;
+					if (requested.get() != Long.MAX_VALUE) {
+						requested.decrementAndGet();
+					}
+				}
+				missed = pending.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void schedule() {
+			if (pending.getAndIncrement() == 0) {
+				reschedule();
+			}
+		}
+
+		private void reschedule() {
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				if (!cancelled) {
+					cancelled = true;
+					onError.accept(new IllegalStateException("Supply closed", e));
+				}
+			}
+		}
+	}
+
+	/**
+	 * A builder of {@link TsidSupply}.
+	 */
+	public static final class Builder {
+
+		private TSID.Factory factory;
+		private int batchSize = 256;
+		private int prefetch = 4;
+		private Executor executor;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the factory, {@link TSID.Factory#INSTANCE} by default.
+		 * 
+		 * @param factory a factory
+		 * @return this builder
+		 */
+		public Builder withFactory(final TSID.Factory factory) {
+			this.factory = factory;
+			return this;
+		}
+
+		/**
+		 * Sets the number of TSIDs in a batch, 256 by default.
+		 * 
+		 * @param batchSize a positive number
+		 * @return this builder
+		 * @throws IllegalArgumentException if the batch size is not positive
+		 */
+		public Builder withBatchSize(final int batchSize) {
+			if (batchSize < 1) {
+				throw new IllegalArgumentException(String.format("Invalid batch size: %s", batchSize));
+			}
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * Sets the number of batches kept ready, 4 by default.
+		 * 
+		 * @param prefetch a positive number
+		 * @return this builder
+		 * @throws IllegalArgumentException if the prefetch is not positive
+		 */
+		public Builder withPrefetch(final int prefetch) {
+			if (prefetch < 1) {
+				throw new IllegalArgumentException(String.format("Invalid prefetch: %s", prefetch));
+			}
+			this.prefetch = prefetch;
+			return this;
+		}
+
+		/**
+		 * Sets the executor that generates the batches. By default, the supply
+		 * creates a single daemon thread, which is shut down on {@link #close()}.
+		 * <p>
+		 * It must not be an event loop, since generation may block.
+		 * 
+		 * @param executor an executor
+		 * @return this builder
+		 */
+		public Builder withExecutor(final Executor executor) {
+			this.executor = executor;
+			return this;
+		}
+
+		/**
+		 * Returns a new supply, which starts filling its batches.
+		 * 
+		 * @return a supply
+		 */
+		public TsidSupply build() {
+			return new TsidSupply(this);
+		}
+	}
+}
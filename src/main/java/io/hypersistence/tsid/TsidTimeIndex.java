@@ -0,0 +1,358 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+/**
+ * An immutable index of TSIDs sorted in ascending order, queried by time.
+ * <p>
+ * The creation time of a TSID is in its upper bits, so a sorted array of
+ * TSIDs is also sorted by time, and the TSIDs of a time range are contiguous.
+ * The bounds of a range are found with interpolation search, which takes about
+ * log(log(n)) steps, as TSIDs are usually spread evenly over time. It falls
+ * back to binary search if the interpolation doesn't converge quickly.
+ * <p>
+ * TSIDs are sorted as unsigned numbers, which is the order of
+ * {@link TSID#compareTo(TSID)}.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidTimeIndex index = TsidTimeIndex.builder().addAll(tsids).build();
+ * long[] range = index.range(Instant.parse("2023-01-01T10:00:00Z"), Instant.parse("2023-01-01T10:05:00Z"));
+ * }</pre>
+ */
+public final class TsidTimeIndex {
+
+	// below this length a linear scan is faster than interpolation
+	private static final int LINEAR_SCAN = 16;
+
+	private static final long MAX_TIME = (1L << (Long.SIZE - TSID.RANDOM_BITS)) - 1;
+
+	private final long[] tsids;
+	private final long customEpoch;
+
+	private TsidTimeIndex(final long[] tsids, final long customEpoch) {
+		this.tsids = tsids;
+		this.customEpoch = customEpoch;
+	}
+
+	/**
+	 * Creates an index of sorted TSIDs with the default epoch.
+	 * <p>
+	 * The array is copied.
+	 * 
+	 * @param sorted an array of TSIDs in ascending unsigned order
+	 * @return an index
+	 * @throws IllegalArgumentException if the array is not sorted
+	 */
+	public static TsidTimeIndex of(final long[] sorted) {
+		return of(sorted, Instant.ofEpochMilli(TSID.TSID_EPOCH));
+	}
+
+	/**
+	 * Creates an index of sorted TSIDs with a custom epoch.
+	 * <p>
+	 * The array is copied.
+	 * 
+	 * @param sorted      an array of TSIDs in ascending unsigned order
+	 * @param customEpoch the custom epoch of the TSIDs
+	 * @return an index
+	 * @throws IllegalArgumentException if the array is not sorted
+	 */
+	public static TsidTimeIndex of(final long[] sorted, final Instant customEpoch) {
+		for (int i = 1; i < sorted.length; i++) {
+			if (Platform.compareUnsigned(sorted[i - 1], sorted[i]) > 0) {
+				throw new IllegalArgumentException(String.format("TSIDs not sorted at index %s", i));
+			}
+		}
+		return new TsidTimeIndex(sorted.clone(), customEpoch.toEpochMilli());
+	}
+
+	/**
+	 * Returns a builder that sorts the TSIDs it receives.
+	 * 
+	 * @return a builder
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Returns the number of TSIDs.
+	 * 
+	 * @return the number of TSIDs
+	 */
+	public int size() {
+		return tsids.length;
+	}
+
+	/**
+	 * Returns the TSID at an index.
+	 * 
+	 * @param index an index
+	 * @return a TSID
+	 * @throws IndexOutOfBoundsException if the index is out of bounds
+	 */
+	public long get(final int index) {
+		return tsids[index];
+	}
+
+	/**
+	 * Returns a copy of the TSIDs.
+	 * 
+	 * @return an array of TSIDs
+	 */
+	public long[] toArray() {
+		return tsids.clone();
+	}
+
+	/**
+	 * Returns the index of the first TSID created at or after an instant.
+	 * 
+	 * @param instant an instant
+	 * @return an index, or the size of the index if there is no such TSID
+	 */
+	public int ceilingIndex(final Instant instant) {
+		return ceilingIndex(millis(instant));
+	}
+
+	/**
+	 * Returns the index of the first TSID created at or after an instant.
+	 * 
+	 * @param unixMilliseconds milliseconds since 1970-01-01
+	 * @return an index, or the size of the index if there is no such TSID
+	 */
+	public int ceilingIndex(final long unixMilliseconds) {
+		if (unixMilliseconds <= customEpoch) {
+			return 0;
+		}
+		final long time = unixMilliseconds - customEpoch;
+		if (time < 0 || time > MAX_TIME) {
+			return tsids.length; // overflow
+		}
+		return search(time);
+	}
+
+	/**
+	 * Returns the number of TSIDs created in a time range.
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to   the end of the range, exclusive
+	 * @return the number of TSIDs
+	 */
+	public int count(final Instant from, final Instant to) {
+		return count(millis(from), millis(to));
+	}
+
+	/**
+	 * Returns the number of TSIDs created in a time range.
+	 * 
+	 * @param fromUnixMilliseconds the start of the range, inclusive
+	 * @param toUnixMilliseconds   the end of the range, exclusive
+	 * @return the number of TSIDs
+	 */
+	public int count(final long fromUnixMilliseconds, final long toUnixMilliseconds) {
+		final int from = ceilingIndex(fromUnixMilliseconds);
+		final int to = ceilingIndex(toUnixMilliseconds);
+		return Math.max(0, to - from);
+	}
+
+	/**
+	 * Returns the TSIDs created in a time range.
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to   the end of the range, exclusive
+	 * @return an array of TSIDs
+	 */
+	public long[] range(final Instant from, final Instant to) {
+		return range(millis(from), millis(to));
+	}
+
+	/**
+	 * Returns the TSIDs created in a time range.
+	 * 
+	 * @param fromUnixMilliseconds the start of the range, inclusive
+	 * @param toUnixMilliseconds   the end of the range, exclusive
+	 * @return an array of TSIDs
+	 */
+	public long[] range(final long fromUnixMilliseconds, final long toUnixMilliseconds) {
+		final int from = ceilingIndex(fromUnixMilliseconds);
+		final int to = ceilingIndex(toUnixMilliseconds);
+		return from < to ? Arrays.copyOfRange(tsids, from, to) : new long[0];
+	}
+
+	/**
+	 * Returns a stream of the TSIDs created in a time range, without copying them.
+	 * 
+	 * @param from the start of the range, inclusive
+	 * @param to   the end of the range, exclusive
+	 * @return a stream of TSIDs
+	 */
+	public LongStream stream(final Instant from, final Instant to) {
+		final int start = ceilingIndex(from);
+		final int end = ceilingIndex(to);
+		return start < end ? Arrays.stream(tsids, start, end) : LongStream.empty();
+	}
+
+	/**
+	 * Returns the index of the first TSID whose time is at least the given time.
+	 */
+	private int search(final long time) {
+
+		int low = 0;
+		int high = tsids.length; // exclusive
+
+		// each step must at least halve the range, or it switches to bisection
+		while (high - low > LINEAR_SCAN) {
+			final long lowTime = time(low);
+			final long highTime = time(high - 1);
+			if (time <= lowTime) {
+				return low;
+			}
+			if (time > highTime) {
+				return high;
+			}
+
+			final int length = high - low;
+			final int probe = low + (int) ((double) (time - lowTime) / (highTime - lowTime) * (length - 1));
+			if (time(probe) < time) {
+				low = probe + 1;
+			} else {
+				high = probe;
+			}
+
+			if (high - low > length / 2) {
+				final int middle = (low + high) >>> 1;
+				if (time(middle) < time) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+		}
+
+		while (low < high && time(low) < time) {
+			low++;
+		}
+		return low;
+	}
+
+	// saturates instead of overflowing, so that Instant.MIN and Instant.MAX work
+	private static long millis(final Instant instant) {
+		if (instant.getEpochSecond() >= Long.MAX_VALUE / 1000) {
+			return Long.MAX_VALUE;
+		}
+		if (instant.getEpochSecond() <= Long.MIN_VALUE / 1000) {
+			return Long.MIN_VALUE;
+		}
+		return instant.toEpochMilli();
+	}
+
+	private long time(final int index) {
+		return tsids[index] >>> TSID.RANDOM_BITS;
+	}
+
+	/**
+	 * A builder of {@link TsidTimeIndex}.
+	 */
+	public static final class Builder {
+
+		private long[] tsids = new long[16];
+		private int size;
+		private long customEpoch = TSID.TSID_EPOCH;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds a TSID.
+		 * 
+		 * @param tsid a TSID
+		 * @return this builder
+		 */
+		public Builder add(final long tsid) {
+			grow(size + 1);
+			tsids[size++] = tsid;
+			return this;
+		}
+
+		/**
+		 * Adds a TSID.
+		 * 
+		 * @param tsid a TSID
+		 * @return this builder
+		 */
+		public Builder add(final TSID tsid) {
+			return add(tsid.toLong());
+		}
+
+		/**
+		 * Adds TSIDs in any order.
+		 * 
+		 * @param tsids an array of TSIDs
+		 * @return this builder
+		 */
+		public Builder addAll(final long[] tsids) {
+			grow(size + tsids.length);
+			System.arraycopy(tsids, 0, this.tsids, size, tsids.length);
+			size += tsids.length;
+			return this;
+		}
+
+		/**
+		 * Sets the custom epoch of the TSIDs.
+		 * 
+		 * @param customEpoch the custom epoch
+		 * @return this builder
+		 */
+		public Builder withCustomEpoch(final Instant customEpoch) {
+			this.customEpoch = customEpoch.toEpochMilli();
+			return this;
+		}
+
+		/**
+		 * Sorts the TSIDs and builds an index.
+		 * 
+		 * @return an index
+		 */
+		public TsidTimeIndex build() {
+			final long[] sorted = Arrays.copyOf(tsids, size);
+			TsidSort.sort(sorted);
+			return new TsidTimeIndex(sorted, customEpoch);
+		}
+
+		private void grow(final int capacity) {
+			if (capacity > tsids.length) {
+				final int length = Math.max(capacity, tsids.length + (tsids.length >> 1));
+				tsids = Arrays.copyOf(tsids, length);
+			}
+		}
+	}
+}
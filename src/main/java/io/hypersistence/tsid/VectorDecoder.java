@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+/**
+ * Bulk decoder of canonical strings that uses the Vector API when it is
+ * available.
+ * <p>
+ * This is the Java 8 implementation, which always falls back to the scalar
+ * decoder. The multi-release JAR contains a Java 17 implementation that uses
+ * {@code jdk.incubator.vector} if the module is resolved at runtime, for
+ * example with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorDecoder {
+
+	private VectorDecoder() {
+	}
+
+	/**
+	 * Returns true if the Vector API is used.
+	 * 
+	 * @return false
+	 */
+	static boolean isAvailable() {
+		return false;
+	}
+
+	/**
+	 * Decodes a range of TSIDs.
+	 * <p>
+	 * It has the same contract as
+	 * {@link TsidCodec#decodeRange(byte[], int, int, long[], int, int, int)}.
+	 */
+	static void decodeRange(final byte[] bytes, final int offset, final int separator, final long[] tsids,
+			final int from, final int to, final int end) {
+		TsidCodec.decodeRange(bytes, offset, separator, tsids, from, to, end);
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Low-level operations that have faster implementations in newer JDKs.
+ * <p>
+ * This is the Java 17 implementation, which is loaded from
+ * {@code META-INF/versions/17} of the multi-release JAR.
+ */
+final class Platform {
+
+	private static final VarHandle BIG_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.BIG_ENDIAN);
+	private static final VarHandle LITTLE_ENDIAN = MethodHandles.byteArrayViewVarHandle(long[].class,
+			ByteOrder.LITTLE_ENDIAN);
+
+	private Platform() {
+	}
+
+	static int version() {
+		return 17;
+	}
+
+	static long getLong(final byte[] bytes, final int offset) {
+		return (long) BIG_ENDIAN.get(bytes, offset);
+	}
+
+	static void putLong(final byte[] bytes, final int offset, final long number) {
+		BIG_ENDIAN.set(bytes, offset, number);
+	}
+
+	static long getLongLittleEndian(final byte[] bytes, final int offset) {
+		return (long) LITTLE_ENDIAN.get(bytes, offset);
+	}
+
+	static void putLongLittleEndian(final byte[] bytes, final int offset, final long number) {
+		LITTLE_ENDIAN.set(bytes, offset, number);
+	}
+
+	static int compareUnsigned(final long a, final long b) {
+		return Long.compareUnsigned(a, b);
+	}
+
+	static long divideUnsigned(final long dividend, final long divisor) {
+		return Long.divideUnsigned(dividend, divisor);
+	}
+
+	static long multiplyHighUnsigned(final long x, final long y) {
+		// Math.unsignedMultiplyHigh() is only available in Java 18
+		return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+	}
+
+	static void onSpinWait() {
+		Thread.onSpinWait();
+	}
+}
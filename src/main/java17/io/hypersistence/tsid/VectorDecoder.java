@@ -0,0 +1,55 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+/**
+ * Bulk decoder of canonical strings that uses the Vector API when it is
+ * available.
+ * <p>
+ * This is the Java 17 implementation. The incubator module is not resolved by
+ * default, so {@link VectorKernel} is only loaded if the application was
+ * started with {@code --add-modules jdk.incubator.vector}.
+ */
+final class VectorDecoder {
+
+	private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+	private VectorDecoder() {
+	}
+
+	static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	static void decodeRange(final byte[] bytes, final int offset, final int separator, final long[] tsids,
+			final int from, final int to, final int end) {
+		if (AVAILABLE) {
+			VectorKernel.decodeRange(bytes, offset, separator, tsids, from, to, end);
+		} else {
+			TsidCodec.decodeRange(bytes, offset, separator, tsids, from, to, end);
+		}
+	}
+}
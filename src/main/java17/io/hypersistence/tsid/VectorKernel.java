@@ -0,0 +1,193 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Decodes blocks of US-ASCII canonical strings with the Vector API.
+ * <p>
+ * Each vector lane translates and validates one character, regardless of
+ * where the strings begin and end, so a 256-bit vector covers more than two
+ * strings. A pattern of lane phases tells the first character of a string, the
+ * separator and the other characters apart. The 5-bit values are then packed
+ * into longs by a scalar loop that doesn't need to check anything.
+ * <p>
+ * The last few strings that don't fill a whole block, and the blocks that
+ * contain an invalid string, are handed over to the scalar decoder, which also
+ * reports the error.
+ */
+final class VectorKernel {
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+
+	// the letters from 'a' to 'z' are looked up in one or more vectors
+	private static final int PARTS = Math.max(1, 32 / LANES);
+	private static final int PART_SHIFT = Integer.numberOfTrailingZeros(LANES);
+	private static final ByteVector[] LETTERS = new ByteVector[PARTS];
+
+	// the approximate number of TSIDs in a block
+	private static final int BLOCK_SIZE = 256;
+
+	private static final int STRIDE = TSID.TSID_CHARS;
+	private static final int STRIDE_SEPARATED = TSID.TSID_CHARS + 1;
+
+	private static final int BLOCK = blockSize(STRIDE);
+	private static final int BLOCK_SEPARATED = blockSize(STRIDE_SEPARATED);
+
+	// the position of each byte of a block within its string
+	private static final byte[] PHASES = phases(STRIDE, BLOCK);
+	private static final byte[] PHASES_SEPARATED = phases(STRIDE_SEPARATED, BLOCK_SEPARATED);
+
+	static {
+		final byte[] letters = new byte[PARTS * LANES];
+		for (int i = 0; i < letters.length; i++) {
+			final long value = i < 26 ? TSID.ALPHABET_VALUES['a' + i] : -1;
+			letters[i] = (byte) value;
+		}
+		for (int i = 0; i < PARTS; i++) {
+			LETTERS[i] = ByteVector.fromArray(SPECIES, letters, i * LANES);
+		}
+	}
+
+	private VectorKernel() {
+	}
+
+	static void decodeRange(final byte[] bytes, final int offset, final int separator, final long[] tsids,
+			final int from, final int to, final int end) {
+
+		final boolean separated = separator != TsidCodec.NO_SEPARATOR;
+		final int stride = separated ? STRIDE_SEPARATED : STRIDE;
+		final int block = separated ? BLOCK_SEPARATED : BLOCK;
+		final byte[] phases = separated ? PHASES_SEPARATED : PHASES;
+
+		// the last TSID of the whole range has no separator to check
+		final int last = separated ? Math.min(to, end - 1) : to;
+
+		final byte[] values = new byte[block * stride];
+
+		int i = from;
+		int j = offset;
+		for (; i + block <= last; i += block, j += values.length) {
+			if (translate(bytes, j, separator, phases, values)) {
+				pack(values, stride, tsids, i, block);
+			} else {
+				TsidCodec.decodeRange(bytes, j, separator, tsids, i, i + block, end);
+			}
+		}
+		TsidCodec.decodeRange(bytes, j, separator, tsids, i, to, end);
+	}
+
+	/**
+	 * Translates a block of characters into 5-bit values and returns false if any
+	 * string of the block is invalid.
+	 */
+	private static boolean translate(final byte[] bytes, final int offset, final int separator,
+			final byte[] phases, final byte[] values) {
+
+		final ByteVector invalid = ByteVector.broadcast(SPECIES, (byte) -1);
+		VectorMask<Byte> errors = SPECIES.maskAll(false);
+
+		for (int k = 0; k < values.length; k += LANES) {
+
+			final ByteVector chars = ByteVector.fromArray(SPECIES, bytes, offset + k);
+			final ByteVector phase = ByteVector.fromArray(SPECIES, phases, k);
+
+			// non-ASCII bytes are negative, so they are neither digits nor letters
+			final VectorMask<Byte> digit = chars.compare(VectorOperators.GE, (byte) '0')
+					.and(chars.compare(VectorOperators.LE, (byte) '9'));
+			final ByteVector lower = chars.or((byte) 0x20);
+			final VectorMask<Byte> letter = lower.compare(VectorOperators.GE, (byte) 'a')
+					.and(lower.compare(VectorOperators.LE, (byte) 'z'));
+
+			final ByteVector value = invalid //
+					.blend(chars.sub((byte) '0'), digit) //
+					.blend(lookup(lower.sub((byte) 'a').and((byte) 0x1f)), letter);
+
+			final VectorMask<Byte> sep = phase.eq((byte) TSID.TSID_CHARS);
+			errors = errors.or(value.lt((byte) 0).andNot(sep));
+			// the first character can't be greater than 'F'
+			errors = errors.or(phase.eq((byte) 0).and(value.compare(VectorOperators.GT, (byte) 0x0f)));
+			if (separator != TsidCodec.NO_SEPARATOR) {
+				errors = errors.or(sep.and(chars.compare(VectorOperators.NE, (byte) separator)));
+			}
+
+			value.intoArray(values, k);
+		}
+
+		return !errors.anyTrue();
+	}
+
+	private static ByteVector lookup(final ByteVector index) {
+		if (PARTS == 1) {
+			return index.selectFrom(LETTERS[0]);
+		}
+		final ByteVector lane = index.and((byte) (LANES - 1));
+		final ByteVector part = index.lanewise(VectorOperators.LSHR, PART_SHIFT);
+		ByteVector result = lane.selectFrom(LETTERS[0]);
+		for (int i = 1; i < PARTS; i++) {
+			result = result.blend(lane.selectFrom(LETTERS[i]), part.eq((byte) i));
+		}
+		return result;
+	}
+
+	private static void pack(final byte[] values, final int stride, final long[] tsids, final int index,
+			final int count) {
+		for (int i = 0, j = 0; i < count; i++, j += stride) {
+			long number = values[j];
+			for (int k = 1; k < TSID.TSID_CHARS; k++) {
+				number = (number << 5) | values[j + k];
+			}
+			tsids[index + i] = number;
+		}
+	}
+
+	/**
+	 * Returns a number of TSIDs close to {@link #BLOCK_SIZE} whose characters fill
+	 * whole vectors.
+	 */
+	private static int blockSize(final int stride) {
+		// the smallest number of TSIDs whose characters fill whole vectors
+		final int unit = LANES / gcd(stride, LANES);
+		return unit * Math.max(1, BLOCK_SIZE / unit);
+	}
+
+	private static int gcd(final int a, final int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+
+	private static byte[] phases(final int stride, final int block) {
+		final byte[] phases = new byte[block * stride];
+		for (int i = 0; i < phases.length; i++) {
+			phases[i] = (byte) (i % stride);
+		}
+		return phases;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ * 
+ * Copyright (c) 2020-2022 Fabio Lima
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.hypersistence.tsid.flow;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+
+import io.hypersistence.tsid.TsidSupply;
+
+/**
+ * A publisher of the batches of a {@link TsidSupply}.
+ * <p>
+ * Each subscriber gets its own stream of batches, as many as it requests, and
+ * they are delivered on the executor of the supply.
+ * <p>
+ * This class requires Java 9 or later, so it is in the {@code jdk9} artifact,
+ * apart from the Java 8 classes.
+ * <p>
+ * Example:
+ * 
+ * <pre>{@code
+ * TsidSupply supply = TsidSupply.builder().build();
+ * Flux<long[]> batches = JdkFlowAdapter.flowPublisherToFlux(new TsidPublisher(supply));
+ * }</pre>
+ */
+public final class TsidPublisher implements Flow.Publisher<long[]> {
+
+	private final TsidSupply supply;
+
+	/**
+	 * Creates a publisher of the batches of a supply.
+	 * 
+	 * @param supply a supply
+	 */
+	public TsidPublisher(final TsidSupply supply) {
+		this.supply = Objects.requireNonNull(supply);
+	}
+
+	@Override
+	public void subscribe(final Flow.Subscriber<? super long[]> subscriber) {
+		Objects.requireNonNull(subscriber);
+		final TsidSupply.Subscription subscription = supply.subscribe(subscriber::onNext, subscriber::onError);
+		subscriber.onSubscribe(new Flow.Subscription() {
+
+			@Override
+			public void request(final long count) {
+				subscription.request(count);
+			}
+
+			@Override
+			public void cancel() {
+				subscription.cancel();
+			}
+		});
+	}
+}
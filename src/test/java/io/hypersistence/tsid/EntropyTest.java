@@ -0,0 +1,126 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class EntropyTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	@Test
+	public void testStripes() {
+		assertEquals(1, new Entropy(new Random(), 1, Long.MAX_VALUE).stripes());
+		assertEquals(2, new Entropy(new Random(), 2, Long.MAX_VALUE).stripes());
+		assertEquals(4, new Entropy(new Random(), 3, Long.MAX_VALUE).stripes());
+		assertEquals(64, new Entropy(new Random(), 33, Long.MAX_VALUE).stripes());
+		assertEquals(64, new Entropy(new Random(), 64, Long.MAX_VALUE).stripes());
+		assertTrue(Entropy.shared().stripes() >= 2);
+	}
+
+	@Test
+	public void testSeeded() {
+		final Entropy entropy1 = new Entropy(new Random(42), 4, Long.MAX_VALUE);
+		final Entropy entropy2 = new Entropy(new Random(42), 4, Long.MAX_VALUE);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			assertEquals(entropy1.nextLong(), entropy2.nextLong());
+		}
+		entropy1.reseed();
+		assertNotEquals(entropy1.nextLong(), entropy2.nextLong());
+	}
+
+	@Test
+	public void testReseedInterval() throws InterruptedException {
+		final AtomicInteger seeds = new AtomicInteger();
+		final Random seeder = new Random() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public long nextLong() {
+				seeds.incrementAndGet();
+				return super.nextLong();
+			}
+		};
+
+		final Entropy entropy = new Entropy(seeder, 4, TimeUnit.MILLISECONDS.toNanos(10));
+		assertEquals(4, seeds.get());
+		entropy.nextLong();
+		assertEquals(4, seeds.get());
+
+		// the first call after the interval reseeds all stripes
+		Thread.sleep(20);
+		entropy.nextLong();
+		assertEquals(8, seeds.get());
+		entropy.nextLong();
+		assertEquals(8, seeds.get());
+	}
+
+	@Test
+	public void testDistinct() {
+		final Entropy entropy = new Entropy(new Random(), 1, Long.MAX_VALUE);
+		final Set<Long> set = new HashSet<>();
+		for (int i = 0; i < LOOP_MAX; i++) {
+			assertTrue(set.add(entropy.nextLong()));
+		}
+	}
+
+	@Test
+	public void testBitBalance() {
+		final Entropy entropy = new Entropy(new Random(), 8, Long.MAX_VALUE);
+		final int[] ones = new int[Long.SIZE];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long random = entropy.nextLong();
+			for (int j = 0; j < Long.SIZE; j++) {
+				ones[j] += (int) (random >>> j) & 1;
+			}
+		}
+		for (int j = 0; j < Long.SIZE; j++) {
+			// about 10 standard deviations
+			assertEquals(LOOP_MAX / 2.0, ones[j], 500);
+		}
+	}
+
+	@Test
+	public void testNextBytes() {
+		final Entropy entropy1 = new Entropy(new Random(42), 1, Long.MAX_VALUE);
+		final Entropy entropy2 = new Entropy(new Random(42), 1, Long.MAX_VALUE);
+		for (int length = 0; length < 20; length++) {
+			final byte[] bytes = entropy1.nextBytes(length);
+			assertEquals(length, bytes.length);
+			for (int i = 0; i < length; i += 8) {
+				final long random = entropy2.nextLong();
+				for (int j = i; j < Math.min(length, i + 8); j++) {
+					assertEquals((byte) (random >>> ((j - i) * 8)), bytes[j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		try {
+			new Entropy(new Random(), 0, Long.MAX_VALUE);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			new Entropy(new Random(), 65, Long.MAX_VALUE);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testFastFactoryRandom() {
+		assertSame(Entropy.shared(), TSID.Factory.builder().withFastRandom().getRandom());
+		assertNotSame(Entropy.shared(), TSID.Factory.builder().getRandom());
+	}
+}
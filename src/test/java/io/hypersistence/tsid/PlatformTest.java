@@ -0,0 +1,112 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+/**
+ * Cross-checks the platform operations against {@link BigInteger} and
+ * {@link ByteBuffer}.
+ * <p>
+ * The build runs it against the Java 8 classes and, on JDK 17 or later, against
+ * the classes in {@code META-INF/versions/17}.
+ */
+public class PlatformTest {
+
+	private static final int LOOP_MAX = 100_000;
+
+	private static final BigInteger MASK = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+	private static final long[] EDGES = { 0L, 1L, 2L, 61L, 62L, Integer.MAX_VALUE, 0xffffffffL, 0x100000000L,
+			Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1, -2L, -1L };
+
+	@Test
+	public void testVersion() {
+		// set by the surefire executions
+		final String expected = System.getProperty("tsid.platform.version");
+		if (expected != null) {
+			assertEquals(Integer.parseInt(expected), Platform.version());
+		}
+	}
+
+	@Test
+	public void testGetAndPutLong() {
+		final byte[] bytes = new byte[16];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			final int offset = i & 7;
+			Platform.putLong(bytes, offset, number);
+			assertEquals(number, ByteBuffer.wrap(bytes).getLong(offset));
+			assertEquals(number, Platform.getLong(bytes, offset));
+		}
+	}
+
+	@Test
+	public void testGetAndPutLongLittleEndian() {
+		final byte[] bytes = new byte[16];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			final int offset = i & 7;
+			Platform.putLongLittleEndian(bytes, offset, number);
+			assertEquals(number, ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getLong(offset));
+			assertEquals(number, Platform.getLongLittleEndian(bytes, offset));
+		}
+	}
+
+	@Test
+	public void testCompareUnsigned() {
+		for (long a : EDGES) {
+			for (long b : EDGES) {
+				assertEquals(unsigned(a).compareTo(unsigned(b)), Integer.signum(Platform.compareUnsigned(a, b)));
+			}
+		}
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long a = ThreadLocalRandom.current().nextLong();
+			final long b = ThreadLocalRandom.current().nextLong();
+			assertEquals(unsigned(a).compareTo(unsigned(b)), Integer.signum(Platform.compareUnsigned(a, b)));
+		}
+	}
+
+	@Test
+	public void testDivideUnsigned() {
+		for (long a : EDGES) {
+			for (long b : EDGES) {
+				if (b != 0) {
+					assertEquals(unsigned(a).divide(unsigned(b)).longValue(), Platform.divideUnsigned(a, b));
+				}
+			}
+		}
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long a = ThreadLocalRandom.current().nextLong();
+			final long b = ThreadLocalRandom.current().nextLong() >>> (i & 63) | 1;
+			assertEquals(unsigned(a).divide(unsigned(b)).longValue(), Platform.divideUnsigned(a, b));
+		}
+	}
+
+	@Test
+	public void testMultiplyHighUnsigned() {
+		for (long a : EDGES) {
+			for (long b : EDGES) {
+				assertEquals(multiplyHigh(a, b), Platform.multiplyHighUnsigned(a, b));
+			}
+		}
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long a = ThreadLocalRandom.current().nextLong();
+			final long b = ThreadLocalRandom.current().nextLong();
+			assertEquals(multiplyHigh(a, b), Platform.multiplyHighUnsigned(a, b));
+		}
+	}
+
+	private static BigInteger unsigned(final long number) {
+		return BigInteger.valueOf(number).and(MASK);
+	}
+
+	private static long multiplyHigh(final long a, final long b) {
+		return unsigned(a).multiply(unsigned(b)).shiftRight(64).longValue();
+	}
+}
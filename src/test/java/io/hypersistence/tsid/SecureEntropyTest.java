@@ -0,0 +1,144 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SecureEntropyTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	@Test
+	public void testStripes() {
+		assertEquals(1, new SecureEntropy(new Random(), 1, 8).stripes());
+		assertEquals(4, new SecureEntropy(new Random(), 3, 8).stripes());
+		assertEquals(64, new SecureEntropy(new Random(), 64, 8).stripes());
+		assertTrue(SecureEntropy.shared().stripes() >= 2);
+	}
+
+	@Test
+	public void testValuesOfSource() {
+		// the values are those of the source, in order, each handed out once
+		final SecureEntropy entropy = new SecureEntropy(new Random(42), 1, 8);
+		final Random expected = new Random(42);
+		final byte[] bytes = new byte[8 * Long.BYTES];
+		for (int i = 0; i < LOOP_MAX / 8; i++) {
+			expected.nextBytes(bytes);
+			for (int j = 0; j < 8; j++) {
+				assertEquals(Platform.getLong(bytes, j * Long.BYTES), entropy.nextLong());
+			}
+		}
+	}
+
+	@Test
+	public void testRefill() {
+		final AtomicInteger refills = new AtomicInteger();
+		final Random source = new Random() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void nextBytes(final byte[] bytes) {
+				refills.incrementAndGet();
+				super.nextBytes(bytes);
+			}
+		};
+
+		// nothing is taken from the source until the first value
+		final SecureEntropy entropy = new SecureEntropy(source, 4, 16);
+		assertEquals(0, refills.get());
+		for (int i = 0; i < 16; i++) {
+			entropy.nextLong();
+		}
+		assertEquals(1, refills.get());
+		entropy.nextLong();
+		assertEquals(2, refills.get());
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		// a source that counts up, so that a value handed out twice shows
+		final AtomicInteger counter = new AtomicInteger();
+		final Random source = new Random() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void nextBytes(final byte[] bytes) {
+				for (int i = 0; i < bytes.length; i += Long.BYTES) {
+					Platform.putLong(bytes, i, counter.incrementAndGet());
+				}
+			}
+		};
+
+		final int threads = 8;
+		final SecureEntropy entropy = new SecureEntropy(source, 2, 4);
+		final long[][] values = new long[threads][LOOP_MAX];
+		final Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final long[] mine = values[t];
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < LOOP_MAX; i++) {
+					mine[i] = entropy.nextLong();
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		final TsidHashSet set = new TsidHashSet(threads * LOOP_MAX);
+		for (long[] mine : values) {
+			for (long value : mine) {
+				assertTrue(set.add(value));
+			}
+		}
+	}
+
+	@Test
+	public void testNextBytes() {
+		final SecureEntropy entropy1 = new SecureEntropy(new Random(42), 1, 8);
+		final SecureEntropy entropy2 = new SecureEntropy(new Random(42), 1, 8);
+		for (int length = 0; length < 20; length++) {
+			final byte[] bytes = entropy1.nextBytes(length);
+			assertEquals(length, bytes.length);
+			for (int i = 0; i < length; i += 8) {
+				final long random = entropy2.nextLong();
+				for (int j = i; j < Math.min(length, i + 8); j++) {
+					assertEquals((byte) (random >>> ((j - i) * 8)), bytes[j]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		try {
+			new SecureEntropy(new SecureRandom(), 0, 8);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			new SecureEntropy(new SecureRandom(), 65, 8);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			new SecureEntropy(new SecureRandom(), 1, 0);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testDefaultFactoryRandom() {
+		assertSame(SecureEntropy.shared(), TSID.Factory.builder().getRandom());
+		assertNotSame(SecureEntropy.shared(), TSID.Factory.builder().withRandom(new Random()).getRandom());
+	}
+}
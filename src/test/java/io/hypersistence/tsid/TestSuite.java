@@ -9,6 +9,25 @@ import org.junit.runners.Suite;
 	TsidBaseNTest.class,
 	TsidFactoryTest.class,
 	TsidFormatTest.class,
+	TsidPairCodecTest.class,
+	TsidCodecTest.class,
+	TsidColumnCodecTest.class,
+	TsidListTest.class,
+	TsidHashSetTest.class,
+	TsidHashMapTest.class,
+	TsidDedupeFilterTest.class,
+	TsidBloomFilterTest.class,
+	TsidTimeIndexTest.class,
+	TsidRangeTest.class,
+	TsidSortTest.class,
+	TsidMergeIteratorTest.class,
+	TsidBackfillTest.class,
+	TsidHybridLogicalClockTest.class,
+	TsidFactoryRegistryTest.class,
+	TsidSupplyTest.class,
+	EntropyTest.class,
+	SecureEntropyTest.class,
+	PlatformTest.class,
 	TsidFactory00001Test.class,
 	TsidFactory00064Test.class,
 	TsidFactory00256Test.class,
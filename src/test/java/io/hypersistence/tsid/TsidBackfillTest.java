@@ -0,0 +1,102 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class TsidBackfillTest {
+
+	private static final int LOOP_MAX = 200_000;
+
+	@Test
+	public void testUniqueWithOriginalTime() {
+		final TsidBackfill backfill = new TsidBackfill(10, 1023);
+		final SplittableRandom random = new SplittableRandom(1);
+		final long start = Instant.parse("2020-06-01T00:00:00Z").toEpochMilli();
+		final TsidHashSet set = new TsidHashSet(LOOP_MAX);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			// few distinct milliseconds, so that they share counters
+			final long timestamp = start + random.nextInt(1000);
+			final TSID tsid = TSID.from(backfill.generate(timestamp));
+			assertTrue(set.add(tsid.toLong()));
+			assertEquals(1023, (tsid.getRandom() >>> 12));
+			// 200 rows per ms on average, far from the 4096 of the counter
+			assertEquals(timestamp, tsid.getUnixMilliseconds());
+		}
+		assertEquals(1000, backfill.size());
+	}
+
+	@Test
+	public void testSpillOver() {
+		// 4 counter values per millisecond
+		final TsidBackfill backfill = new TsidBackfill(20, 5);
+		final long timestamp = Instant.parse("2021-01-01T00:00:00Z").toEpochMilli();
+
+		final long[] tsids = new long[10];
+		backfill.generate(timestamp, tsids, 0, 6);
+		assertEquals(timestamp + 1, TSID.from(backfill.generate(timestamp + 1)).getUnixMilliseconds());
+		backfill.generate(timestamp, tsids, 6, 4);
+
+		final long[] expectedTimes = { 0, 0, 0, 0, 1, 1, 1, 2, 2, 2 };
+		final TsidHashSet set = new TsidHashSet();
+		for (int i = 0; i < tsids.length; i++) {
+			final TSID tsid = TSID.from(tsids[i]);
+			assertEquals(timestamp + expectedTimes[i], tsid.getUnixMilliseconds());
+			assertEquals(5, tsid.getRandom() >>> 2);
+			assertTrue(set.add(tsids[i]));
+		}
+		assertEquals(3, backfill.size());
+
+		backfill.clear();
+		assertEquals(0, backfill.size());
+		assertEquals(timestamp, TSID.from(backfill.generate(timestamp)).getUnixMilliseconds());
+	}
+
+	@Test
+	public void testBatchOfTimestamps() {
+		final Instant customEpoch = Instant.parse("2000-01-01T00:00:00Z");
+		final TsidBackfill backfill = new TsidBackfill(8, 3, customEpoch);
+		final long[] timestamps = new long[LOOP_MAX];
+		final SplittableRandom random = new SplittableRandom(2);
+		for (int i = 0; i < timestamps.length; i++) {
+			timestamps[i] = customEpoch.toEpochMilli() + random.nextLong(1L << 40);
+		}
+		final long[] tsids = new long[LOOP_MAX];
+		backfill.generate(timestamps, tsids);
+		final TsidHashSet set = new TsidHashSet(LOOP_MAX);
+		for (int i = 0; i < tsids.length; i++) {
+			assertEquals(timestamps[i], TSID.from(tsids[i]).getUnixMilliseconds(customEpoch.toEpochMilli()));
+			assertTrue(set.add(tsids[i]));
+		}
+		assertEquals(TSID.from(tsids[0]).getInstant(customEpoch),
+				backfill.generate(Instant.ofEpochMilli(timestamps[0])).getInstant(customEpoch));
+	}
+
+	@Test
+	public void testInvalid() {
+		final TsidBackfill backfill = new TsidBackfill(10, 0);
+		final Runnable[] invalid = { //
+				() -> new TsidBackfill(21, 0), //
+				() -> new TsidBackfill(10, 1024), //
+				() -> new TsidBackfill(10, -1), //
+				() -> backfill.generate(TSID.TSID_EPOCH - 1), //
+				() -> backfill.generate(TSID.TSID_EPOCH + (1L << 42)), //
+				() -> backfill.generate(Long.MIN_VALUE), //
+				() -> backfill.generate(new long[] { TSID.TSID_EPOCH, 0 }, new long[2]), //
+				() -> backfill.generate(new long[1], new long[2]), //
+		};
+		for (Runnable runnable : invalid) {
+			try {
+				runnable.run();
+				fail("Should throw an exception");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+		// nothing of the invalid batch was generated
+		assertEquals(0, backfill.size());
+	}
+}
@@ -45,6 +45,30 @@ public class TsidBaseNTest {
 		}
 	}
 
+	@Test
+	public void testAllBases() {
+		final BigInteger max = BigInteger.ONE.shiftLeft(64);
+		final long[] numbers = { 0L, 1L, Long.MAX_VALUE, Long.MIN_VALUE, -1L, TSID.fast().toLong() };
+		for (int radix = 2; radix <= 62; radix++) {
+			final int length = (int) Math.ceil(64 / (Math.log(radix) / Math.log(2)));
+			for (long number : numbers) {
+				BigInteger o = new BigInteger(1, TSID.from(number).toBytes());
+				TSID tsid = new TSID(number);
+				assertEquals(encode(o, radix, length), tsid.encode(radix));
+				assertEquals(tsid, TSID.decode(encode(o, radix, length), radix));
+			}
+			// 2^64 is the smallest value that overflows, if it fits in the string
+			if (BigInteger.valueOf(radix).pow(length).compareTo(max) > 0) {
+				try {
+					TSID.decode(encode(max, radix, length), radix);
+					fail();
+				} catch (IllegalArgumentException e) {
+					// success
+				}
+			}
+		}
+	}
+
 	@Test
 	public void testIllegalArgumentException() {
 
@@ -117,6 +141,18 @@ public class TsidBaseNTest {
 		}
 	}
 
+	private static String encode(BigInteger number, int radix, int length) {
+		final String alphabet = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+		final BigInteger base = BigInteger.valueOf(radix);
+		final StringBuilder builder = new StringBuilder();
+		while (builder.length() < length) {
+			BigInteger[] result = number.divideAndRemainder(base);
+			builder.append(alphabet.charAt(result[1].intValue()));
+			number = result[0];
+		}
+		return builder.reverse().toString();
+	}
+
 	private static final String[][] BASE10 = { //
 			{ "0000000000000000", "00000000000000000000" }, //
 			{ "ffffffffffffffff", "18446744073709551615" }, //
@@ -0,0 +1,202 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class TsidBloomFilterTest {
+
+	private static final int LOOP_MAX = 100_000;
+
+	private static long[] tsids(int count) {
+		final TSID.Factory factory = TSID.Factory.newInstance1024(1);
+		final long[] tsids = new long[count];
+		for (int i = 0; i < count; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+		return tsids;
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		final long[] tsids = tsids(LOOP_MAX);
+		final TsidBloomFilter filter = new TsidBloomFilter(LOOP_MAX, 0.01);
+		for (long tsid : tsids) {
+			filter.add(tsid);
+		}
+		for (long tsid : tsids) {
+			assertTrue(filter.mightContain(tsid));
+			assertTrue(filter.mightContain(TSID.from(tsid)));
+			assertFalse(filter.add(tsid));
+		}
+	}
+
+	@Test
+	public void testFalsePositiveRate() {
+		final long[] tsids = tsids(2 * LOOP_MAX);
+		final TsidBloomFilter filter = new TsidBloomFilter(LOOP_MAX, 0.01);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			filter.add(tsids[i]);
+		}
+		int positives = 0;
+		for (int i = LOOP_MAX; i < 2 * LOOP_MAX; i++) {
+			if (filter.mightContain(tsids[i])) {
+				positives++;
+			}
+		}
+		final double rate = (double) positives / LOOP_MAX;
+		assertTrue("False positive rate: " + rate, rate < 0.015);
+		assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+
+		filter.clear();
+		assertEquals(0.0, filter.expectedFalsePositiveRate(), 0.0);
+		assertFalse(filter.mightContain(tsids[0]));
+	}
+
+	@Test
+	public void testSizing() {
+		assertEquals(4096, TsidBloomFilter.maxPerMillisecond(10));
+		assertEquals(1L << 22, TsidBloomFilter.maxPerMillisecond(0));
+		assertEquals(864_000_000L, TsidBloomFilter.expectedInsertions(10, Duration.ofDays(1)));
+
+		// about 9.6 bits and 7 hashes per TSID for 1%
+		final long bits = TsidBloomFilter.optimalBits(1_000_000, 0.01);
+		assertEquals(9_585_059, bits);
+		assertEquals(7, TsidBloomFilter.optimalHashes(1_000_000, bits));
+		assertEquals(0.01, TsidBloomFilter.falsePositiveRate(1_000_000, bits, 7), 0.0005);
+
+		final TsidBloomFilter filter = new TsidBloomFilter(1_000_000, 0.01);
+		assertEquals(bits, filter.bitSize());
+		assertEquals(7, filter.hashCount());
+		assertEquals(16 + (bits + 63) / 64 * 8, filter.snapshotSize());
+
+		try {
+			TsidBloomFilter.maxPerMillisecond(21);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		for (double fpp : new double[] { 0, 1, Double.NaN }) {
+			try {
+				TsidBloomFilter.optimalBits(1000, fpp);
+				fail("Should throw an exception");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+		try {
+			new TsidBloomFilter(0L, 1);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testSnapshot() throws IOException {
+		final long[] tsids = tsids(10_000);
+		final TsidBloomFilter filter = new TsidBloomFilter(tsids.length, 0.001);
+		for (long tsid : tsids) {
+			filter.add(tsid);
+		}
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		filter.writeTo(new DataOutputStream(bytes));
+		assertEquals(filter.snapshotSize(), bytes.size());
+		final TsidBloomFilter fromStream = TsidBloomFilter
+				.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		final ByteBuffer buffer = ByteBuffer.allocate((int) filter.snapshotSize() + 2);
+		buffer.put((byte) 1);
+		filter.writeTo(buffer).put((byte) 2);
+		assertArrayEquals(bytes.toByteArray(), Arrays.copyOfRange(buffer.array(), 1, buffer.capacity() - 1));
+		buffer.flip().position(1);
+		final TsidBloomFilter fromBuffer = TsidBloomFilter.readFrom(buffer);
+		assertEquals(2, buffer.get());
+
+		for (TsidBloomFilter restored : new TsidBloomFilter[] { fromStream, fromBuffer }) {
+			assertEquals(filter.bitSize(), restored.bitSize());
+			assertEquals(filter.hashCount(), restored.hashCount());
+			assertEquals(filter.expectedFalsePositiveRate(), restored.expectedFalsePositiveRate(), 0.0);
+			for (long tsid : tsids) {
+				assertTrue(restored.mightContain(tsid));
+			}
+		}
+
+		try {
+			TsidBloomFilter.readFrom(ByteBuffer.wrap(bytes.toByteArray(), 0, 100));
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		final byte[] corrupt = bytes.toByteArray();
+		corrupt[0] = 0;
+		try {
+			TsidBloomFilter.readFrom(ByteBuffer.wrap(corrupt));
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testTruncatedSnapshot() throws IOException {
+		// a header that claims the largest filter, about 16 GiB, followed by 3 words
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0x54534246);
+		out.writeInt(7);
+		out.writeLong((long) (Integer.MAX_VALUE - 8) * Long.SIZE);
+		for (int i = 0; i < 3; i++) {
+			out.writeLong(-1L);
+		}
+		try {
+			TsidBloomFilter.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+			fail("Should throw an exception");
+		} catch (EOFException e) {
+			// success, without allocating the whole filter first
+		}
+	}
+
+	@Test
+	public void testConcurrentAdd() throws InterruptedException {
+		final int threadCount = 8;
+		final long[] tsids = tsids(LOOP_MAX);
+		final TsidBloomFilter filter = new TsidBloomFilter(LOOP_MAX, 0.01);
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int offset = t;
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = offset; i < LOOP_MAX; i += threadCount) {
+					filter.add(tsids[i]);
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (long tsid : tsids) {
+			assertTrue(filter.mightContain(tsid));
+		}
+	}
+}
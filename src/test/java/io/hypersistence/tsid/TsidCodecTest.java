@@ -0,0 +1,235 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+public class TsidCodecTest {
+
+	private static final int LOOP_MAX = 1_000;
+
+	@Test
+	public void testEncodeChars() {
+		final long[] tsids = randomTsids(LOOP_MAX);
+
+		char[] chars = new char[TsidCodec.encodedLength(tsids.length, false) + 2];
+		assertEquals(chars.length - 1, TsidCodec.encode(tsids, 0, tsids.length, chars, 1));
+		assertEquals(join(tsids, ""), new String(chars, 1, chars.length - 2));
+
+		chars = new char[TsidCodec.encodedLength(tsids.length, true)];
+		assertEquals(chars.length, TsidCodec.encode(tsids, 0, tsids.length, chars, 0, '\n'));
+		assertEquals(join(tsids, "\n"), new String(chars));
+	}
+
+	@Test
+	public void testEncodeBytes() {
+		final long[] tsids = randomTsids(LOOP_MAX);
+
+		byte[] bytes = new byte[TsidCodec.encodedLength(tsids.length - 2, false)];
+		assertEquals(bytes.length, TsidCodec.encode(tsids, 1, tsids.length - 1, bytes, 0));
+		assertEquals(join(Arrays.copyOfRange(tsids, 1, tsids.length - 1), ""),
+				new String(bytes, StandardCharsets.US_ASCII));
+
+		bytes = new byte[TsidCodec.encodedLength(tsids.length, true)];
+		assertEquals(bytes.length, TsidCodec.encode(tsids, 0, tsids.length, bytes, 0, (byte) ','));
+		assertEquals(join(tsids, ","), new String(bytes, StandardCharsets.US_ASCII));
+	}
+
+	@Test
+	public void testEncodedLength() {
+		assertEquals(0, TsidCodec.encodedLength(0, true));
+		assertEquals(13, TsidCodec.encodedLength(1, true));
+		assertEquals(27, TsidCodec.encodedLength(2, true));
+		assertEquals(26, TsidCodec.encodedLength(2, false));
+
+		// the largest counts whose encoding fits in an array
+		assertEquals(153_391_689 * 14 - 1, TsidCodec.encodedLength(153_391_689, true));
+		assertEquals(165_191_049 * 13, TsidCodec.encodedLength(165_191_049, false));
+		try {
+			TsidCodec.encodedLength(153_391_690, true);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			TsidCodec.encodedLength(165_191_050, false);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			TsidCodec.encodedLength(Integer.MAX_VALUE, false);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testDecode() {
+		final long[] tsids = randomTsids(LOOP_MAX);
+
+		byte[] bytes = join(tsids, "").toLowerCase().getBytes(StandardCharsets.US_ASCII);
+		long[] decoded = new long[tsids.length];
+		assertEquals(tsids.length, TsidCodec.decode(bytes, 0, bytes.length, decoded, 0));
+		assertArrayEquals(tsids, decoded);
+
+		bytes = join(tsids, "\n").getBytes(StandardCharsets.US_ASCII);
+		decoded = new long[tsids.length];
+		assertEquals(tsids.length, TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', decoded, 0));
+		assertArrayEquals(tsids, decoded);
+
+		// with a trailing separator
+		bytes = (join(tsids, "\n") + "\n").getBytes(StandardCharsets.US_ASCII);
+		decoded = new long[tsids.length + 1];
+		assertEquals(tsids.length, TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', decoded, 1));
+		assertArrayEquals(tsids, Arrays.copyOfRange(decoded, 1, decoded.length));
+	}
+
+	@Test
+	public void testDecodeInvalid() {
+		final long[] tsids = randomTsids(10);
+		final byte[] bytes = join(tsids, "\n").getBytes(StandardCharsets.US_ASCII);
+		final long[] decoded = new long[tsids.length];
+
+		try {
+			TsidCodec.decode(bytes, 0, bytes.length - 1, (byte) '\n', decoded, 0);
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		try {
+			TsidCodec.decode(bytes, 0, bytes.length, (byte) ',', decoded, 0);
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		bytes[5 * 14 + 3] = 'u';
+		try {
+			TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', decoded, 0);
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertTrue(e.getMessage().contains(String.valueOf(5 * 14)));
+		}
+
+		try {
+			TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', new long[tsids.length - 1], 0);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			final int count = TsidCodec.PARALLEL_THRESHOLD * 5 + 3;
+			final long[] tsids = randomTsids(count);
+
+			final byte[] bytes = new byte[TsidCodec.encodedLength(count, true)];
+			assertEquals(bytes.length, TsidCodec.parallelEncode(tsids, 0, count, bytes, 0, (byte) '\n', pool));
+			final byte[] expected = new byte[bytes.length];
+			TsidCodec.encode(tsids, 0, count, expected, 0, (byte) '\n');
+			assertArrayEquals(expected, bytes);
+
+			final char[] chars = new char[TsidCodec.encodedLength(count, true)];
+			assertEquals(chars.length, TsidCodec.parallelEncode(tsids, 0, count, chars, 0, '\n', pool));
+			assertEquals(new String(bytes, StandardCharsets.US_ASCII), new String(chars));
+
+			final long[] decoded = new long[count];
+			assertEquals(count, TsidCodec.parallelDecode(bytes, 0, bytes.length, (byte) '\n', decoded, 0, pool));
+			assertArrayEquals(tsids, decoded);
+
+			bytes[TsidCodec.PARALLEL_THRESHOLD * 14 * 3 - 1] = ' ';
+			try {
+				TsidCodec.parallelDecode(bytes, 0, bytes.length, (byte) '\n', decoded, 0, pool);
+				fail("Should throw an IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testVectorDecode() {
+		// set by the surefire execution that adds the incubator module
+		final String expected = System.getProperty("tsid.vector.available");
+		if (expected != null) {
+			assertEquals(Boolean.parseBoolean(expected), TsidCodec.isVectorDecodeAvailable());
+		}
+
+		for (int count : new int[] { 0, 1, 2, 255, 256, 257, LOOP_MAX * 2 + 1 }) {
+			final long[] tsids = randomTsids(count);
+
+			byte[] bytes = join(tsids, "").toLowerCase().getBytes(StandardCharsets.US_ASCII);
+			long[] decoded = new long[count];
+			assertEquals(count, TsidCodec.vectorDecode(bytes, 0, bytes.length, decoded, 0));
+			assertArrayEquals(tsids, decoded);
+
+			bytes = ("-" + join(tsids, "\n") + (count > 0 ? "\n" : "")).getBytes(StandardCharsets.US_ASCII);
+			decoded = new long[count + 1];
+			assertEquals(count, TsidCodec.vectorDecode(bytes, 1, bytes.length - 1, (byte) '\n', decoded, 1));
+			assertArrayEquals(tsids, Arrays.copyOfRange(decoded, 1, decoded.length));
+		}
+	}
+
+	@Test
+	public void testVectorDecodeInvalid() {
+		final long[] tsids = randomTsids(LOOP_MAX);
+		final byte[] valid = join(tsids, "\n").getBytes(StandardCharsets.US_ASCII);
+		final byte[] invalid = { 'u', 'U', 'G', '/', ':', '@', '[', '`', '{', ' ', '\n', 0, (byte) 0x80, (byte) 0xb0,
+				(byte) 0xff };
+
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final byte[] bytes = valid.clone();
+			final int position = ThreadLocalRandom.current().nextInt(bytes.length);
+			bytes[position] = invalid[ThreadLocalRandom.current().nextInt(invalid.length)];
+
+			// both decoders must agree
+			final long[] expected = new long[tsids.length];
+			final long[] decoded = new long[tsids.length];
+			String message = null;
+			try {
+				TsidCodec.decode(bytes, 0, bytes.length, (byte) '\n', expected, 0);
+			} catch (IllegalArgumentException e) {
+				message = e.getMessage();
+			}
+			try {
+				TsidCodec.vectorDecode(bytes, 0, bytes.length, (byte) '\n', decoded, 0);
+				assertNull(message);
+				assertArrayEquals(expected, decoded);
+			} catch (IllegalArgumentException e) {
+				assertEquals(message, e.getMessage());
+			}
+		}
+	}
+
+	private static long[] randomTsids(int count) {
+		final long[] tsids = new long[count];
+		for (int i = 0; i < count; i++) {
+			tsids[i] = ThreadLocalRandom.current().nextLong();
+		}
+		return tsids;
+	}
+
+	private static String join(long[] tsids, String separator) {
+		final StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < tsids.length; i++) {
+			if (i > 0) {
+				builder.append(separator);
+			}
+			builder.append(TSID.from(tsids[i]).toString());
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,118 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+public class TsidColumnCodecTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	@Test
+	public void testGeneratedSequence() {
+		final TSID.Factory factory = TSID.Factory.builder().withNode(1).build();
+		final long[] tsids = new long[LOOP_MAX];
+		for (int i = 0; i < tsids.length; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+
+		final byte[] bytes = TsidColumnCodec.encode(tsids);
+		assertArrayEquals(tsids, TsidColumnCodec.decode(ByteBuffer.wrap(bytes)));
+
+		// most TSIDs are in the same millisecond as the previous one
+		assertTrue(bytes.length < tsids.length * 5);
+	}
+
+	@Test
+	public void testRandomSequence() {
+		for (int size : new int[] { 0, 1, 2, 100, LOOP_MAX }) {
+			final long[] tsids = new long[size];
+			for (int i = 0; i < size; i++) {
+				tsids[i] = ThreadLocalRandom.current().nextLong();
+			}
+			// unsorted input is supported too
+			assertArrayEquals(tsids, TsidColumnCodec.decode(ByteBuffer.wrap(TsidColumnCodec.encode(tsids))));
+			Arrays.sort(tsids);
+			assertArrayEquals(tsids, TsidColumnCodec.decode(ByteBuffer.wrap(TsidColumnCodec.encode(tsids))));
+		}
+	}
+
+	@Test
+	public void testEdgeValues() {
+		final long[] tsids = { 0L, 0L, -1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 0L, TSID.RANDOM_MASK,
+				TSID.RANDOM_MASK + 1L, 1L };
+		assertArrayEquals(tsids, TsidColumnCodec.decode(ByteBuffer.wrap(TsidColumnCodec.encode(tsids))));
+	}
+
+	@Test
+	public void testEncoderAndDecoder() throws IOException {
+		final TSID.Factory factory = TSID.Factory.builder().build();
+		final TSID[] tsids = new TSID[LOOP_MAX];
+
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final TsidColumnCodec.Encoder encoder = new TsidColumnCodec.Encoder(new DataOutputStream(bytes));
+		for (int i = 0; i < tsids.length; i++) {
+			tsids[i] = factory.generate();
+			encoder.write(tsids[i]);
+		}
+		assertEquals(tsids.length, encoder.count());
+
+		final TsidColumnCodec.Decoder decoder = new TsidColumnCodec.Decoder(ByteBuffer.wrap(bytes.toByteArray()));
+		for (int i = 0; i < tsids.length; i++) {
+			assertTrue(decoder.hasNext());
+			assertEquals(tsids[i], decoder.nextTsid());
+		}
+		assertFalse(decoder.hasNext());
+		try {
+			decoder.nextLong();
+			fail("Should throw a NoSuchElementException");
+		} catch (NoSuchElementException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		final long[] tsids = { TSID.fast().toLong(), TSID.fast().toLong() };
+		final byte[] bytes = TsidColumnCodec.encode(tsids);
+
+		try {
+			TsidColumnCodec.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		try {
+			TsidColumnCodec.decode(ByteBuffer.wrap(new byte[] { 100, 0, 2 }));
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		final byte[] varint = new byte[12];
+		Arrays.fill(varint, (byte) 0x80);
+		try {
+			new TsidColumnCodec.Decoder(ByteBuffer.wrap(varint)).nextLong();
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		// a random delta that goes below zero
+		try {
+			new TsidColumnCodec.Decoder(ByteBuffer.wrap(new byte[] { 0, 1 })).nextLong();
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+}
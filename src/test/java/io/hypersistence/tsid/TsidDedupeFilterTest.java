@@ -0,0 +1,148 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class TsidDedupeFilterTest {
+
+	private static final int LOOP_MAX = 100_000;
+
+	private static long tsid(long millis, long random) {
+		return (millis << TSID.RANDOM_BITS) | random;
+	}
+
+	@Test
+	public void testAddAndContains() {
+		final TsidDedupeFilter filter = new TsidDedupeFilter(Duration.ofSeconds(10));
+		final SplittableRandom random = new SplittableRandom(1);
+		final long[] tsids = new long[LOOP_MAX];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			tsids[i] = tsid(1_000_000 + random.nextInt(10_000), random.nextInt(1 << TSID.RANDOM_BITS));
+		}
+		final TsidHashSet expected = new TsidHashSet();
+		for (long tsid : tsids) {
+			assertEquals(expected.add(tsid), filter.add(tsid));
+		}
+		for (long tsid : tsids) {
+			assertTrue(filter.contains(tsid));
+			assertFalse(filter.add(TSID.from(tsid)));
+		}
+		assertEquals(expected.size(), filter.size());
+		assertFalse(filter.contains(tsid(1_005_000, 0)) && !expected.contains(tsid(1_005_000, 0)));
+
+		filter.clear();
+		assertEquals(0, filter.size());
+		assertFalse(filter.contains(tsids[0]));
+		assertTrue(filter.add(tsids[0]));
+	}
+
+	@Test
+	public void testExpiry() {
+		// 10 buckets of 100 ms
+		final TsidDedupeFilter filter = new TsidDedupeFilter(Duration.ofSeconds(1), 10, 1);
+
+		assertTrue(filter.add(tsid(1_000, 1)));
+		assertTrue(filter.add(tsid(1_999, 1)));
+		assertTrue(filter.contains(tsid(1_000, 1)));
+
+		// the window moves forward, but still covers the first TSID
+		assertTrue(filter.add(tsid(2_000, 1)));
+		assertTrue(filter.contains(tsid(1_000, 1)));
+		assertFalse(filter.add(tsid(1_000, 1)));
+
+		// now the first bucket is dropped
+		assertTrue(filter.add(tsid(2_100, 1)));
+		assertFalse(filter.contains(tsid(1_000, 1)));
+		assertTrue(filter.contains(tsid(1_999, 1)));
+		assertEquals(3, filter.size());
+
+		// TSIDs older than the window are rejected
+		assertFalse(filter.add(tsid(1_050, 2)));
+		assertFalse(filter.contains(tsid(1_050, 2)));
+
+		// a jump forward drops everything behind it
+		assertTrue(filter.add(tsid(10_000, 1)));
+		assertEquals(1, filter.size());
+		assertFalse(filter.contains(tsid(2_100, 1)));
+	}
+
+	@Test
+	public void testBoundedMemory() {
+		final TsidDedupeFilter filter = new TsidDedupeFilter(Duration.ofMillis(100), 4, 1);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			// 10 TSIDs per millisecond
+			assertTrue(filter.add(tsid(i / 10, i % 10)));
+		}
+		// at most 5 buckets of 25 ms
+		assertTrue(filter.size() <= 5 * 25 * 10);
+		assertTrue(filter.size() >= 100 * 10);
+	}
+
+	@Test
+	public void testConcurrentIngest() throws InterruptedException {
+
+		final int threadCount = 8;
+		final TsidDedupeFilter filter = new TsidDedupeFilter(Duration.ofMinutes(1), 16, 8);
+		final TSID.Factory factory = TSID.Factory.newInstance256();
+		final long[] tsids = new long[LOOP_MAX];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+
+		// every TSID is delivered by two threads
+		final AtomicInteger accepted = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final int offset = t / 2;
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = offset; i < LOOP_MAX; i += threadCount / 2) {
+					if (filter.add(tsids[i])) {
+						accepted.incrementAndGet();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(LOOP_MAX, accepted.get());
+		assertEquals(LOOP_MAX, filter.size());
+		for (long tsid : tsids) {
+			assertTrue(filter.contains(tsid));
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		for (int[] args : new int[][] { { 0, 1 }, { 1, 0 }, { 1 << 17, 1 }, { 1, 1 << 17 } }) {
+			try {
+				new TsidDedupeFilter(Duration.ofDays(1), args[0], args[1]);
+				fail("Should throw an exception");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+		try {
+			new TsidDedupeFilter(Duration.ofMillis(15));
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TsidFactoryRegistryTest {
+
+	private static final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+
+	private static final class TestClock extends Clock {
+
+		private final AtomicLong millis = new AtomicLong(NOW.toEpochMilli());
+
+		@Override
+		public long millis() {
+			return millis.get();
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis());
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+	@Test
+	public void testFactoryPerKey() {
+		final TsidFactoryRegistry registry = TsidFactoryRegistry.builder().build();
+		final Instant customEpoch = Instant.parse("2010-01-01T00:00:00Z");
+		final TsidFactoryRegistry.Key key = TsidFactoryRegistry.Key.of(10, 5, customEpoch);
+
+		assertSame(registry.get(key), registry.get(TsidFactoryRegistry.Key.of(10, 5, customEpoch)));
+		assertNotSame(registry.get(key), registry.get(TsidFactoryRegistry.Key.of(10, 6, customEpoch)));
+		assertNotSame(registry.get(key), registry.get(TsidFactoryRegistry.Key.of(10, 5)));
+		assertEquals(3, registry.size());
+
+		final TSID tsid = registry.generate(key);
+		assertEquals(5, tsid.getRandom() >>> 12);
+		final long millis = tsid.getUnixMilliseconds(customEpoch.toEpochMilli());
+		assertTrue(Math.abs(System.currentTimeMillis() - millis) < 10_000);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEviction() {
+		final TestClock clock = new TestClock();
+		final TsidFactoryRegistry registry = TsidFactoryRegistry.builder().withMaximumSize(100).withClock(clock)
+				.build();
+		for (int i = 0; i < 100; i++) {
+			registry.get(TsidFactoryRegistry.Key.of(10, i));
+			clock.millis.incrementAndGet();
+		}
+		// the first key is used again, so it's not the least recently used
+		final TSID.Factory first = registry.get(TsidFactoryRegistry.Key.of(10, 0));
+		clock.millis.incrementAndGet();
+		assertEquals(100, registry.size());
+
+		registry.get(TsidFactoryRegistry.Key.of(10, 100));
+		assertTrue(registry.size() <= 100);
+		assertTrue(registry.size() >= 100 - 100 / 16);
+		assertSame(first, registry.get(TsidFactoryRegistry.Key.of(10, 0)));
+		assertSame(registry.get(TsidFactoryRegistry.Key.of(10, 100)),
+				registry.get(TsidFactoryRegistry.Key.of(10, 100)));
+	}
+
+	@Test
+	public void testExpireAfterAccess() {
+		final TestClock clock = new TestClock();
+		final TsidFactoryRegistry registry = TsidFactoryRegistry.builder()
+				.withExpireAfterAccess(Duration.ofMinutes(1)).withClock(clock).build();
+		final TSID.Factory idle = registry.get(TsidFactoryRegistry.Key.of(10, 1));
+		registry.get(TsidFactoryRegistry.Key.of(10, 2));
+
+		clock.millis.addAndGet(50_000);
+		registry.get(TsidFactoryRegistry.Key.of(10, 2));
+		clock.millis.addAndGet(20_000);
+		registry.cleanUp();
+		assertEquals(1, registry.size());
+		assertNotSame(idle, registry.get(TsidFactoryRegistry.Key.of(10, 1)));
+	}
+
+	@Test
+	public void testMonotonicAfterRebuild() {
+		// a stopped clock, so that the factory runs ahead of it
+		final TestClock clock = new TestClock();
+		final TsidFactoryRegistry registry = TsidFactoryRegistry.builder().withMaximumSize(1).withClock(clock)
+				.build();
+		final TsidFactoryRegistry.Key key = TsidFactoryRegistry.Key.of(20, 7);
+		final TsidFactoryRegistry.Key other = TsidFactoryRegistry.Key.of(20, 8);
+
+		TSID last = null;
+		for (int round = 0; round < 10; round++) {
+			final TSID.Factory factory = registry.get(key);
+			for (int i = 0; i < 100; i++) {
+				final TSID tsid = factory.generate();
+				if (last != null) {
+					assertTrue(tsid.compareTo(last) > 0);
+				}
+				last = tsid;
+			}
+			// evicts the factory of the key
+			registry.get(other);
+			assertEquals(1, registry.size());
+		}
+		assertTrue(last.getUnixMilliseconds() > NOW.toEpochMilli() + 200);
+	}
+
+	@Test
+	public void testConcurrentGet() throws InterruptedException {
+		final int threadCount = 8;
+		final TsidFactoryRegistry registry = TsidFactoryRegistry.builder().withMaximumSize(50).build();
+		final long[][] tsids = new long[threadCount][10_000];
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final long[] mine = tsids[t];
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < mine.length; i++) {
+					mine[i] = registry.generate(TsidFactoryRegistry.Key.of(10, i % 200)).toLong();
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(registry.size() <= 50);
+		final TsidHashSet set = new TsidHashSet(threadCount * 10_000);
+		for (long[] mine : tsids) {
+			for (long tsid : mine) {
+				assertTrue(set.add(tsid));
+			}
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		final Runnable[] invalid = { //
+				() -> TsidFactoryRegistry.Key.of(21, 0), //
+				() -> TsidFactoryRegistry.Key.of(10, 1024), //
+				() -> TsidFactoryRegistry.builder().withMaximumSize(0), //
+				() -> TsidFactoryRegistry.builder().withExpireAfterAccess(Duration.ZERO), //
+		};
+		for (Runnable runnable : invalid) {
+			try {
+				runnable.run();
+				fail("Should throw an exception");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+		assertEquals(TsidFactoryRegistry.Key.of(10, 1), TsidFactoryRegistry.Key.of(10, 1));
+		assertEquals(TsidFactoryRegistry.Key.of(10, 1).hashCode(), TsidFactoryRegistry.Key.of(10, 1).hashCode());
+	}
+}
@@ -10,7 +10,10 @@ import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntFunction;
 import java.util.function.IntSupplier;
 
@@ -404,6 +407,222 @@ public class TsidFactoryTest {
 		assertEquals(ms1, ms2); // LEAP SECOND! DON'T MOVE BACKWARDS!
 	}
 
+	@Test
+	public void testGenerateArray() {
+		// a fixed clock, so that the counter overflows into the next milliseconds
+		Clock clock = Clock.fixed(Instant.parse("2021-12-31T23:59:59.000Z"), ZoneOffset.UTC);
+		TSID.Factory factory = TSID.Factory.builder().withClock(clock).withNodeBits(10).withNode(7).build();
+
+		long[] tsids = new long[10_000 + 2];
+		factory.generate(tsids, 1, 10_000);
+		assertEquals(0, tsids[0]);
+		assertEquals(0, tsids[tsids.length - 1]);
+		for (int i = 1; i <= 10_000; i++) {
+			assertEquals(7, (tsids[i] & TSID.RANDOM_MASK) >>> 12);
+			if (i > 1) {
+				assertTrue(TSID.from(tsids[i]).compareTo(TSID.from(tsids[i - 1])) > 0);
+			}
+		}
+		// more than 4096 TSIDs in the same millisecond
+		assertTrue(TSID.from(tsids[10_000]).getUnixMilliseconds() > clock.millis() + 1);
+
+		// the next TSIDs continue after the array
+		TSID next = factory.generate();
+		assertTrue(next.compareTo(TSID.from(tsids[10_000])) > 0);
+
+		try {
+			factory.generate(tsids, 10, tsids.length);
+			fail("Should throw an exception");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testStream() {
+		TSID.Factory factory = TSID.Factory.builder().withNodeBits(10).build();
+		long[] tsids = factory.stream().limit(LOOP_MAX).toArray();
+		assertEquals(LOOP_MAX, tsids.length);
+		for (int i = 1; i < tsids.length; i++) {
+			assertTrue(TSID.from(tsids[i]).compareTo(TSID.from(tsids[i - 1])) > 0);
+		}
+	}
+
+	@Test
+	public void testParallelStream() throws Exception {
+		final int count = 100_000;
+		TSID.Factory factory = TSID.Factory.builder().withNodeBits(10).build();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			long[] tsids = pool.submit(() -> factory.stream().parallel().limit(count).toArray()).get();
+			assertEquals(count, tsids.length);
+			TsidHashSet set = new TsidHashSet(count);
+			for (long tsid : tsids) {
+				assertTrue(set.add(tsid));
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testLockFree() throws Exception {
+		final int threads = 8;
+		final int count = 20_000;
+		// a fixed clock, so that the threads contend on the same millisecond
+		Clock clock = Clock.fixed(Instant.parse("2021-12-31T23:59:59.000Z"), ZoneOffset.UTC);
+		TSID.Factory factory = TSID.Factory.builder().withClock(clock).withNodeBits(10).withNode(3).withLockFree()
+				.build();
+
+		long[][] tsids = new long[threads][count];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final long[] mine = tsids[t];
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					mine[i] = factory.generate().toLong();
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		TsidHashSet set = new TsidHashSet(threads * count);
+		for (long[] mine : tsids) {
+			for (int i = 0; i < count; i++) {
+				assertEquals(3, (mine[i] & TSID.RANDOM_MASK) >>> 12);
+				assertTrue(set.add(mine[i]));
+				if (i > 0) {
+					assertTrue(TSID.from(mine[i]).compareTo(TSID.from(mine[i - 1])) > 0);
+				}
+			}
+		}
+
+		// the counter overflows into the next milliseconds, as with the lock
+		long[] array = new long[10_000];
+		factory.generate(array, 0, array.length);
+		for (int i = 1; i < array.length; i++) {
+			assertTrue(TSID.from(array[i]).compareTo(TSID.from(array[i - 1])) > 0);
+		}
+		assertTrue(TSID.from(array[array.length - 1]).getUnixMilliseconds() > clock.millis() + 1);
+	}
+
+	@Test
+	public void testStriped() throws Exception {
+		final int threads = 8;
+		final int count = 20_000;
+		// a fixed clock, so that the threads contend on the same millisecond
+		Clock clock = Clock.fixed(Instant.parse("2021-12-31T23:59:59.000Z"), ZoneOffset.UTC);
+		TSID.Factory factory = TSID.Factory.builder().withClock(clock).withNodeBits(10).withNode(3).withStripes(16)
+				.build();
+
+		long[][] tsids = new long[threads][count];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final long[] mine = tsids[t];
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					mine[i] = factory.generate().toLong();
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		TsidHashSet set = new TsidHashSet(threads * count + 10_000);
+		for (long[] mine : tsids) {
+			for (int i = 0; i < count; i++) {
+				assertEquals(3, (mine[i] & TSID.RANDOM_MASK) >>> 12);
+				assertTrue(set.add(mine[i]));
+			}
+		}
+
+		// the TSIDs of an array come from one slot, and overflow into the next milliseconds
+		long[] array = new long[10_000];
+		factory.generate(array, 0, array.length);
+		for (int i = 0; i < array.length; i++) {
+			assertEquals(3, (array[i] & TSID.RANDOM_MASK) >>> 12);
+			assertEquals((array[0] >>> 8) & 15, (array[i] >>> 8) & 15);
+			assertTrue(set.add(array[i]));
+			if (i > 0) {
+				assertTrue(TSID.from(array[i]).compareTo(TSID.from(array[i - 1])) > 0);
+			}
+		}
+		assertTrue(TSID.from(array[array.length - 1]).getUnixMilliseconds() > clock.millis() + 1);
+
+		// the other slots follow the slot that ran ahead, whatever thread asks
+		final long ahead = TSID.from(array[array.length - 1]).getUnixMilliseconds();
+		for (int t = 0; t < threads; t++) {
+			final long[] mine = tsids[t];
+			Thread worker = new Thread(() -> mine[0] = factory.generate().toLong());
+			worker.start();
+			worker.join();
+			assertTrue(TSID.from(mine[0]).getUnixMilliseconds() >= ahead);
+		}
+
+		// every slot moves past an observed TSID
+		TSID observed = TSID.from(array[array.length - 1] + (1000L << TSID.RANDOM_BITS));
+		factory.observe(observed.toLong());
+		for (int i = 0; i < 100; i++) {
+			assertTrue(factory.generate().compareTo(observed) > 0);
+		}
+	}
+
+	@Test
+	public void testStripedOrder() throws Exception {
+		final int threads = 4;
+		final int count = 50_000;
+		TSID.Factory factory = TSID.Factory.builder().withStripes(16).build();
+
+		// each thread checks that its TSIDs never go back to an earlier millisecond
+		// than the greatest one returned before, by any thread
+		final AtomicLong highest = new AtomicLong();
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			workers[t] = new Thread(() -> {
+				for (int i = 0; i < count; i++) {
+					final long before = highest.get();
+					final long millis = factory.generate().getUnixMilliseconds();
+					if (millis < before) {
+						failures.incrementAndGet();
+					}
+					highest.accumulateAndGet(millis, Math::max);
+				}
+			});
+			workers[t].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		assertEquals(0, failures.get());
+	}
+
+	@Test
+	public void testStripedCounterBits() {
+		Clock clock = Clock.fixed(Instant.parse("2021-12-31T23:59:59.000Z"), ZoneOffset.UTC);
+		// 2 counter bits, so only 1 bit for the slot
+		TSID.Factory factory = TSID.Factory.builder().withClock(clock).withNodeBits(20).withNode(5).withStripes(64)
+				.build();
+		TsidHashSet set = new TsidHashSet(LOOP_MAX);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			long tsid = factory.generate().toLong();
+			assertEquals(5, (tsid & TSID.RANDOM_MASK) >>> 2);
+			assertTrue(set.add(tsid));
+		}
+
+		try {
+			TSID.Factory.builder().withStripes(0);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
 	@Test
 	public void testByteRandomNextInt() {
 
@@ -0,0 +1,87 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class TsidHashMapTest {
+
+	private static final int LOOP_MAX = 100_000;
+
+	@Test
+	public void testAgainstHashMap() {
+		final SplittableRandom random = new SplittableRandom(1);
+		final TsidHashMap<String> map = new TsidHashMap<>();
+		final Map<Long, String> expected = new HashMap<>();
+		for (int i = 0; i < LOOP_MAX; i++) {
+			// a small range of keys, including zero, to force collisions and removals
+			final long key = random.nextInt(1000) == 0 ? 0L : random.nextLong(5_000);
+			final String value = String.valueOf(i);
+			switch (random.nextInt(5)) {
+			case 0:
+				assertEquals(expected.put(key, value), map.put(key, value));
+				break;
+			case 1:
+				assertEquals(expected.remove(key), map.remove(key));
+				break;
+			case 2:
+				assertEquals(expected.putIfAbsent(key, value), map.putIfAbsent(key, value));
+				break;
+			case 3:
+				assertEquals(expected.computeIfAbsent(key, k -> value), map.computeIfAbsent(key, k -> value));
+				break;
+			default:
+				assertEquals(expected.get(key), map.get(key));
+				assertEquals(expected.containsKey(key), map.containsKey(key));
+			}
+			assertEquals(expected.size(), map.size());
+		}
+		for (long key = 0; key < 5_000; key++) {
+			assertEquals(expected.get(key), map.get(key));
+			assertEquals(expected.getOrDefault(key, "none"), map.getOrDefault(key, "none"));
+		}
+
+		final Map<Long, String> consumed = new HashMap<>();
+		map.forEach((tsid, value) -> consumed.put(tsid, value));
+		assertEquals(expected, consumed);
+
+		final Set<Long> keys = new HashSet<>();
+		final PrimitiveIterator.OfLong iterator = map.keyIterator();
+		while (iterator.hasNext()) {
+			keys.add(iterator.nextLong());
+		}
+		assertEquals(expected.keySet(), keys);
+
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get(0L));
+	}
+
+	@Test
+	public void testGeneratedTsids() {
+		final TSID.Factory factory = TSID.Factory.builder().withNode(7).build();
+		final TsidHashMap<Integer> map = new TsidHashMap<>();
+		final TSID[] tsids = new TSID[LOOP_MAX];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			tsids[i] = factory.generate();
+			assertNull(map.put(tsids[i], i));
+		}
+		for (int i = 0; i < LOOP_MAX; i++) {
+			assertEquals(Integer.valueOf(i), map.get(tsids[i]));
+		}
+		assertNull(map.computeIfAbsent(1L, k -> null));
+		assertFalse(map.containsKey(1L));
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullValue() {
+		new TsidHashMap<String>().put(1L, null);
+	}
+}
@@ -0,0 +1,100 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class TsidHashSetTest {
+
+	private static final int LOOP_MAX = 100_000;
+
+	@Test
+	public void testAgainstHashSet() {
+		final SplittableRandom random = new SplittableRandom(1);
+		final TsidHashSet set = new TsidHashSet();
+		final Set<Long> expected = new HashSet<>();
+		for (int i = 0; i < LOOP_MAX; i++) {
+			// a small range of keys, including zero, to force collisions and removals
+			final long key = random.nextInt(1000) == 0 ? 0L : random.nextLong(5_000);
+			switch (random.nextInt(3)) {
+			case 0:
+				assertEquals(expected.add(key), set.add(key));
+				break;
+			case 1:
+				assertEquals(expected.remove(key), set.remove(key));
+				break;
+			default:
+				assertEquals(expected.contains(key), set.contains(key));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		for (long key = 0; key < 5_000; key++) {
+			assertEquals(expected.contains(key), set.contains(key));
+		}
+
+		final long[] array = set.toArray();
+		Arrays.sort(array);
+		assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), array);
+
+		final Set<Long> iterated = new HashSet<>();
+		final PrimitiveIterator.OfLong iterator = set.iterator();
+		while (iterator.hasNext()) {
+			iterated.add(iterator.nextLong());
+		}
+		assertEquals(expected, iterated);
+
+		final Set<Long> consumed = new HashSet<>();
+		set.forEach((long key) -> consumed.add(key));
+		assertEquals(expected, consumed);
+
+		set.clear();
+		assertTrue(set.isEmpty());
+		assertFalse(set.iterator().hasNext());
+	}
+
+	@Test
+	public void testGeneratedTsids() {
+		final TSID.Factory factory = TSID.Factory.builder().withNode(7).build();
+		final TsidHashSet set = new TsidHashSet(16);
+		final TSID[] tsids = new TSID[LOOP_MAX];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			tsids[i] = factory.generate();
+			assertTrue(set.add(tsids[i]));
+		}
+		assertEquals(LOOP_MAX, set.size());
+		for (int i = 0; i < LOOP_MAX; i++) {
+			assertFalse(set.add(tsids[i]));
+			assertTrue(set.contains(tsids[i]));
+		}
+		for (int i = 0; i < LOOP_MAX; i += 2) {
+			assertTrue(set.remove(tsids[i]));
+		}
+		for (int i = 0; i < LOOP_MAX; i++) {
+			assertEquals(i % 2 != 0, set.contains(tsids[i]));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidExpectedSize() {
+		new TsidHashSet(-1);
+	}
+
+	@Test
+	public void testGrow() {
+		assertEquals(16, Hashing.grow(8, "TSID set"));
+		assertEquals(Hashing.MAX_CAPACITY, Hashing.grow(Hashing.MAX_CAPACITY >>> 1, "TSID set"));
+		try {
+			// doubling would overflow to a negative capacity
+			Hashing.grow(Hashing.MAX_CAPACITY, "TSID set");
+			fail("Should throw an exception");
+		} catch (IllegalStateException e) {
+			assertEquals("TSID set is full", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,203 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class TsidHybridLogicalClockTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	private static final Instant NOW = Instant.parse("2023-01-01T00:00:00Z");
+
+	/**
+	 * A clock that starts at an offset and ticks one millisecond every few reads.
+	 */
+	private static final class SkewedClock extends Clock {
+
+		private final long start;
+		private final int readsPerTick;
+		private final AtomicLong reads = new AtomicLong();
+
+		private SkewedClock(Duration skew, int readsPerTick) {
+			this.start = NOW.plus(skew).toEpochMilli();
+			this.readsPerTick = readsPerTick;
+		}
+
+		@Override
+		public long millis() {
+			return start + reads.getAndIncrement() / readsPerTick;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis());
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+	private static TSID.Factory factory(Clock clock, int node, boolean hybrid) {
+		TSID.Factory.Builder builder = TSID.Factory.builder().withClock(clock).withNodeBits(10).withNode(node);
+		return (hybrid ? builder.withHybridLogicalClock() : builder).build();
+	}
+
+	@Test
+	public void testCausalOrderWithSkewedClocks() {
+		for (boolean hybrid : new boolean[] { true, false }) {
+			// three services, the first 10 s ahead, the last 10 s behind
+			TSID.Factory[] services = { //
+					factory(new SkewedClock(Duration.ofSeconds(10), 3), 1, hybrid), //
+					factory(new SkewedClock(Duration.ZERO, 5), 2, hybrid), //
+					factory(new SkewedClock(Duration.ofSeconds(-10), 7), 3, hybrid) };
+
+			TSID cause = services[0].generate();
+			for (int i = 0; i < LOOP_MAX; i++) {
+				// a message goes from a service to the next one, in a ring
+				TSID.Factory receiver = services[(i + 1) % services.length];
+				receiver.receive(cause);
+				TSID effect = receiver.generate();
+				assertTrue(effect.compareTo(cause) > 0);
+				cause = effect;
+			}
+		}
+	}
+
+	@Test
+	public void testObserveOldTsidChangesNothing() {
+		for (boolean hybrid : new boolean[] { true, false }) {
+			Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+			TSID.Factory factory = factory(clock, 1, hybrid);
+			TSID first = factory.generate();
+			factory.observe(TSID.from(first.toLong() - (1000L << 22)).toLong());
+			TSID second = factory.generate();
+			// still the same millisecond, with the next counter
+			assertEquals(first.getUnixMilliseconds(), second.getUnixMilliseconds());
+			assertEquals(first.toLong() + 1, second.toLong());
+		}
+	}
+
+	@Test
+	public void testObserveSameMillisecond() {
+		for (boolean hybrid : new boolean[] { true, false }) {
+			Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+			TSID.Factory factory = factory(clock, 1, hybrid);
+			TSID.Factory other = factory(clock, 1000, hybrid);
+			TSID tsid = other.generate();
+			factory.receive(tsid);
+			// the node of the other TSID is greater, so the time must move
+			TSID next = factory.generate();
+			assertTrue(next.compareTo(tsid) > 0);
+			assertEquals(tsid.getUnixMilliseconds() + 1, next.getUnixMilliseconds());
+			assertEquals(0, next.getRandom() & 0xfff);
+		}
+	}
+
+	@Test
+	public void testMonotonicWhenClockGoesBack() {
+		long[] times = { 1000, 1001, 900, 900, 1002, 500 };
+		Clock clock = new Clock() {
+			private int i;
+
+			@Override
+			public long millis() {
+				return NOW.toEpochMilli() + times[i++ % times.length];
+			}
+
+			@Override
+			public ZoneId getZone() {
+				return null;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return null;
+			}
+
+			@Override
+			public Instant instant() {
+				return null;
+			}
+		};
+		TSID.Factory factory = factory(clock, 1, true);
+		TSID previous = factory.generate();
+		for (int i = 0; i < LOOP_MAX; i++) {
+			TSID tsid = factory.generate();
+			assertTrue(tsid.compareTo(previous) > 0);
+			previous = tsid;
+		}
+	}
+
+	@Test
+	public void testCounterOverflow() {
+		Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+		TSID.Factory factory = TSID.Factory.builder().withClock(clock).withNodeBits(20).withNode(1)
+				.withHybridLogicalClock().build();
+		// 4 counter values per millisecond
+		long[] tsids = new long[100];
+		factory.generate(tsids, 0, tsids.length);
+		for (int i = 1; i < tsids.length; i++) {
+			assertTrue(TSID.from(tsids[i]).compareTo(TSID.from(tsids[i - 1])) > 0);
+			assertEquals(1, TSID.from(tsids[i]).getRandom() >>> 2);
+		}
+		assertTrue(TSID.from(tsids[99]).getUnixMilliseconds() >= NOW.toEpochMilli() + 24);
+	}
+
+	@Test
+	public void testConcurrentGenerate() throws InterruptedException {
+		final int threadCount = 8;
+		final TSID.Factory factory = factory(new SkewedClock(Duration.ZERO, 1000), 1, true);
+		final long[][] tsids = new long[threadCount][LOOP_MAX];
+		final CountDownLatch start = new CountDownLatch(1);
+		final Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final long[] mine = tsids[t];
+			threads[t] = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int i = 0; i < LOOP_MAX; i++) {
+					if (i % 100 == 0) {
+						factory.observe(mine[Math.max(0, i - 1)]);
+					}
+					mine[i] = factory.generate().toLong();
+				}
+			});
+			threads[t].start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		final TsidHashSet set = new TsidHashSet(threadCount * LOOP_MAX);
+		for (long[] mine : tsids) {
+			for (int i = 0; i < LOOP_MAX; i++) {
+				assertTrue(set.add(mine[i]));
+				if (i > 0) {
+					// each thread sees its TSIDs in order
+					assertTrue(TSID.from(mine[i]).compareTo(TSID.from(mine[i - 1])) > 0);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TsidListTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	@Test
+	public void testListOperations() {
+		final List<TSID> expected = new ArrayList<>();
+		final TsidList list = new TsidList(0);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final TSID tsid = TSID.fast();
+			expected.add(tsid);
+			list.add(tsid);
+		}
+		assertEquals(expected, list);
+		assertEquals(list, expected);
+		assertEquals(expected.hashCode(), list.hashCode());
+
+		final TSID first = TSID.fast();
+		expected.add(0, first);
+		list.add(0, first);
+		expected.remove(100);
+		list.remove(100);
+		assertEquals(expected.set(200, first), list.set(200, first));
+		expected.set(201, expected.get(200));
+		list.setLong(201, list.getLong(200));
+		assertEquals(expected.subList(0, 300), list.subList(0, 300));
+		assertEquals(expected, new TsidList(expected));
+
+		final long[] numbers = list.toLongArray();
+		assertEquals(list.size(), numbers.length);
+		assertEquals(list, TsidList.of(numbers));
+
+		list.clear();
+		assertTrue(list.isEmpty());
+		try {
+			list.get(0);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		for (int size : new int[] { 0, 1, 1023, 1024, 1025, LOOP_MAX }) {
+			final TsidList list = new TsidList();
+			final List<TSID> boxed = new ArrayList<>();
+			for (int i = 0; i < size; i++) {
+				list.addLong(TSID.fast().toLong());
+				boxed.add(list.get(i));
+			}
+
+			final byte[] bytes = serialize(list);
+			assertEquals(list, deserialize(bytes));
+
+			// about 8 bytes per TSID, plus block headers, instead of 14 for an ArrayList
+			if (size == LOOP_MAX) {
+				assertTrue(bytes.length < size * 8 * 1.01 + 100);
+				assertTrue(bytes.length * 1.5 < serialize(new ArrayList<>(boxed)).length);
+			}
+		}
+	}
+
+	@Test
+	public void testDeserializeTruncated() throws Exception {
+		final byte[] bytes = serialize(TsidList.of(1, 2, 3));
+		try {
+			deserialize(Arrays.copyOf(bytes, bytes.length - 5));
+			fail("Should throw an IOException");
+		} catch (IOException e) {
+			// success
+		}
+	}
+
+	static byte[] serialize(Object object) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(object);
+		}
+		return bytes.toByteArray();
+	}
+
+	static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+}
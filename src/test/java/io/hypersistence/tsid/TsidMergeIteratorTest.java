@@ -0,0 +1,120 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class TsidMergeIteratorTest {
+
+	private static long[][] sources(int count, SplittableRandom random) {
+		final long[][] sources = new long[count][];
+		for (int i = 0; i < count; i++) {
+			final long[] tsids = new long[random.nextInt(500)];
+			for (int j = 0; j < tsids.length; j++) {
+				// a narrow time range, so that sources overlap, with a few upper bits set
+				final long time = random.nextInt(50) == 0 ? (1L << 41) + random.nextInt(10) : random.nextInt(1000);
+				tsids[j] = (time << TSID.RANDOM_BITS) | random.nextInt(16);
+			}
+			TsidSort.sort(tsids);
+			sources[i] = tsids;
+		}
+		return sources;
+	}
+
+	private static List<PrimitiveIterator.OfLong> iterators(long[][] sources) {
+		final List<PrimitiveIterator.OfLong> iterators = new ArrayList<>();
+		for (long[] source : sources) {
+			iterators.add(Arrays.stream(source).iterator());
+		}
+		return iterators;
+	}
+
+	@Test
+	public void testMerge() {
+		final SplittableRandom random = new SplittableRandom(1);
+		for (int count : new int[] { 0, 1, 2, 3, 7, 64, 200 }) {
+			final long[][] sources = sources(count, random);
+			final long[] expected = Arrays.stream(sources).flatMapToLong(Arrays::stream).toArray();
+			TsidSort.sort(expected);
+
+			final TsidMergeIterator merge = new TsidMergeIterator(iterators(sources));
+			final long[] actual = new long[expected.length];
+			int size = 0;
+			while (merge.hasNext()) {
+				actual[size++] = merge.nextLong();
+			}
+			assertEquals(expected.length, size);
+			assertArrayEquals(expected, actual);
+			assertEquals(TsidMergeIterator.END_OF_SOURCES, merge.getWatermark());
+			try {
+				merge.nextLong();
+				fail("Should throw an exception");
+			} catch (NoSuchElementException e) {
+				// success
+			}
+		}
+	}
+
+	@Test
+	public void testWatermark() {
+		final SplittableRandom random = new SplittableRandom(2);
+		final long[][] sources = sources(20, random);
+		final List<Long> watermarks = new ArrayList<>();
+		final List<Integer> positions = new ArrayList<>();
+		final long[] delivered = new long[Arrays.stream(sources).mapToInt(s -> s.length).sum()];
+		final int[] size = new int[1];
+
+		final TsidMergeIterator merge = new TsidMergeIterator(iterators(sources), watermark -> {
+			watermarks.add(watermark);
+			positions.add(size[0]);
+		});
+		assertEquals(1, watermarks.size());
+		while (merge.hasNext()) {
+			delivered[size[0]++] = merge.nextLong();
+		}
+
+		assertEquals(TsidMergeIterator.END_OF_SOURCES, (long) watermarks.get(watermarks.size() - 1));
+		for (int i = 0; i < watermarks.size(); i++) {
+			if (i > 0) {
+				assertTrue(watermarks.get(i) > watermarks.get(i - 1));
+			}
+			// nothing delivered after the watermark is older than it
+			for (int j = positions.get(i); j < size[0]; j++) {
+				assertTrue(delivered[j] >>> TSID.RANDOM_BITS >= watermarks.get(i));
+			}
+		}
+	}
+
+	@Test
+	public void testStableAndTsid() {
+		final PrimitiveIterator.OfLong first = Arrays.stream(new long[] { 1, 2, 2, -1 }).iterator();
+		final PrimitiveIterator.OfLong second = Arrays.stream(new long[] { 0, 2, Long.MIN_VALUE }).iterator();
+		final TsidMergeIterator merge = TsidMergeIterator.of(first, second);
+		assertEquals(TSID.from(0), merge.nextTsid());
+		final long[] rest = new long[6];
+		for (int i = 0; i < rest.length; i++) {
+			rest[i] = merge.nextLong();
+		}
+		assertArrayEquals(new long[] { 1, 2, 2, 2, Long.MIN_VALUE, -1 }, rest);
+		assertFalse(merge.hasNext());
+	}
+
+	@Test
+	public void testUnsortedSource() {
+		final TsidMergeIterator merge = TsidMergeIterator.of(Arrays.stream(new long[] { 5, 3 }).iterator());
+		try {
+			// the unsorted TSID is detected when it is fetched, after 5 is taken
+			merge.nextLong();
+			fail("Should throw an exception");
+		} catch (IllegalStateException e) {
+			// success
+		}
+	}
+}
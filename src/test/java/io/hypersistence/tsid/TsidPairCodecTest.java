@@ -0,0 +1,114 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.junit.Test;
+
+/**
+ * Cross-checks the two-char lookup codec against the one-char reference codec.
+ */
+public class TsidPairCodecTest {
+
+	private static final int LOOP_MAX = 1_000_000;
+
+	private static final char[] ALPHABET_UPPERCASE = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+	private static final char[] ALPHABET_LOWERCASE = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+
+	// some chars that are not in the ASCII range, but that are ASCII chars if masked
+	private static final char[] NON_ASCII_CHARS = { '\u0080', '\u00b0', '\u00d0', '\u0130', '\u0141', '\uff10',
+			'\uffff' };
+
+	@Test
+	public void testEncodeRandom() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			assertEquals(referenceString(number, ALPHABET_UPPERCASE), TSID.from(number).toString());
+			assertEquals(referenceString(number, ALPHABET_LOWERCASE), TSID.from(number).toLowerCase());
+		}
+	}
+
+	@Test
+	public void testEncodeAllPairs() {
+		// every 10-bit group in every position, including the 4-bit group in front
+		for (int shift = 0; shift <= 60; shift += 10) {
+			for (long group = 0; group < 1024; group++) {
+				final long number = (group << shift) | (ThreadLocalRandom.current().nextLong() & ~(0x3ffL << shift));
+				assertEquals(referenceString(number, ALPHABET_UPPERCASE), TSID.from(number).toString());
+				assertEquals(referenceString(number, ALPHABET_LOWERCASE), TSID.from(number).toLowerCase());
+			}
+		}
+	}
+
+	@Test
+	public void testDecodeRandom() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			final char[] chars = referenceString(number, ALPHABET_UPPERCASE).toCharArray();
+			for (int j = 0; j < chars.length; j++) {
+				if (ThreadLocalRandom.current().nextBoolean()) {
+					chars[j] = Character.toLowerCase(chars[j]);
+				}
+			}
+			final String string = new String(chars);
+			assertEquals(number, TSID.decode(string, 0L));
+			assertEquals(number, TSID.decodeReference(string, 0L));
+		}
+	}
+
+	@Test
+	public void testDecodeAllPairs() {
+		final char[] chars = TSID.fast().toString().toCharArray();
+		for (int i = 1; i < TSID.TSID_CHARS; i += 2) {
+			final char hi = chars[i];
+			final char lo = chars[i + 1];
+			for (char c1 = 0; c1 < 128; c1++) {
+				for (char c2 = 0; c2 < 128; c2++) {
+					chars[i] = c1;
+					chars[i + 1] = c2;
+					assertSameDecoding(new String(chars));
+				}
+			}
+			for (char c1 : NON_ASCII_CHARS) {
+				for (char c2 = 0; c2 < 128; c2++) {
+					chars[i] = c1;
+					chars[i + 1] = c2;
+					assertSameDecoding(new String(chars));
+					chars[i] = c2;
+					chars[i + 1] = c1;
+					assertSameDecoding(new String(chars));
+				}
+			}
+			chars[i] = hi;
+			chars[i + 1] = lo;
+		}
+	}
+
+	@Test
+	public void testDecodeAllFirstChars() {
+		final char[] chars = TSID.fast().toString().toCharArray();
+		for (char c = 0; c < 256; c++) {
+			chars[0] = c;
+			assertSameDecoding(new String(chars));
+		}
+		for (char c : NON_ASCII_CHARS) {
+			chars[0] = c;
+			assertSameDecoding(new String(chars));
+		}
+	}
+
+	private static void assertSameDecoding(String string) {
+		final long expected0 = TSID.decodeReference(string, 0L);
+		final long expected1 = TSID.decodeReference(string, 1L);
+		assertEquals(string, expected0, TSID.decode(string, 0L));
+		assertEquals(string, expected1, TSID.decode(string, 1L));
+		assertEquals(string, expected0 == expected1, TSID.isValid(string));
+	}
+
+	private static String referenceString(final long number, final char[] alphabet) {
+		final char[] chars = new char[TSID.TSID_CHARS];
+		TSID.encodeReference(number, alphabet, chars, 0);
+		return new String(chars);
+	}
+}
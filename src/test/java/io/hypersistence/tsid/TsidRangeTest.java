@@ -0,0 +1,160 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class TsidRangeTest {
+
+	private static final Instant CUSTOM_EPOCH = Instant.parse("1989-11-09T00:00:00Z");
+
+	@Test
+	public void testOfInstant() {
+		final TSID.Factory factory = TSID.Factory.newInstance1024();
+		for (int i = 0; i < 1000; i++) {
+			final TSID tsid = factory.generate();
+			final TsidRange range = TsidRange.of(tsid.getInstant());
+			assertTrue(range.contains(tsid));
+			assertEquals(tsid.getInstant(), range.getMinTsid().getInstant());
+			assertEquals(tsid.getInstant(), range.getMaxTsid().getInstant());
+			assertEquals(tsid.getInstant().minusMillis(1), TSID.from(range.getMin() - 1).getInstant());
+			assertEquals(tsid.getInstant().plusMillis(1), TSID.from(range.getMax() + 1).getInstant());
+		}
+
+		final TsidRange epoch = TsidRange.of(Instant.ofEpochMilli(TSID.TSID_EPOCH));
+		assertEquals(0L, epoch.getMin());
+		assertEquals(TSID.RANDOM_MASK, epoch.getMax());
+	}
+
+	@Test
+	public void testCustomEpoch() {
+		final TSID.Factory factory = TSID.Factory.builder().withCustomEpoch(CUSTOM_EPOCH).build();
+		final TSID tsid = factory.generate();
+		final Instant instant = tsid.getInstant(CUSTOM_EPOCH);
+		assertTrue(TsidRange.of(instant, CUSTOM_EPOCH).contains(tsid));
+		assertFalse(TsidRange.of(instant).contains(tsid));
+		assertTrue(TsidRange.between(instant, instant.plusSeconds(1), CUSTOM_EPOCH).contains(tsid));
+	}
+
+	@Test
+	public void testBetween() {
+		final Instant from = Instant.parse("2023-01-01T10:00:00Z");
+		final Instant to = Instant.parse("2023-01-01T10:05:00Z");
+		final TsidRange range = TsidRange.between(from, to);
+		assertEquals(from, range.getMinTsid().getInstant());
+		assertEquals(to.minusMillis(1), range.getMaxTsid().getInstant());
+		assertEquals(TsidRange.of(from).getMin(), range.getMin());
+		assertEquals(TsidRange.of(to).getMin() - 1, range.getMax());
+		assertFalse(range.contains(TsidRange.of(to).getMin()));
+		assertFalse(range.contains(range.getMin() - 1));
+
+		// the whole time range of the custom epoch
+		final Instant end = Instant.ofEpochMilli(CUSTOM_EPOCH.toEpochMilli() + (1L << 42));
+		final TsidRange all = TsidRange.between(CUSTOM_EPOCH, end, CUSTOM_EPOCH);
+		assertEquals(0L, all.getMin());
+		assertEquals(-1L, all.getMax());
+		assertEquals(TsidRange.of(0L, -1L), all);
+	}
+
+	@Test
+	public void testInvalid() {
+		final Instant instant = Instant.parse("2023-01-01T10:00:00Z");
+		final Runnable[] invalid = { //
+				() -> TsidRange.between(instant, instant), //
+				() -> TsidRange.between(instant, instant.minusMillis(1)), //
+				() -> TsidRange.of(Instant.ofEpochMilli(TSID.TSID_EPOCH - 1)), //
+				() -> TsidRange.of(Instant.ofEpochMilli(TSID.TSID_EPOCH + (1L << 42))), //
+				() -> TsidRange.of(Instant.MAX), //
+				() -> TsidRange.of(-1L, 0L), //
+				() -> TsidRange.of(0L, 1L).split(0), //
+		};
+		for (Runnable runnable : invalid) {
+			try {
+				runnable.run();
+				fail("Should throw an exception");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+	}
+
+	@Test
+	public void testSplit() {
+		final TsidRange range = TsidRange.between(Instant.parse("2023-01-01T10:00:00Z"),
+				Instant.parse("2023-01-01T10:05:00Z"));
+		for (int parts : new int[] { 1, 2, 3, 7, 64, 1000 }) {
+			final List<TsidRange> ranges = range.split(parts);
+			assertEquals(parts, ranges.size());
+			assertEquals(range.getMin(), ranges.get(0).getMin());
+			assertEquals(range.getMax(), ranges.get(parts - 1).getMax());
+			final long size = ranges.get(0).getMax() - ranges.get(0).getMin() + 1;
+			for (int i = 1; i < parts; i++) {
+				assertEquals(ranges.get(i - 1).getMax() + 1, ranges.get(i).getMin());
+				final long length = ranges.get(i).getMax() - ranges.get(i).getMin() + 1;
+				assertTrue(length == size || length == size - 1);
+			}
+		}
+
+		// fewer TSIDs than parts
+		final List<TsidRange> small = TsidRange.of(10L, 12L).split(5);
+		assertEquals(3, small.size());
+		assertEquals(TsidRange.of(11L, 11L), small.get(1));
+
+		// the whole unsigned range
+		final List<TsidRange> all = TsidRange.of(0L, -1L).split(2);
+		assertEquals(TsidRange.of(0L, Long.MAX_VALUE), all.get(0));
+		assertEquals(TsidRange.of(Long.MIN_VALUE, -1L), all.get(1));
+		assertEquals(TsidRange.of(0L, -1L), TsidRange.of(0L, -1L).split(1).get(0));
+	}
+
+	@Test
+	public void testSpliterator() {
+		final TsidRange range = TsidRange.of(100L, 1099L);
+		assertArrayEquals(LongStream.rangeClosed(100L, 1099L).toArray(), range.stream().toArray());
+		assertEquals(1000, range.spliterator().estimateSize());
+		assertTrue(range.spliterator().hasCharacteristics(Spliterator.SIZED | Spliterator.SORTED));
+		assertNull(range.spliterator().getComparator());
+
+		// the parallel stream must see every TSID once
+		final long sum = StreamSupport.longStream(range.spliterator(), true).sum();
+		assertEquals(LongStream.rangeClosed(100L, 1099L).sum(), sum);
+
+		final Spliterator.OfLong suffix = range.spliterator();
+		final Spliterator.OfLong prefix = suffix.trySplit();
+		assertEquals(500, prefix.estimateSize());
+		assertEquals(500, suffix.estimateSize());
+		assertTrue(prefix.tryAdvance((long tsid) -> assertEquals(100L, tsid)));
+		assertTrue(suffix.tryAdvance((long tsid) -> assertEquals(600L, tsid)));
+
+		// crossing the sign bit
+		final TsidRange crossing = TsidRange.of(Long.MAX_VALUE - 1, Long.MIN_VALUE + 1);
+		assertArrayEquals(new long[] { Long.MAX_VALUE - 1, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1 },
+				crossing.stream().toArray());
+		assertNotNull(crossing.spliterator().getComparator());
+
+		// a single TSID
+		final Spliterator.OfLong single = TsidRange.of(-1L, -1L).spliterator();
+		assertNull(single.trySplit());
+		assertTrue(single.tryAdvance((long tsid) -> assertEquals(-1L, tsid)));
+		assertFalse(single.tryAdvance((long tsid) -> fail()));
+		assertEquals(0, single.estimateSize());
+
+		// too large for a size
+		assertEquals(Long.MAX_VALUE, TsidRange.of(0L, -1L).spliterator().estimateSize());
+		assertFalse(TsidRange.of(0L, -1L).spliterator().hasCharacteristics(Spliterator.SIZED));
+	}
+
+	@Test
+	public void testEqualsAndToString() {
+		assertEquals(TsidRange.of(1L, 2L), TsidRange.of(1L, 2L));
+		assertEquals(TsidRange.of(1L, 2L).hashCode(), TsidRange.of(1L, 2L).hashCode());
+		assertNotEquals(TsidRange.of(1L, 2L), TsidRange.of(1L, 3L));
+		assertEquals("[0000000000001, 0000000000002]", TsidRange.of(1L, 2L).toString());
+	}
+}
@@ -0,0 +1,125 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class TsidSortTest {
+
+	private static final int SIZE = 300_000;
+
+	private static long[] expected(long[] tsids) {
+		final TSID[] objects = new TSID[tsids.length];
+		for (int i = 0; i < tsids.length; i++) {
+			objects[i] = TSID.from(tsids[i]);
+		}
+		Arrays.sort(objects);
+		final long[] sorted = new long[tsids.length];
+		for (int i = 0; i < tsids.length; i++) {
+			sorted[i] = objects[i].toLong();
+		}
+		return sorted;
+	}
+
+	private static long[][] inputs() {
+		final SplittableRandom random = new SplittableRandom(1);
+		final TSID.Factory factory = TSID.Factory.newInstance1024(1);
+
+		final long[] randomLongs = random.longs(SIZE).toArray();
+
+		final long[] sorted = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			sorted[i] = factory.generate().toLong();
+		}
+
+		// TSIDs that arrive slightly out of order
+		final long[] nearlySorted = sorted.clone();
+		for (int i = 0; i < SIZE / 100; i++) {
+			final int a = random.nextInt(SIZE - 4);
+			final int b = a + 1 + random.nextInt(3);
+			final long swap = nearlySorted[a];
+			nearlySorted[a] = nearlySorted[b];
+			nearlySorted[b] = swap;
+		}
+
+		final long[] reversed = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			reversed[i] = sorted[SIZE - 1 - i];
+		}
+
+		// few distinct values, with and without the upper bit
+		final long[] duplicates = new long[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			duplicates[i] = random.nextBoolean() ? random.nextInt(10) : Long.MIN_VALUE + random.nextInt(10);
+		}
+
+		return new long[][] { randomLongs, sorted, nearlySorted, reversed, duplicates, new long[0], { -1L },
+				{ -1L, 1L, Long.MIN_VALUE, Long.MAX_VALUE, 0L } };
+	}
+
+	@Test
+	public void testSort() {
+		for (long[] input : inputs()) {
+			final long[] expected = expected(input);
+			final long[] tsids = input.clone();
+			TsidSort.sort(tsids);
+			assertArrayEquals(expected, tsids);
+			assertTrue(TsidSort.isSorted(tsids, 0, tsids.length));
+		}
+	}
+
+	@Test
+	public void testRadixSort() {
+		for (long[] input : inputs()) {
+			final long[] expected = expected(input);
+			final long[] tsids = input.clone();
+			TsidSort.radixSort(tsids);
+			assertArrayEquals(expected, tsids);
+		}
+	}
+
+	@Test
+	public void testParallelSort() {
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (long[] input : inputs()) {
+				final long[] expected = expected(input);
+				final long[] tsids = input.clone();
+				TsidSort.parallelSort(tsids, 0, tsids.length, pool);
+				assertArrayEquals(expected, tsids);
+
+				final long[] common = input.clone();
+				TsidSort.parallelSort(common);
+				assertArrayEquals(expected, common);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testSortRange() {
+		final long[] input = new SplittableRandom(2).longs(1000).toArray();
+		final long[] tsids = input.clone();
+		TsidSort.sort(tsids, 100, 900);
+		TsidSort.radixSort(tsids, 0, 50);
+		assertArrayEquals(expected(Arrays.copyOfRange(input, 100, 900)), Arrays.copyOfRange(tsids, 100, 900));
+		assertArrayEquals(expected(Arrays.copyOfRange(input, 0, 50)), Arrays.copyOfRange(tsids, 0, 50));
+		assertArrayEquals(Arrays.copyOfRange(input, 50, 100), Arrays.copyOfRange(tsids, 50, 100));
+		assertArrayEquals(Arrays.copyOfRange(input, 900, 1000), Arrays.copyOfRange(tsids, 900, 1000));
+		assertFalse(TsidSort.isSorted(tsids, 0, tsids.length));
+
+		for (int[] range : new int[][] { { -1, 10 }, { 10, 5 }, { 0, 1001 } }) {
+			try {
+				TsidSort.sort(tsids, range[0], range[1]);
+				fail("Should throw an exception");
+			} catch (IndexOutOfBoundsException e) {
+				// success
+			}
+		}
+	}
+}
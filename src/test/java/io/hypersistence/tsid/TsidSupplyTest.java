@@ -0,0 +1,182 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+public class TsidSupplyTest {
+
+	private static final int BATCH_SIZE = 100;
+
+	@Test
+	public void testPoll() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).withPrefetch(2).build()) {
+			final Set<Long> set = new HashSet<>();
+			for (int i = 0; i < 10; i++) {
+				long[] batch = supply.poll();
+				while (batch == null) {
+					Thread.sleep(1);
+					batch = supply.poll();
+				}
+				assertBatch(batch, BATCH_SIZE, set);
+			}
+		}
+	}
+
+	@Test
+	public void testReserve() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).build()) {
+			final Set<Long> set = new HashSet<>();
+			for (int count : new int[] { 0, 1, BATCH_SIZE, BATCH_SIZE + 1, 5000 }) {
+				assertBatch(supply.reserve(count).get(10, TimeUnit.SECONDS), count, set);
+			}
+			// a ready batch is handed out at once
+			Thread.sleep(100);
+			assertTrue(supply.reserve(BATCH_SIZE).isDone());
+		}
+	}
+
+	@Test
+	public void testExecutor() throws Exception {
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		final AtomicInteger tasks = new AtomicInteger();
+		try (TsidSupply supply = TsidSupply.builder().withExecutor(task -> {
+			tasks.incrementAndGet();
+			executor.execute(task);
+		}).build()) {
+			assertEquals(256, supply.batchSize());
+			final int prefill = tasks.get();
+			assertEquals(1, supply.reserve(1).get(10, TimeUnit.SECONDS).length);
+			assertTrue(tasks.get() > prefill);
+		}
+		// not owned by the supply
+		assertFalse(executor.isShutdown());
+		executor.shutdown();
+	}
+
+	@Test
+	public void testSubscription() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).withPrefetch(2).build()) {
+			final List<long[]> batches = new CopyOnWriteArrayList<>();
+			final AtomicReference<Throwable> error = new AtomicReference<>();
+			final CountDownLatch latch = new CountDownLatch(5);
+			final TsidSupply.Subscription subscription = supply.subscribe(batch -> {
+				batches.add(batch);
+				latch.countDown();
+			}, error::set);
+
+			subscription.request(3);
+			subscription.request(2);
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+			// no more than requested
+			Thread.sleep(100);
+			assertEquals(5, batches.size());
+
+			final Set<Long> set = new HashSet<>();
+			for (long[] batch : batches) {
+				assertBatch(batch, BATCH_SIZE, set);
+			}
+
+			subscription.cancel();
+			subscription.request(1);
+			Thread.sleep(100);
+			assertEquals(5, batches.size());
+			assertNull(error.get());
+		}
+	}
+
+	@Test
+	public void testUnboundedSubscription() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).build()) {
+			final AtomicReference<Throwable> error = new AtomicReference<>();
+			final CountDownLatch latch = new CountDownLatch(50);
+			final AtomicReference<TsidSupply.Subscription> reference = new AtomicReference<>();
+			reference.set(supply.subscribe(batch -> {
+				latch.countDown();
+				if (latch.getCount() == 0) {
+					reference.get().cancel();
+				}
+			}, error::set));
+			reference.get().request(Long.MAX_VALUE);
+			reference.get().request(Long.MAX_VALUE);
+			assertTrue(latch.await(10, TimeUnit.SECONDS));
+			assertNull(error.get());
+		}
+	}
+
+	@Test
+	public void testSubscriptionErrors() throws Exception {
+		final TsidSupply supply = TsidSupply.builder().build();
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final CountDownLatch latch = new CountDownLatch(1);
+		supply.subscribe(batch -> fail(), e -> {
+			error.set(e);
+			latch.countDown();
+		}).request(0);
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		assertTrue(error.get() instanceof IllegalArgumentException);
+
+		supply.close();
+		final CountDownLatch closed = new CountDownLatch(1);
+		supply.subscribe(batch -> fail(), e -> closed.countDown()).request(1);
+		assertTrue(closed.await(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testClose() {
+		final TsidSupply supply = TsidSupply.builder().build();
+		supply.close();
+		assertNull(supply.poll());
+		try {
+			supply.reserve(1);
+			fail("Should throw an exception");
+		} catch (IllegalStateException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testInvalid() {
+		try (TsidSupply supply = TsidSupply.builder().build()) {
+			supply.reserve(-1);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			TsidSupply.builder().withBatchSize(0);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+		try {
+			TsidSupply.builder().withPrefetch(0);
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	private static void assertBatch(final long[] batch, final int size, final Set<Long> set) {
+		assertEquals(size, batch.length);
+		for (int i = 0; i < batch.length; i++) {
+			if (i > 0) {
+				assertTrue(batch[i - 1] < batch[i]);
+			}
+			assertTrue(set.add(batch[i]));
+		}
+	}
+}
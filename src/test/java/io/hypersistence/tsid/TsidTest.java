@@ -2,10 +2,17 @@ package io.hypersistence.tsid;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.OptionalLong;
 import java.util.concurrent.ThreadLocalRandom;
 
 import org.junit.Test;
@@ -78,6 +85,262 @@ public class TsidTest {
 		}
 	}
 
+	@Test
+	public void testAppendTo() throws IOException {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			final TSID tsid = TSID.from(number);
+
+			StringBuilder builder = new StringBuilder("id=");
+			assertSame(builder, tsid.appendTo(builder));
+			assertEquals("id=" + toString(number), builder.toString());
+
+			builder = new StringBuilder("id=");
+			assertSame(builder, tsid.appendLowerCaseTo(builder));
+			assertEquals("id=" + toString(number).toLowerCase(), builder.toString());
+
+			StringWriter writer = new StringWriter();
+			tsid.appendTo(writer).append(',');
+			tsid.appendLowerCaseTo(writer);
+			assertEquals(toString(number) + "," + toString(number).toLowerCase(), writer.toString());
+		}
+	}
+
+	@Test
+	public void testWriteTo() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number = ThreadLocalRandom.current().nextLong();
+			final TSID tsid = TSID.from(number);
+			final String upper = toString(number);
+			final String lower = upper.toLowerCase();
+
+			char[] chars = new char[TSID.TSID_CHARS * 2 + 1];
+			int next = tsid.writeTo(chars, 1);
+			assertEquals(1 + TSID.TSID_CHARS, next);
+			next = tsid.writeLowerCaseTo(chars, next);
+			assertEquals(chars.length, next);
+			assertEquals('\0' + upper + lower, new String(chars));
+
+			byte[] bytes = new byte[TSID.TSID_CHARS * 2 + 1];
+			next = tsid.writeTo(bytes, 1);
+			next = tsid.writeLowerCaseTo(bytes, next);
+			assertEquals(bytes.length, next);
+			assertEquals('\0' + upper + lower, new String(bytes, StandardCharsets.US_ASCII));
+
+			ByteBuffer heap = ByteBuffer.allocate(TSID.TSID_CHARS * 2 + 1);
+			ByteBuffer direct = ByteBuffer.allocateDirect(TSID.TSID_CHARS * 2 + 1);
+			for (ByteBuffer buffer : new ByteBuffer[] { heap, direct }) {
+				next = tsid.writeTo(buffer, 1);
+				next = tsid.writeLowerCaseTo(buffer, next);
+				assertEquals(buffer.capacity(), next);
+				assertEquals(0, buffer.position());
+				byte[] content = new byte[buffer.capacity()];
+				buffer.get(content);
+				assertEquals('\0' + upper + lower, new String(content, StandardCharsets.US_ASCII));
+			}
+		}
+	}
+
+	@Test
+	public void testWriteToOutOfBounds() {
+		final TSID tsid = TSID.fast();
+		try {
+			tsid.writeTo(new char[TSID.TSID_CHARS], 1);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			tsid.writeTo(new byte[TSID.TSID_CHARS], -1);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			tsid.writeTo(ByteBuffer.allocate(TSID.TSID_CHARS - 1), 0);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testPutToAndReadFrom() {
+		final byte[] bytes = new byte[TSID.TSID_BYTES + 3];
+		final ByteBuffer heap = ByteBuffer.allocate(TSID.TSID_BYTES * 2);
+		final ByteBuffer direct = ByteBuffer.allocateDirect(TSID.TSID_BYTES * 2).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final TSID tsid = TSID.from(ThreadLocalRandom.current().nextLong());
+
+			assertEquals(TSID.TSID_BYTES + 3, tsid.putTo(bytes, 3));
+			assertArrayEquals(tsid.toBytes(), Arrays.copyOfRange(bytes, 3, bytes.length));
+			assertEquals(tsid, TSID.readFrom(bytes, 3));
+			assertEquals(tsid, TSID.readFrom(bytes, 3, ByteOrder.BIG_ENDIAN));
+
+			assertEquals(TSID.TSID_BYTES + 1, tsid.putTo(bytes, 1, ByteOrder.LITTLE_ENDIAN));
+			assertEquals(tsid.toLong(), ByteBuffer.wrap(bytes, 1, 8).order(ByteOrder.LITTLE_ENDIAN).getLong());
+			assertEquals(tsid, TSID.readFrom(bytes, 1, ByteOrder.LITTLE_ENDIAN));
+
+			heap.clear();
+			tsid.putTo(heap);
+			assertEquals(TSID.TSID_BYTES * 2, tsid.putTo(heap, TSID.TSID_BYTES));
+			assertEquals(TSID.TSID_BYTES, heap.position());
+			assertEquals(tsid, TSID.readFrom(heap, 0));
+			heap.flip();
+			assertEquals(tsid, TSID.readFrom(heap));
+			assertEquals(TSID.TSID_BYTES, heap.position());
+
+			direct.clear();
+			tsid.putTo(direct);
+			assertEquals(tsid.toLong(), direct.getLong(0));
+			assertEquals(tsid, TSID.readFrom(direct, 0));
+			assertEquals(Long.reverseBytes(tsid.toLong()), direct.order(ByteOrder.BIG_ENDIAN).getLong(0));
+			direct.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		try {
+			TSID.fast().putTo(new byte[TSID.TSID_BYTES], 1);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			TSID.readFrom(new byte[TSID.TSID_BYTES], -1, ByteOrder.LITTLE_ENDIAN);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+		try {
+			TSID.readFrom(ByteBuffer.allocate(TSID.TSID_BYTES), 1);
+			fail("Should throw an IndexOutOfBoundsException");
+		} catch (IndexOutOfBoundsException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final TSID tsid = TSID.from(ThreadLocalRandom.current().nextLong());
+			assertEquals(tsid, TsidListTest.deserialize(TsidListTest.serialize(tsid)));
+		}
+
+		// written by an earlier version, so the serialized form must not change
+		final byte[] old = Base64.getDecoder().decode(
+				"rO0ABXNyABppby5oeXBlcnNpc3RlbmNlLnRzaWQuVFNJRLRpASzcdCT3AgABSgAGbnVtYmVyeHAFccWP7DzPUw==");
+		assertEquals(TSID.from("0AWE5HZP3SKTK"), TsidListTest.deserialize(old));
+		assertArrayEquals(old, TsidListTest.serialize(TSID.from("0AWE5HZP3SKTK")));
+	}
+
+	@Test
+	public void testFromCharSequence() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number0 = ThreadLocalRandom.current().nextLong();
+			final String string0 = toString(number0);
+			assertEquals(number0, TSID.from(new StringBuilder(string0)).toLong());
+			assertEquals(number0, TSID.from(CharBuffer.wrap(string0.toLowerCase())).toLong());
+		}
+	}
+
+	@Test
+	public void testFromAscii() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number0 = ThreadLocalRandom.current().nextLong();
+			final String string0 = "id=" + toString(number0) + ";";
+			final byte[] bytes = string0.getBytes(StandardCharsets.US_ASCII);
+			assertEquals(number0, TSID.fromAscii(bytes, 3).toLong());
+			assertTrue(TSID.isValidAscii(bytes, 3));
+
+			final ByteBuffer heap = ByteBuffer.wrap(bytes);
+			final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).flip();
+			for (ByteBuffer buffer : new ByteBuffer[] { heap, direct }) {
+				assertEquals(number0, TSID.fromAscii(buffer, 3).toLong());
+				assertTrue(TSID.isValidAscii(buffer, 3));
+				assertEquals(0, buffer.position());
+			}
+		}
+	}
+
+	@Test
+	public void testFromAsciiInvalid() {
+
+		final byte[] bytes = "0123456789ABC".getBytes(StandardCharsets.US_ASCII);
+
+		assertFalse(TSID.isValidAscii(bytes, 1));
+		assertFalse(TSID.isValidAscii(bytes, -1));
+		assertFalse(TSID.isValidAscii((byte[]) null, 0));
+		assertFalse(TSID.isValidAscii(ByteBuffer.wrap(bytes, 0, 12), 0));
+
+		bytes[5] = (byte) 0xb5; // out of the ASCII range
+		assertFalse(TSID.isValidAscii(bytes, 0));
+		assertFalse(TSID.isValidAscii(ByteBuffer.wrap(bytes), 0));
+
+		bytes[5] = '5';
+		bytes[0] = 'G'; // overflow
+		assertFalse(TSID.isValidAscii(bytes, 0));
+
+		try {
+			TSID.fromAscii(bytes, 0);
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+
+		try {
+			TSID.fromAscii(ByteBuffer.wrap(bytes), 1);
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testFromCharSequenceInvalid() {
+
+		assertFalse(TSID.isValid(new StringBuilder("0123456789AB\u00b5"))); // out of the ASCII range
+		assertFalse(TSID.isValid(new StringBuilder("0123456789AB\u0130"))); // 'I' with dot above
+		assertFalse(TSID.isValid(new StringBuilder("G123456789ABC"))); // overflow
+		assertTrue(TSID.isValid(new StringBuilder("8000000000000"))); // the internal invalid value
+
+		assertEquals(0x8000000000000000L, TSID.from(new StringBuilder("8000000000000")).toLong());
+
+		try {
+			TSID.from(new StringBuilder("0123456789AB#"));
+			fail("Should throw an IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testTryParse() {
+		for (int i = 0; i < LOOP_MAX; i++) {
+			final long number0 = ThreadLocalRandom.current().nextLong();
+			final String string0 = toString(number0);
+			assertEquals(OptionalLong.of(number0), TSID.tryParse(string0));
+			assertEquals(number0, TSID.tryParse(string0, 0L));
+		}
+
+		assertEquals(OptionalLong.of(0L), TSID.tryParse("0000000000000"));
+		assertEquals(OptionalLong.of(0x8000000000000000L), TSID.tryParse("8000000000000"));
+		assertEquals(OptionalLong.of(0x7fffffffffffffffL), TSID.tryParse("7ZZZZZZZZZZZZ"));
+
+		final String[] invalid = { null, "", "0123456789AB", "0123456789ABCC", "0123456789ABu", "0123456789AB#",
+				"G000000000000", "0123456789AB\u00e9", "0123456789AB\uffff" };
+		for (String string : invalid) {
+			assertEquals(OptionalLong.empty(), TSID.tryParse(string));
+			assertEquals(-1L, TSID.tryParse(string, -1L));
+			assertFalse(TSID.isValid(string));
+			try {
+				TSID.from(string);
+				fail("Should throw an IllegalArgumentException");
+			} catch (IllegalArgumentException e) {
+				// success
+			}
+		}
+	}
+
 	@Test
 	public void testFromString2() {
 
@@ -0,0 +1,135 @@
+package io.hypersistence.tsid;
+
+import static org.junit.Assert.*;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class TsidTimeIndexTest {
+
+	private static final int LOOP_MAX = 10_000;
+
+	private static long tsid(long time, long random) {
+		return (time << TSID.RANDOM_BITS) | random;
+	}
+
+	private static int expectedCeiling(long[] sorted, long time) {
+		for (int i = 0; i < sorted.length; i++) {
+			if (sorted[i] >>> TSID.RANDOM_BITS >= time) {
+				return i;
+			}
+		}
+		return sorted.length;
+	}
+
+	@Test
+	public void testBuilderSortsUnsigned() {
+		final long[] tsids = { -1L, 0L, Long.MIN_VALUE, 1L, Long.MAX_VALUE, -2L };
+		final TsidTimeIndex index = TsidTimeIndex.builder().addAll(tsids).add(TSID.from(5L)).build();
+		assertArrayEquals(new long[] { 0L, 1L, 5L, Long.MAX_VALUE, Long.MIN_VALUE, -2L, -1L }, index.toArray());
+		for (int i = 1; i < index.size(); i++) {
+			assertTrue(TSID.from(index.get(i - 1)).compareTo(TSID.from(index.get(i))) <= 0);
+		}
+		assertEquals(7, index.size());
+	}
+
+	@Test
+	public void testOfRequiresSortedInput() {
+		TsidTimeIndex.of(new long[] { 1L, 2L, -1L });
+		try {
+			TsidTimeIndex.of(new long[] { 1L, -1L, 2L });
+			fail("Should throw an exception");
+		} catch (IllegalArgumentException e) {
+			// success
+		}
+	}
+
+	@Test
+	public void testCeilingIndex() {
+		final SplittableRandom random = new SplittableRandom(1);
+		for (int shape = 0; shape < 3; shape++) {
+			final TsidTimeIndex.Builder builder = TsidTimeIndex.builder();
+			for (int i = 0; i < LOOP_MAX; i++) {
+				final long time;
+				switch (shape) {
+				case 0: // uniform
+					time = 1_000_000 + random.nextInt(100_000);
+					break;
+				case 1: // bursts of the same millisecond
+					time = 1_000_000 + random.nextInt(20) * 5_000;
+					break;
+				default: // skewed, which defeats interpolation
+					time = 1_000_000 + (long) Math.pow(random.nextInt(1000), 4);
+					break;
+				}
+				builder.add(tsid(time, random.nextInt(1 << TSID.RANDOM_BITS)));
+			}
+			final TsidTimeIndex index = builder.build();
+			final long[] sorted = index.toArray();
+			final long last = sorted[sorted.length - 1] >>> TSID.RANDOM_BITS;
+			for (int i = 0; i < 2_000; i++) {
+				final long time = 999_000 + random.nextLong(last - 999_000 + 2_000);
+				assertEquals(expectedCeiling(sorted, time), index.ceilingIndex(time + TSID.TSID_EPOCH));
+			}
+		}
+	}
+
+	@Test
+	public void testRange() {
+		final TSID.Factory factory = TSID.Factory.builder().withNode(1).build();
+		final long[] tsids = new long[LOOP_MAX];
+		for (int i = 0; i < LOOP_MAX; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+		final TsidTimeIndex index = TsidTimeIndex.of(tsids);
+
+		final Instant first = TSID.from(tsids[0]).getInstant();
+		final Instant last = TSID.from(tsids[LOOP_MAX - 1]).getInstant();
+		assertArrayEquals(tsids, index.range(first, last.plusMillis(1)));
+		assertEquals(LOOP_MAX, index.count(Instant.EPOCH, Instant.MAX));
+		assertEquals(0, index.range(last.plusMillis(1), Instant.MAX).length);
+		assertEquals(0, index.range(last, first).length);
+		assertEquals(0, index.count(last, first));
+
+		final Instant middle = TSID.from(tsids[LOOP_MAX / 2]).getInstant();
+		final long[] before = index.range(first, middle);
+		final long[] after = index.stream(middle, Instant.MAX).toArray();
+		assertEquals(LOOP_MAX, before.length + after.length);
+		for (long tsid : before) {
+			assertTrue(TSID.from(tsid).getInstant().isBefore(middle));
+		}
+		for (long tsid : after) {
+			assertFalse(TSID.from(tsid).getInstant().isBefore(middle));
+		}
+	}
+
+	@Test
+	public void testCustomEpoch() {
+		final Instant customEpoch = Instant.parse("1989-11-09T00:00:00Z");
+		final TSID.Factory factory = TSID.Factory.builder().withCustomEpoch(customEpoch).build();
+		final long[] tsids = new long[100];
+		for (int i = 0; i < tsids.length; i++) {
+			tsids[i] = factory.generate().toLong();
+		}
+		final TsidTimeIndex index = TsidTimeIndex.builder().withCustomEpoch(customEpoch).addAll(tsids).build();
+		final Instant instant = TSID.from(tsids[50]).getInstant(customEpoch);
+		assertEquals(expectedCeiling(tsids, tsids[50] >>> TSID.RANDOM_BITS), index.ceilingIndex(instant));
+		assertEquals(0, index.ceilingIndex(customEpoch));
+		assertEquals(tsids.length, index.ceilingIndex(Instant.now().plusSeconds(60)));
+		assertEquals(tsids.length, index.ceilingIndex(Long.MAX_VALUE));
+		assertEquals(0, index.ceilingIndex(Long.MIN_VALUE));
+		assertArrayEquals(tsids, index.toArray());
+		assertFalse(Arrays.equals(tsids, TsidTimeIndex.of(tsids).range(customEpoch, Instant.now())));
+	}
+
+	@Test
+	public void testEmpty() {
+		final TsidTimeIndex index = TsidTimeIndex.builder().build();
+		assertEquals(0, index.size());
+		assertEquals(0, index.ceilingIndex(Instant.now()));
+		assertEquals(0, index.range(Instant.EPOCH, Instant.MAX).length);
+	}
+}
@@ -0,0 +1,145 @@
+package io.hypersistence.tsid.flow;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import io.hypersistence.tsid.TsidSupply;
+
+public class TsidPublisherTest {
+
+	private static final int BATCH_SIZE = 100;
+
+	/**
+	 * A subscriber that records what it receives, and counts down a latch for
+	 * the number of batches it expects.
+	 */
+	private static final class RecordingSubscriber implements Flow.Subscriber<long[]> {
+
+		private final List<long[]> batches = new CopyOnWriteArrayList<>();
+		private final AtomicReference<Throwable> error = new AtomicReference<>();
+		private final CountDownLatch subscribed = new CountDownLatch(1);
+		private final CountDownLatch failed = new CountDownLatch(1);
+		private final CountDownLatch received;
+		private volatile Flow.Subscription subscription;
+
+		private RecordingSubscriber(final int expected) {
+			this.received = new CountDownLatch(expected);
+		}
+
+		@Override
+		public void onSubscribe(final Flow.Subscription subscription) {
+			this.subscription = subscription;
+			subscribed.countDown();
+		}
+
+		@Override
+		public void onNext(final long[] batch) {
+			batches.add(batch);
+			received.countDown();
+		}
+
+		@Override
+		public void onError(final Throwable throwable) {
+			error.set(throwable);
+			failed.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			fail("The stream of batches is infinite");
+		}
+	}
+
+	@Test
+	public void testRequest() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).withPrefetch(2).build()) {
+			final RecordingSubscriber subscriber = new RecordingSubscriber(5);
+			new TsidPublisher(supply).subscribe(subscriber);
+			assertTrue(subscriber.subscribed.await(10, TimeUnit.SECONDS));
+
+			// nothing before the first request
+			Thread.sleep(50);
+			assertEquals(0, subscriber.batches.size());
+
+			subscriber.subscription.request(3);
+			subscriber.subscription.request(2);
+			assertTrue(subscriber.received.await(10, TimeUnit.SECONDS));
+
+			// no more than requested
+			Thread.sleep(100);
+			assertEquals(5, subscriber.batches.size());
+
+			final Set<Long> set = new HashSet<>();
+			for (long[] batch : subscriber.batches) {
+				assertEquals(BATCH_SIZE, batch.length);
+				for (int i = 0; i < batch.length; i++) {
+					if (i > 0) {
+						assertTrue(batch[i - 1] < batch[i]);
+					}
+					assertTrue(set.add(batch[i]));
+				}
+			}
+			assertNull(subscriber.error.get());
+
+			subscriber.subscription.cancel();
+			subscriber.subscription.request(1);
+			Thread.sleep(100);
+			assertEquals(5, subscriber.batches.size());
+		}
+	}
+
+	@Test
+	public void testInvalidRequest() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().build()) {
+			final RecordingSubscriber subscriber = new RecordingSubscriber(0);
+			new TsidPublisher(supply).subscribe(subscriber);
+			assertTrue(subscriber.subscribed.await(10, TimeUnit.SECONDS));
+
+			subscriber.subscription.request(0);
+			assertTrue(subscriber.failed.await(10, TimeUnit.SECONDS));
+			assertTrue(subscriber.error.get() instanceof IllegalArgumentException);
+			assertEquals(0, subscriber.batches.size());
+		}
+	}
+
+	@Test
+	public void testSubscribers() throws Exception {
+		try (TsidSupply supply = TsidSupply.builder().withBatchSize(BATCH_SIZE).build()) {
+			final TsidPublisher publisher = new TsidPublisher(supply);
+			final RecordingSubscriber subscriber1 = new RecordingSubscriber(1);
+			final RecordingSubscriber subscriber2 = new RecordingSubscriber(4);
+			publisher.subscribe(subscriber1);
+			publisher.subscribe(subscriber2);
+			assertTrue(subscriber1.subscribed.await(10, TimeUnit.SECONDS));
+			assertTrue(subscriber2.subscribed.await(10, TimeUnit.SECONDS));
+
+			// each subscriber has its own demand
+			subscriber1.subscription.request(1);
+			subscriber2.subscription.request(4);
+			assertTrue(subscriber1.received.await(10, TimeUnit.SECONDS));
+			assertTrue(subscriber2.received.await(10, TimeUnit.SECONDS));
+
+			// no more than requested
+			Thread.sleep(100);
+			assertEquals(1, subscriber1.batches.size());
+			assertEquals(4, subscriber2.batches.size());
+		}
+	}
+
+	@Test(expected = NullPointerException.class)
+	public void testNullSubscriber() {
+		try (TsidSupply supply = TsidSupply.builder().build()) {
+			new TsidPublisher(supply).subscribe(null);
+		}
+	}
+}